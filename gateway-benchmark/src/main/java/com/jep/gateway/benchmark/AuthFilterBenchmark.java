@@ -0,0 +1,66 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.filter.auth.AuthFilter;
+import com.jep.gateway.core.helper.RequestHelper;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 鉴权：cookie 解析 + 签名校验 + 载荷解析
+ * 每次调用使用新的上下文，避免复用 GatewayRequest 中已解析的 cookie
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:40
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+@State(Scope.Benchmark)
+public class AuthFilterBenchmark {
+
+    private final AuthFilter authFilter = new AuthFilter();
+
+    private EmbeddedChannel channel;
+
+    private ChannelHandlerContext channelContext;
+
+    private FullHttpRequest request;
+
+    private GatewayContext ctx;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.registerService(16);
+        DynamicConfigManager.getInstance().putAllRule(
+                BenchmarkFixtures.buildRules(1, FilterConst.LOAD_BALANCE_STRATEGY_RANDOM));
+        channel = new EmbeddedChannel();
+        channelContext = BenchmarkFixtures.newChannelContext(channel);
+        request = BenchmarkFixtures.newRequest(BenchmarkFixtures.RULE_PATH);
+    }
+
+    @Setup(Level.Invocation)
+    public void newContext() {
+        ctx = RequestHelper.doContext(request, channelContext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        request.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public long parseToken() throws Exception {
+        authFilter.doFilter(ctx);
+        return ctx.getRequest().getUserId();
+    }
+}
@@ -0,0 +1,171 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.constant.BasicConst;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.core.config.ConfigLoader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http.cookie.ClientCookieEncoder;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.netty.EagerResponseBodyPart;
+import org.asynchttpclient.netty.NettyResponseStatus;
+import org.asynchttpclient.uri.Uri;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 基准测试公共数据：服务定义、服务实例、路由规则与请求
+ * 直接写入 DynamicConfigManager，不依赖注册中心与配置中心
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:10
+ **/
+public final class BenchmarkFixtures {
+
+    public static final String SERVICE_ID = "backend-http-server";
+
+    public static final String UNIQUE_ID = SERVICE_ID + ":1.0.0";
+
+    public static final String RULE_ID = "rule-0";
+
+    public static final String RULE_PATH = "/http-server/ping";
+
+    public static final String CLIENT_IP = "10.0.0.1";
+
+    public static final long USER_ID = 10086L;
+
+    private static final DefaultAsyncHttpClientConfig UPSTREAM_CLIENT_CONFIG = new DefaultAsyncHttpClientConfig.Builder().build();
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 注册服务定义与服务实例，权重在 1~10 之间分布，每 10 个实例有一个灰度实例
+     * 网关配置未加载时加载默认配置，构造上下文时需要全局的请求超时时间
+     */
+    public static void registerService(int instanceCount) {
+        if (ConfigLoader.getConfig() == null) {
+            ConfigLoader.getInstance().load(new String[0]);
+        }
+        DynamicConfigManager manager = DynamicConfigManager.getInstance();
+        ServiceDefinition definition = ServiceDefinition.builder()
+                .uniqueId(UNIQUE_ID)
+                .serviceId(SERVICE_ID)
+                .version("1.0.0")
+                .protocol("http")
+                .envType("dev")
+                .enable(true)
+                .invokerMap(new HashMap<>())
+                .build();
+        manager.putServiceDefinition(UNIQUE_ID, definition);
+        manager.addServiceInstance(UNIQUE_ID, buildInstances(instanceCount));
+    }
+
+    public static List<ServiceInstance> buildInstances(int instanceCount) {
+        List<ServiceInstance> instances = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            ServiceInstance instance = new ServiceInstance();
+            instance.setIp("192.168." + (i / 250) + "." + (i % 250 + 1));
+            instance.setPort(8080);
+            instance.setServiceInstanceId(instance.getIp() + ":" + instance.getPort());
+            instance.setUniqueId(UNIQUE_ID);
+            instance.setWeight(i % 10 + 1);
+            instance.setRegisterTime(System.currentTimeMillis());
+            instance.setVersion("1.0.0");
+            instance.setGray(i % 10 == 0);
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * 构造路由规则：rule-i 对应前缀 /api/ri 与路径 /api/ri/ping，rule-0 额外包含 RULE_PATH
+     */
+    public static List<Rule> buildRules(int ruleCount, String loadBalanceStrategy) {
+        List<Rule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            Rule rule = new Rule();
+            rule.setId("rule-" + i);
+            rule.setName("rule-" + i);
+            rule.setProtocol("http");
+            rule.setServiceId(SERVICE_ID);
+            rule.setPrefix("/api/r" + i);
+            rule.setOrder(i);
+            List<String> paths = new ArrayList<>();
+            paths.add("/api/r" + i + "/ping");
+            if (i == 0) {
+                paths.add(RULE_PATH);
+            }
+            rule.setPaths(paths);
+
+            Rule.FilterConfig loadBalance = new Rule.FilterConfig();
+            loadBalance.setId(FilterConst.LOAD_BALANCE_FILTER_ID);
+            loadBalance.setConfig("{\"" + FilterConst.LOAD_BALANCE_KEY + "\": \"" + loadBalanceStrategy + "\"}");
+            Rule.FilterConfig auth = new Rule.FilterConfig();
+            auth.setId(FilterConst.AUTH_FILTER_ID);
+            rule.setFilterConfigs(new HashSet<>(Arrays.asList(loadBalance, auth)));
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    /**
+     * 构造一个请求，携带 uniqueId、X-Forwarded-For 与 JWT cookie
+     */
+    public static FullHttpRequest newRequest(String uri) {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri,
+                Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8));
+        request.headers()
+                .set(HttpHeaderNames.HOST, "localhost:8888")
+                .set(GatewayConst.UNIQUE_ID, UNIQUE_ID)
+                .set(BasicConst.HTTP_FORWARD_SEPARATOR, CLIENT_IP)
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE)
+                .set(HttpHeaderNames.COOKIE, ClientCookieEncoder.STRICT.encode(FilterConst.COOKIE_KEY, newToken(USER_ID)));
+        return request;
+    }
+
+    /**
+     * 构造一个下游响应，与 AsyncHttpClient 收到响应后交给 RouterFilter 的对象一致
+     */
+    public static Response newUpstreamResponse(byte[] body) {
+        HttpHeaders headers = new DefaultHttpHeaders()
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .set(HttpHeaderNames.CONTENT_LENGTH, body.length);
+        DefaultHttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, headers);
+        return new Response.ResponseBuilder()
+                .accumulate(new NettyResponseStatus(Uri.create("http://192.168.0.1:8080" + RULE_PATH),
+                        UPSTREAM_CLIENT_CONFIG, httpResponse, null))
+                .accumulate(new HttpResponseHeaders(headers))
+                .accumulate(new EagerResponseBodyPart(Unpooled.wrappedBuffer(body), true))
+                .build();
+    }
+
+    public static String newToken(long userId) {
+        return Jwts.builder()
+                .setSubject(String.valueOf(userId))
+                .setIssuedAt(new Date())
+                .signWith(SignatureAlgorithm.HS256, FilterConst.TOKEN_SECRET)
+                .compact();
+    }
+
+    /**
+     * 基于 EmbeddedChannel 的 ChannelHandlerContext，写出的响应保留在 outbound 队列中
+     */
+    public static ChannelHandlerContext newChannelContext(EmbeddedChannel channel) {
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter());
+        return channel.pipeline().lastContext();
+    }
+}
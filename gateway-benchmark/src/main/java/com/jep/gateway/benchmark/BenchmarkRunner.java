@@ -0,0 +1,171 @@
+package com.jep.gateway.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jep.gateway.common.util.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 基准测试入口
+ * <p>
+ * 接收 JMH 的全部命令行参数，默认附加 -prof gc 并以 JSON 格式输出结果；
+ * 指定 -Dbenchmark.baseline 时与基线结果比较，单次调用分配量超过容忍度即以非零状态退出。
+ * 耗时受机器和噪声影响较大，默认不作为门禁；指定 -Dbenchmark.timeTolerance 时才比较耗时，
+ * 并且只有当前结果置信区间的下界超过基线置信区间的上界加容忍度时才算退化。
+ * <pre>
+ * mvn -pl gateway-benchmark -am package -DskipTests
+ * java -Dbenchmark.baseline=gateway-benchmark/baseline/baseline.json -jar gateway-benchmark/target/benchmarks.jar
+ * java -jar gateway-benchmark/target/benchmarks.jar LoadBalanceBenchmark -p strategy=RoundRobin
+ * </pre>
+ * 重新录制基线时使用更多的 fork 和迭代，缩小耗时的置信区间：
+ * <pre>
+ * java -Dbenchmark.result=gateway-benchmark/baseline/baseline.json -jar gateway-benchmark/target/benchmarks.jar -f 3 -wi 5 -i 10
+ * </pre>
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:50
+ **/
+@Slf4j
+public class BenchmarkRunner {
+
+    /**
+     * 基准测试进程使用的日志配置
+     */
+    public static final String LOG_CONFIG = "-Dlog4j.configurationFile=log4j2-benchmark.xml";
+
+    private static final String RESULT_FILE = System.getProperty("benchmark.result", "gateway-benchmark/target/jmh-result.json");
+
+    private static final String BASELINE_FILE = System.getProperty("benchmark.baseline");
+
+    /**
+     * 平均耗时允许的退化比例，耗时受机器影响较大，未指定时不比较耗时
+     */
+    private static final String TIME_TOLERANCE = System.getProperty("benchmark.timeTolerance");
+
+    /**
+     * 单次调用分配字节数允许的退化比例，与机器无关，可以收紧
+     */
+    private static final double ALLOC_TOLERANCE = Double.parseDouble(System.getProperty("benchmark.allocTolerance", "0.10"));
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        Path resultPath = Paths.get(RESULT_FILE);
+        if (resultPath.getParent() != null) {
+            Files.createDirectories(resultPath.getParent());
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultPath.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        log.warn("{} benchmark results written to {}", results.size(), resultPath.toAbsolutePath());
+
+        if (BASELINE_FILE != null) {
+            List<String> regressions = compare(Paths.get(BASELINE_FILE), resultPath);
+            if (!regressions.isEmpty()) {
+                regressions.forEach(regression -> log.error("regression: {}", regression));
+                System.exit(1);
+            }
+            log.warn("no regression against baseline {}", BASELINE_FILE);
+        }
+    }
+
+    /**
+     * 与基线比较，只比较两边都存在的基准，返回退化描述
+     */
+    static List<String> compare(Path baselinePath, Path resultPath) throws Exception {
+        Map<String, JsonNode> baseline = index(baselinePath);
+        Map<String, JsonNode> current = index(resultPath);
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                continue;
+            }
+            if (TIME_TOLERANCE != null) {
+                checkScore(regressions, entry.getKey(), base.path("primaryMetric"),
+                        entry.getValue().path("primaryMetric"), Double.parseDouble(TIME_TOLERANCE));
+            }
+            checkMetric(regressions, entry.getKey(), ALLOC_METRIC,
+                    allocPerOp(base), allocPerOp(entry.getValue()), ALLOC_TOLERANCE);
+        }
+        return regressions;
+    }
+
+    /**
+     * 耗时按置信区间比较：当前结果的下界超过基线上界加容忍度才算退化，避免单次噪声造成误报
+     */
+    private static void checkScore(List<String> regressions, String key, JsonNode base, JsonNode current, double tolerance) {
+        double baseScore = base.path("score").asDouble();
+        double currentScore = current.path("score").asDouble();
+        double baseUpper = baseScore + scoreError(base);
+        double currentLower = currentScore - scoreError(current);
+        if (baseScore <= 0 || currentLower <= baseUpper * (1 + tolerance)) {
+            return;
+        }
+        regressions.add(String.format("%s score %.2f ± %.2f -> %.2f ± %.2f (+%.1f%%)", key, baseScore, scoreError(base),
+                currentScore, scoreError(current), (currentScore / baseScore - 1) * 100));
+    }
+
+    /**
+     * 只有一次迭代时 JMH 输出的 scoreError 为 NaN
+     */
+    private static double scoreError(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static void checkMetric(List<String> regressions, String key, String metric,
+                                    double base, double current, double tolerance) {
+        // 分配量很小时按绝对值放宽 16 字节，避免对象对齐带来的误报
+        if (base <= 0 || current <= base * (1 + tolerance) || (ALLOC_METRIC.equals(metric) && current - base <= 16)) {
+            return;
+        }
+        regressions.add(String.format("%s %s %.2f -> %.2f (+%.1f%%)", key, metric, base, current, (current / base - 1) * 100));
+    }
+
+    private static double allocPerOp(JsonNode result) {
+        Iterator<Map.Entry<String, JsonNode>> fields = result.path("secondaryMetrics").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            // 老版本 JMH 的指标名带有 "·" 前缀
+            if (field.getKey().endsWith(ALLOC_METRIC)) {
+                return field.getValue().path("score").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 以 基准方法名 + 参数 作为结果的唯一标识
+     */
+    private static Map<String, JsonNode> index(Path path) throws Exception {
+        JsonNode root = JSONUtil.tree(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : root) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,41 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.constant.FilterConst;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置中心推送全量规则时 putAllRule 的重建开销
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:45
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+@State(Scope.Benchmark)
+public class DynamicConfigManagerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int ruleCount;
+
+    private List<Rule> rules;
+
+    @Setup
+    public void setup() {
+        rules = BenchmarkFixtures.buildRules(ruleCount, FilterConst.LOAD_BALANCE_STRATEGY_RANDOM);
+    }
+
+    @Benchmark
+    public long putAllRule() {
+        DynamicConfigManager manager = DynamicConfigManager.getInstance();
+        manager.putAllRule(rules);
+        return manager.getRuleVersion();
+    }
+}
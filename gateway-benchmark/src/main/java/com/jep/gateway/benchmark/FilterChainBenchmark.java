@@ -0,0 +1,76 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.filter.FilterChain;
+import com.jep.gateway.core.filter.FilterChainFactoryImpl;
+import com.jep.gateway.core.helper.RequestHelper;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过滤器链：缓存命中、重新构建与执行
+ * 执行链不包含 RouterFilter，只衡量网关自身的过滤器开销
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:25
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+@State(Scope.Benchmark)
+public class FilterChainBenchmark {
+
+    private final FilterChainFactoryImpl factory = FilterChainFactoryImpl.getInstance();
+
+    private EmbeddedChannel channel;
+
+    private FullHttpRequest request;
+
+    private GatewayContext ctx;
+
+    private FilterChain localChain;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkFixtures.registerService(16);
+        DynamicConfigManager.getInstance().putAllRule(
+                BenchmarkFixtures.buildRules(10, FilterConst.LOAD_BALANCE_STRATEGY_ROUND_ROBIN));
+        channel = new EmbeddedChannel();
+        request = BenchmarkFixtures.newRequest(BenchmarkFixtures.RULE_PATH);
+        ctx = RequestHelper.doContext(request, BenchmarkFixtures.newChannelContext(channel));
+        factory.buildFilterChain(ctx);
+
+        localChain = new FilterChain()
+                .addFilter(factory.getFilterInfo(FilterConst.MONITOR_FILTER_ID))
+                .addFilter(factory.getFilterInfo(FilterConst.AUTH_FILTER_ID))
+                .addFilter(factory.getFilterInfo(FilterConst.LOAD_BALANCE_FILTER_ID));
+    }
+
+    @TearDown
+    public void tearDown() {
+        request.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public FilterChain buildFilterChainCached() throws Exception {
+        return factory.buildFilterChain(ctx);
+    }
+
+    @Benchmark
+    public FilterChain doBuildFilterChain() {
+        return factory.doBuildFilterChain(ctx.getRule());
+    }
+
+    @Benchmark
+    public GatewayContext doFilter() throws Exception {
+        return localChain.doFilter(ctx);
+    }
+}
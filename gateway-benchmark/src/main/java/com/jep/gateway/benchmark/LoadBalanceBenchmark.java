@@ -0,0 +1,80 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.filter.loadbalance.LoadBalanceFilter;
+import com.jep.gateway.core.filter.loadbalance.LoadBalanceRule;
+import com.jep.gateway.core.helper.RequestHelper;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各负载均衡策略的 choose 开销
+ * 策略通过 LoadBalanceFilter 按规则配置解析，新增策略只需加入 strategy 参数
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:30
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+@State(Scope.Benchmark)
+public class LoadBalanceBenchmark {
+
+    @Param({"Random", "RoundRobin", "WeightRandom", "LeastRequest", "PeakEwma", "WeightedRandomAlias", "RingHash", "Maglev"})
+    private String strategy;
+
+    @Param({"8", "128"})
+    private int instanceCount;
+
+    private EmbeddedChannel channel;
+
+    private FullHttpRequest request;
+
+    private GatewayContext ctx;
+
+    private LoadBalanceRule loadBalanceRule;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.registerService(instanceCount);
+        DynamicConfigManager.getInstance().putAllRule(BenchmarkFixtures.buildRules(1, strategy));
+        channel = new EmbeddedChannel();
+        request = BenchmarkFixtures.newRequest(BenchmarkFixtures.RULE_PATH);
+        ctx = RequestHelper.doContext(request, BenchmarkFixtures.newChannelContext(channel));
+        loadBalanceRule = new LoadBalanceFilter().getLoadBalanceRule(ctx);
+    }
+
+    @TearDown
+    public void tearDown() {
+        request.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ServiceInstance choose() {
+        return loadBalanceRule.choose(ctx);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ServiceInstance chooseGray() {
+        return loadBalanceRule.choose(BenchmarkFixtures.UNIQUE_ID, true);
+    }
+
+    /**
+     * 多线程竞争下的 choose，轮询类策略共享计数器
+     */
+    @Benchmark
+    @Threads(4)
+    public ServiceInstance chooseContended() {
+        return loadBalanceRule.choose(ctx);
+    }
+}
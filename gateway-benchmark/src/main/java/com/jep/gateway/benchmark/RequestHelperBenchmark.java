@@ -0,0 +1,101 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.helper.RequestHelper;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求入口：GatewayContext / GatewayRequest 构造与路由规则匹配
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:20
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+@State(Scope.Benchmark)
+public class RequestHelperBenchmark {
+
+    /**
+     * 服务下的规则数量，前缀匹配需要线性扫描
+     */
+    @Param({"10", "1000"})
+    private int ruleCount;
+
+    private EmbeddedChannel channel;
+
+    private ChannelHandlerContext channelContext;
+
+    private FullHttpRequest exactRequest;
+
+    private FullHttpRequest prefixRequest;
+
+    private GatewayRequest exactGatewayRequest;
+
+    private GatewayRequest prefixGatewayRequest;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.registerService(16);
+        DynamicConfigManager.getInstance().putAllRule(
+                BenchmarkFixtures.buildRules(ruleCount, FilterConst.LOAD_BALANCE_STRATEGY_RANDOM));
+        channel = new EmbeddedChannel();
+        channelContext = BenchmarkFixtures.newChannelContext(channel);
+        exactRequest = BenchmarkFixtures.newRequest(BenchmarkFixtures.RULE_PATH + "?name=gateway");
+        // 命中最后一条规则的前缀，扫描全部规则
+        prefixRequest = BenchmarkFixtures.newRequest("/api/r" + (ruleCount - 1) + "/users/1");
+        exactGatewayRequest = newGatewayRequest(exactRequest);
+        prefixGatewayRequest = newGatewayRequest(prefixRequest);
+    }
+
+    @TearDown
+    public void tearDown() {
+        exactRequest.release();
+        prefixRequest.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public GatewayContext doContextExactPath() {
+        return RequestHelper.doContext(exactRequest, channelContext);
+    }
+
+    @Benchmark
+    public GatewayContext doContextPrefixPath() {
+        return RequestHelper.doContext(prefixRequest, channelContext);
+    }
+
+    @Benchmark
+    public GatewayRequest gatewayRequest() {
+        return newGatewayRequest(exactRequest);
+    }
+
+    @Benchmark
+    public Rule getRuleExactPath() {
+        return RequestHelper.getRule(exactGatewayRequest, BenchmarkFixtures.SERVICE_ID);
+    }
+
+    @Benchmark
+    public Rule getRulePrefixPath() {
+        return RequestHelper.getRule(prefixGatewayRequest, BenchmarkFixtures.SERVICE_ID);
+    }
+
+    private GatewayRequest newGatewayRequest(FullHttpRequest request) {
+        return new GatewayRequest(BenchmarkFixtures.UNIQUE_ID, StandardCharsets.UTF_8, BenchmarkFixtures.CLIENT_IP,
+                "localhost:8888", request.uri(), request.method(), HttpUtil.getMimeType(request) == null ? null : HttpUtil.getMimeType(request).toString(),
+                request.headers(), request);
+    }
+}
@@ -0,0 +1,85 @@
+package com.jep.gateway.benchmark;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.common.enums.ResponseCode;
+import com.jep.gateway.core.context.ContextStatus;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.helper.RequestHelper;
+import com.jep.gateway.core.helper.ResponseHelper;
+import com.jep.gateway.core.response.GatewayResponse;
+import com.jep.gateway.core.upstream.UpstreamResponse;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import org.asynchttpclient.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应构造与写回
+ * 写回到 EmbeddedChannel，每次调用后释放出站消息
+ *
+ * @author enping.jep
+ * @date 2026/10/19 16:35
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+@State(Scope.Benchmark)
+public class ResponseHelperBenchmark {
+
+    @Param({"128", "16384"})
+    private int bodySize;
+
+    private EmbeddedChannel channel;
+
+    private ChannelHandlerContext channelContext;
+
+    private FullHttpRequest request;
+
+    private Response upstreamResponse;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.registerService(16);
+        DynamicConfigManager.getInstance().putAllRule(
+                BenchmarkFixtures.buildRules(1, FilterConst.LOAD_BALANCE_STRATEGY_RANDOM));
+        channel = new EmbeddedChannel();
+        channelContext = BenchmarkFixtures.newChannelContext(channel);
+        request = BenchmarkFixtures.newRequest(BenchmarkFixtures.RULE_PATH);
+        byte[] body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'a');
+        upstreamResponse = BenchmarkFixtures.newUpstreamResponse(body);
+    }
+
+    @TearDown
+    public void tearDown() {
+        request.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public FullHttpResponse errorResponse() {
+        FullHttpResponse response = ResponseHelper.getHttpResponse(ResponseCode.SERVICE_UNAVAILABLE);
+        response.release();
+        return response;
+    }
+
+    @Benchmark
+    public boolean writeUpstreamResponse() {
+        // writeResponse 会释放请求，这里先增加引用计数
+        request.retain();
+        GatewayContext ctx = RequestHelper.doContext(request, channelContext);
+        // 响应体写回后会被释放，每次调用重新包装
+        ctx.setResponse(GatewayResponse.buildGatewayResponse(UpstreamResponse.of(upstreamResponse)));
+        ctx.setContextStatus(ContextStatus.Written);
+        ResponseHelper.writeResponse(ctx);
+        return channel.releaseOutbound();
+    }
+}
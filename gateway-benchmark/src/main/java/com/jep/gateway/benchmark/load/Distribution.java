@@ -0,0 +1,107 @@
+package com.jep.gateway.benchmark.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测用的数值分布，用于描述下游延迟（毫秒）与响应体大小（字节）
+ * <pre>
+ * fixed:5          固定值
+ * uniform:1-10     [1, 10] 均匀分布
+ * exp:5            均值为 5 的指数分布
+ * lognormal:5,1.0  中位数为 5、对数标准差为 1.0 的对数正态分布，模拟长尾
+ * </pre>
+ *
+ * @author enping.jep
+ * @date 2026/10/19 17:15
+ **/
+public abstract class Distribution {
+
+    /**
+     * 采样一个非负值
+     */
+    public abstract double sample();
+
+    /**
+     * 分布的上界，用于预分配；无上界的分布返回 Double.MAX_VALUE
+     */
+    public abstract double max();
+
+    public static Distribution parse(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("distribution must be like fixed:5, uniform:1-10, exp:5 or lognormal:5,1.0 but was " + spec);
+        }
+        String type = spec.substring(0, colon).trim();
+        String args = spec.substring(colon + 1).trim();
+        switch (type) {
+            case "fixed":
+                return fixed(Double.parseDouble(args));
+            case "uniform":
+                String[] range = args.split("-");
+                return uniform(Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+            case "exp":
+                return exponential(Double.parseDouble(args));
+            case "lognormal":
+                String[] params = args.split(",");
+                return logNormal(Double.parseDouble(params[0]), Double.parseDouble(params[1]));
+            default:
+                throw new IllegalArgumentException("unknown distribution: " + type);
+        }
+    }
+
+    public static Distribution fixed(double value) {
+        return new Distribution() {
+            @Override
+            public double sample() {
+                return value;
+            }
+
+            @Override
+            public double max() {
+                return value;
+            }
+        };
+    }
+
+    public static Distribution uniform(double min, double max) {
+        return new Distribution() {
+            @Override
+            public double sample() {
+                return min + ThreadLocalRandom.current().nextDouble() * (max - min);
+            }
+
+            @Override
+            public double max() {
+                return max;
+            }
+        };
+    }
+
+    public static Distribution exponential(double mean) {
+        return new Distribution() {
+            @Override
+            public double sample() {
+                return -mean * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+            }
+
+            @Override
+            public double max() {
+                return Double.MAX_VALUE;
+            }
+        };
+    }
+
+    public static Distribution logNormal(double median, double sigma) {
+        return new Distribution() {
+            @Override
+            public double sample() {
+                return median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+            }
+
+            @Override
+            public double max() {
+                return Double.MAX_VALUE;
+            }
+        };
+    }
+}
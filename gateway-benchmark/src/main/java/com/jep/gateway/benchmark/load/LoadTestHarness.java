@@ -0,0 +1,305 @@
+package com.jep.gateway.benchmark.load;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.config.ConfigCenter;
+import com.jep.gateway.core.Container;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.helper.UpstreamHelper;
+import com.jep.gateway.core.upstream.UpstreamClient;
+import com.jep.gateway.register.RegisterCenter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static com.jep.gateway.common.constant.GatewayConst.BUFFER_TYPE_PARALLEL;
+
+/**
+ * 本机回环压测
+ * <p>
+ * 在进程内启动网关 Container，配置中心与注册中心通过 SPI 使用内存实现，下游为 {@link UpstreamStub}，
+ * 由 {@link OpenLoopClient} 以固定速率发压。对 下游协议 × 下游客户端 × bufferType × waitStrategy × worker 数的每个组合，
+ * 输出吞吐、修正 coordinated omission 后的 p50/p99/p99.9 延迟，每个请求消耗的 CPU
+ * （整个进程（含压测客户端与下游桩）和仅网关线程两个口径），测量结束时进程打开的文件描述符数（含压测客户端与下游桩）、
+ * 下游桩上打开的连接数，以及下游每秒新建连接数。
+ * <pre>
+ * mvn -pl gateway-benchmark -am package -DskipTests
+ * java --add-opens java.base/java.lang=ALL-UNNAMED --add-opens java.base/java.math=ALL-UNNAMED \
+ *      -Dlog4j.configurationFile=log4j2-benchmark.xml -Dload.rate=5000 -Dload.workers=1,2,4 \
+ *      -cp gateway-benchmark/target/benchmarks.jar com.jep.gateway.benchmark.load.LoadTestHarness
+ * </pre>
+ * 参数（-D）：
+ * load.rate 每秒请求数，load.duration / load.warmup 测量与预热秒数，
+ * load.upstreamClients（asynchttpclient 或 netty，逗号分隔，用于对比两种下游客户端），
+ * load.upstreamProtocols（http1 或 h2c，逗号分隔，h2c 时在服务定义中开启 HTTP/2，与 HTTP/1.1 连接池对比），
+ * load.bufferTypes（parallel 或 default，逗号分隔），load.waitStrategies，load.workers，
+ * load.maxInFlight，load.clientThreads，load.port 网关起始端口，load.output 结果 CSV，
+ * stub.latency 下游延迟分布（毫秒），stub.payload 响应体大小分布（字节），stub.threads。
+ * 分布写法见 {@link Distribution}。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 17:30
+ **/
+@Slf4j
+public class LoadTestHarness {
+
+    private static final String SERVICE_ID = "load-stub";
+
+    private static final String UNIQUE_ID = SERVICE_ID + ":1.0.0";
+
+    private static final String PATH = "/stub/ping";
+
+    /**
+     * 网关自身线程的名称前缀：boss、worker（与下游客户端共用）、Disruptor 消费线程、下游客户端时间轮
+     */
+    private static final String[] GATEWAY_THREAD_PREFIXES = {"netty-boss", "netty-woker", "ParallelQueueHandler", "gateway-timer"};
+
+    private static final String PROTOCOL_H2C = "h2c";
+
+    private static final String[] CSV_HEADER = {"upstreamProtocol", "upstreamClient", "bufferType", "waitStrategy", "workers", "targetRate", "throughput",
+            "succeeded", "failed", "dropped", "p50Ms", "p99Ms", "p999Ms", "maxMs", "processCpuUsPerReq", "gatewayCpuUsPerReq", "openFds", "upstreamConnections", "upstreamConnectsPerSec"};
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("load.rate", 2000);
+        long durationMillis = Long.getLong("load.duration", 30L) * 1000;
+        long warmupMillis = Long.getLong("load.warmup", 10L) * 1000;
+        List<String> upstreamProtocols = list("load.upstreamProtocols", "http1");
+        List<String> upstreamClients = list("load.upstreamClients", UpstreamClient.ASYNC_HTTP_CLIENT);
+        List<String> bufferTypes = list("load.bufferTypes", BUFFER_TYPE_PARALLEL + ",default");
+        List<String> waitStrategies = list("load.waitStrategies", "blocking,sleeping,yielding");
+        List<String> workers = list("load.workers", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        int basePort = Integer.getInteger("load.port", 19000);
+        Path output = Paths.get(System.getProperty("load.output", "gateway-benchmark/target/load-test.csv"));
+
+        UpstreamStub stub = new UpstreamStub(
+                Distribution.parse(System.getProperty("stub.latency", "fixed:1")),
+                Distribution.parse(System.getProperty("stub.payload", "fixed:1024")),
+                Integer.getInteger("stub.threads", 1));
+        stub.start();
+
+        List<String[]> rows = new ArrayList<>();
+        int scenario = 0;
+        try (OpenLoopClient client = new OpenLoopClient(Integer.getInteger("load.clientThreads", 1),
+                Integer.getInteger("load.maxInFlight", 20000), 10_000)) {
+            for (String upstreamProtocol : upstreamProtocols) {
+                publishStub(stub.getPort(), PROTOCOL_H2C.equals(upstreamProtocol));
+                // h2c 的服务不经过 HTTP/1.1 下游客户端，只跑一次
+                List<String> clients = PROTOCOL_H2C.equals(upstreamProtocol) ? List.of("-") : upstreamClients;
+                for (String upstreamClient : clients) {
+                    for (String bufferType : bufferTypes) {
+                        // 非 parallel 模式不经过 Disruptor，等待策略无意义，只跑一次
+                        List<String> strategies = BUFFER_TYPE_PARALLEL.equals(bufferType) ? waitStrategies : List.of("-");
+                        for (String waitStrategy : strategies) {
+                            for (String worker : workers) {
+                                int port = basePort + scenario++;
+                                rows.add(runScenario(client, stub, port, upstreamProtocol, upstreamClient, bufferType,
+                                        waitStrategy, Integer.parseInt(worker), rate, warmupMillis, durationMillis));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            stub.shutdown();
+        }
+        print(rows);
+        write(output, rows);
+        System.exit(0);
+    }
+
+    private static String[] runScenario(OpenLoopClient client, UpstreamStub stub, int port, String upstreamProtocol,
+                                        String upstreamClient, String bufferType, String waitStrategy, int workers,
+                                        int rate, long warmupMillis, long durationMillis) throws Exception {
+        List<String> args = new ArrayList<>(List.of("--port=" + port, "--bufferType=" + bufferType,
+                "--eventLoopGroupWokerNum=" + workers, "--adminEnabled=false"));
+        if (!"-".equals(upstreamClient)) {
+            args.add("--upstreamClient=" + upstreamClient);
+        }
+        if (!"-".equals(waitStrategy)) {
+            args.add("--waitStrategy=" + waitStrategy);
+        }
+        Config config = ConfigLoader.getInstance().load(args.toArray(new String[0]));
+        Container container = startGateway(config);
+        try {
+            String url = "http://127.0.0.1:" + port + PATH;
+            Map<String, String> headers = Map.of(GatewayConst.UNIQUE_ID, UNIQUE_ID);
+            log.warn("scenario upstreamProtocol={} upstreamClient={} bufferType={} waitStrategy={} workers={} rate={}",
+                    upstreamProtocol, upstreamClient, bufferType, waitStrategy, workers, rate);
+            client.run(url, headers, rate, warmupMillis);
+
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            Map<Long, Long> gatewayCpuBefore = gatewayThreadCpu(threadMXBean);
+            long processCpuBefore = processCpuTime();
+            long connectsBefore = stub.getAcceptedConnections();
+            OpenLoopClient.Result result = client.run(url, headers, rate, durationMillis);
+            long processCpu = processCpuTime() - processCpuBefore;
+            long connects = stub.getAcceptedConnections() - connectsBefore;
+            long openFds = openFileDescriptors();
+            long gatewayCpu = 0;
+            for (Map.Entry<Long, Long> entry : gatewayThreadCpu(threadMXBean).entrySet()) {
+                gatewayCpu += entry.getValue() - gatewayCpuBefore.getOrDefault(entry.getKey(), 0L);
+            }
+            long requests = Math.max(1, result.getSucceeded() + result.getFailed());
+            return new String[]{upstreamProtocol, upstreamClient, bufferType, waitStrategy, String.valueOf(workers), String.valueOf(rate),
+                    format(result.getThroughput()), String.valueOf(result.getSucceeded()), String.valueOf(result.getFailed()),
+                    String.valueOf(result.getDropped()), format(result.percentileMillis(50)), format(result.percentileMillis(99)),
+                    format(result.percentileMillis(99.9)), format(result.getHistogram().getMaxValue() / 1000.0),
+                    format(processCpu / 1000.0 / requests), format(gatewayCpu / 1000.0 / requests),
+                    String.valueOf(openFds), String.valueOf(stub.getOpenConnections()), format(connects * 1000.0 / durationMillis)};
+        } finally {
+            container.shutdown();
+            // 等待 EventLoop 优雅关闭，避免影响下一个场景
+            Thread.sleep(3000);
+        }
+    }
+
+    /**
+     * 与 BootStrap 相同的启动流程，配置中心与注册中心固定使用内存实现
+     */
+    private static Container startGateway(Config config) {
+        ConfigCenter configCenter = ServiceLoader.load(ConfigCenter.class).stream()
+                .filter(provider -> provider.type() == MemoryConfigCenter.class)
+                .findFirst().orElseThrow(() -> new IllegalStateException("MemoryConfigCenter is not registered")).get();
+        configCenter.init(config.getRegistryAddress(), config.getEnv());
+        configCenter.subscribeRulesChange(rules -> DynamicConfigManager.getInstance().putAllRule(rules));
+
+        Container container = new Container(config);
+        container.start();
+
+        RegisterCenter registerCenter = ServiceLoader.load(RegisterCenter.class).stream()
+                .filter(provider -> provider.type() == MemoryRegisterCenter.class)
+                .findFirst().orElseThrow(() -> new IllegalStateException("MemoryRegisterCenter is not registered")).get();
+        registerCenter.init(config.getRegistryAddress(), config.getEnv());
+        registerCenter.subscribeAllServices((serviceDefinition, serviceInstances) -> {
+            DynamicConfigManager manager = DynamicConfigManager.getInstance();
+            manager.addServiceInstance(serviceDefinition.getUniqueId(), serviceInstances);
+            manager.putServiceDefinition(serviceDefinition.getUniqueId(), serviceDefinition);
+            UpstreamHelper.getInstance().onServiceChanged(serviceDefinition, serviceInstances);
+        });
+        return container;
+    }
+
+    /**
+     * 发布下游桩的服务定义、实例与路由规则
+     */
+    private static void publishStub(int stubPort, boolean http2) {
+        ServiceDefinition definition = ServiceDefinition.builder()
+                .uniqueId(UNIQUE_ID)
+                .serviceId(SERVICE_ID)
+                .version("1.0.0")
+                .protocol("http")
+                .envType("dev")
+                .enable(true)
+                .invokerMap(new HashMap<>())
+                .http2(http2 ? new ServiceDefinition.Http2Config() : null)
+                .build();
+        ServiceInstance instance = new ServiceInstance();
+        instance.setIp("127.0.0.1");
+        instance.setPort(stubPort);
+        instance.setServiceInstanceId("127.0.0.1:" + stubPort);
+        instance.setUniqueId(UNIQUE_ID);
+        instance.setWeight(GatewayConst.DEFAULT_WEIGHT);
+        instance.setRegisterTime(System.currentTimeMillis());
+        instance.setVersion("1.0.0");
+        MemoryRegisterCenter.publishService(definition, List.of(instance));
+
+        Rule rule = new Rule();
+        rule.setId("load-rule");
+        rule.setName("load-rule");
+        rule.setProtocol("http");
+        rule.setServiceId(SERVICE_ID);
+        rule.setPrefix("/stub");
+        rule.setPaths(List.of(PATH));
+        rule.setOrder(0);
+        Rule.FilterConfig loadBalance = new Rule.FilterConfig();
+        loadBalance.setId(FilterConst.LOAD_BALANCE_FILTER_ID);
+        loadBalance.setConfig("{\"" + FilterConst.LOAD_BALANCE_KEY + "\": \"" + FilterConst.LOAD_BALANCE_STRATEGY_ROUND_ROBIN + "\"}");
+        rule.setFilterConfigs(new HashSet<>(List.of(loadBalance)));
+        MemoryConfigCenter.publishRules(List.of(rule));
+    }
+
+    private static Map<Long, Long> gatewayThreadCpu(ThreadMXBean threadMXBean) {
+        Map<Long, Long> cpu = new HashMap<>();
+        for (ThreadInfo info : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds())) {
+            if (info == null || !isGatewayThread(info.getThreadName())) {
+                continue;
+            }
+            long time = threadMXBean.getThreadCpuTime(info.getThreadId());
+            if (time >= 0) {
+                cpu.put(info.getThreadId(), time);
+            }
+        }
+        return cpu;
+    }
+
+    private static boolean isGatewayThread(String name) {
+        for (String prefix : GATEWAY_THREAD_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 进程当前打开的文件描述符数，非 Unix 平台返回 -1
+     */
+    private static long openFileDescriptors() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.UnixOperatingSystemMXBean unix) {
+            return unix.getOpenFileDescriptorCount();
+        }
+        return -1;
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static List<String> list(String property, String defaultValue) {
+        List<String> values = new ArrayList<>();
+        for (String value : System.getProperty(property, defaultValue).split(",")) {
+            if (!value.isBlank()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static void print(List<String[]> rows) {
+        String pattern = "%-9s %-15s %-10s %-12s %7s %10s %11s %10s %8s %8s %8s %8s %8s %9s %13s %13s %8s %10s %10s%n";
+        System.out.printf(pattern, (Object[]) CSV_HEADER);
+        for (String[] row : rows) {
+            System.out.printf(pattern, (Object[]) row);
+        }
+    }
+
+    private static void write(Path output, List<String[]> rows) throws Exception {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            writer.println(String.join(",", CSV_HEADER));
+            for (String[] row : rows) {
+                writer.println(String.join(",", row));
+            }
+        }
+        log.warn("load test results written to {}", output.toAbsolutePath());
+    }
+}
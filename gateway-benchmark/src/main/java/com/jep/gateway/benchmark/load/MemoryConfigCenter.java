@@ -0,0 +1,46 @@
+package com.jep.gateway.benchmark.load;
+
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.config.ConfigCenter;
+import com.jep.gateway.config.RulesChangeListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 基于内存的配置中心，通过 SPI 替代 Nacos，供压测使用
+ * 订阅时立即推送当前规则，之后调用 {@link #publishRules(List)} 推送变更
+ *
+ * @author enping.jep
+ * @date 2026/10/19 17:10
+ **/
+@Slf4j
+public class MemoryConfigCenter implements ConfigCenter {
+
+    private static volatile List<Rule> rules = new ArrayList<>();
+
+    private static final List<RulesChangeListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * 发布全量规则并通知所有订阅者
+     */
+    public static void publishRules(List<Rule> newRules) {
+        rules = new ArrayList<>(newRules);
+        for (RulesChangeListener listener : LISTENERS) {
+            listener.onRulesChange(rules);
+        }
+    }
+
+    @Override
+    public void init(String serverAddr, String env) {
+        log.info("memory config center initialized, env: {}", env);
+    }
+
+    @Override
+    public void subscribeRulesChange(RulesChangeListener listener) {
+        LISTENERS.add(listener);
+        listener.onRulesChange(rules);
+    }
+}
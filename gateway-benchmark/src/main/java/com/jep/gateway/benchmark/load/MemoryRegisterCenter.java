@@ -0,0 +1,73 @@
+package com.jep.gateway.benchmark.load;
+
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.register.RegisterCenter;
+import com.jep.gateway.register.RegisterCenterListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 基于内存的注册中心，通过 SPI 替代 Nacos，供压测使用
+ * 订阅时立即推送已有服务，之后调用 {@link #publishService(ServiceDefinition, List)} 推送变更
+ *
+ * @author enping.jep
+ * @date 2026/10/19 17:12
+ **/
+@Slf4j
+public class MemoryRegisterCenter implements RegisterCenter {
+
+    /**
+     * uniqueId —> 服务定义
+     */
+    private static final Map<String, ServiceDefinition> DEFINITIONS = new ConcurrentHashMap<>();
+
+    /**
+     * uniqueId —> 服务实例集合
+     */
+    private static final Map<String, List<ServiceInstance>> INSTANCES = new ConcurrentHashMap<>();
+
+    private static final List<RegisterCenterListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * 发布服务及其全部实例并通知所有订阅者
+     */
+    public static void publishService(ServiceDefinition definition, List<ServiceInstance> instances) {
+        DEFINITIONS.put(definition.getUniqueId(), definition);
+        INSTANCES.put(definition.getUniqueId(), new ArrayList<>(instances));
+        for (RegisterCenterListener listener : LISTENERS) {
+            listener.onChange(definition, INSTANCES.get(definition.getUniqueId()));
+        }
+    }
+
+    @Override
+    public void init(String registerAddress, String env) {
+        log.info("memory register center initialized, env: {}", env);
+    }
+
+    @Override
+    public void register(ServiceDefinition serviceDefinition, ServiceInstance serviceInstance) {
+        INSTANCES.computeIfAbsent(serviceDefinition.getUniqueId(), key -> new CopyOnWriteArrayList<>()).add(serviceInstance);
+        DEFINITIONS.put(serviceDefinition.getUniqueId(), serviceDefinition);
+    }
+
+    @Override
+    public void deregister(ServiceDefinition serviceDefinition, ServiceInstance serviceInstance) {
+        List<ServiceInstance> instances = INSTANCES.get(serviceDefinition.getUniqueId());
+        if (instances != null) {
+            instances.remove(serviceInstance);
+        }
+    }
+
+    @Override
+    public void subscribeAllServices(RegisterCenterListener registerCenterListener) {
+        LISTENERS.add(registerCenterListener);
+        DEFINITIONS.forEach((uniqueId, definition) ->
+                registerCenterListener.onChange(definition, INSTANCES.getOrDefault(uniqueId, new ArrayList<>())));
+    }
+}
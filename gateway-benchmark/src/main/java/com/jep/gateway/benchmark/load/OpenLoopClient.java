@@ -0,0 +1,160 @@
+package com.jep.gateway.benchmark.load;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.asynchttpclient.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环（固定到达速率）压测客户端
+ * <p>
+ * 第 i 个请求的计划发送时间为 start + i / rate，不论之前的请求是否返回都按计划发送；
+ * 延迟从计划发送时间开始计算，发送落后于计划时的排队时间也计入延迟，以此修正 coordinated omission。
+ * 在途请求达到上限时不再发送，这些请求按超时计入延迟(计划发送时间到超时)，不会从延迟分布中消失。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 17:25
+ **/
+@Slf4j
+public class OpenLoopClient implements AutoCloseable {
+
+    /**
+     * 最大可记录延迟 60 秒，单位微秒
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final AsyncHttpClient asyncHttpClient;
+
+    private final int maxInFlight;
+
+    private final long requestTimeoutNanos;
+
+    public OpenLoopClient(int threads, int maxInFlight, int requestTimeoutMillis) {
+        this.maxInFlight = maxInFlight;
+        this.requestTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis);
+        this.eventLoopGroup = new NioEventLoopGroup(threads, new DefaultThreadFactory("load-client"));
+        this.asyncHttpClient = new DefaultAsyncHttpClient(new DefaultAsyncHttpClientConfig.Builder()
+                .setEventLoopGroup(eventLoopGroup)
+                .setKeepAlive(true)
+                .setRequestTimeout(requestTimeoutMillis)
+                .setMaxConnections(-1)
+                .setMaxConnectionsPerHost(-1)
+                .build());
+    }
+
+    /**
+     * 按固定速率发送请求，返回结果前等待所有在途请求完成或超时
+     */
+    public Result run(String url, Map<String, String> headers, int rate, long durationMillis) throws InterruptedException {
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder dropped = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = rate * durationMillis / 1000;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // 在途请求过多说明网关已经失去响应，不再发送以免压测客户端自身耗尽内存；
+            // 发送了也会超时，按超时记录延迟，否则最差的那部分请求不进入延迟分布
+            if (inFlight.get() >= maxInFlight) {
+                long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended + requestTimeoutNanos);
+                recorder.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+                dropped.increment();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            BoundRequestBuilder request = asyncHttpClient.prepareGet(url);
+            headers.forEach(request::setHeader);
+            request.execute(new AsyncCompletionHandler<Response>() {
+                @Override
+                public Response onCompleted(Response response) {
+                    record(response.getStatusCode() < 400);
+                    return response;
+                }
+
+                @Override
+                public void onThrowable(Throwable t) {
+                    record(false);
+                }
+
+                private void record(boolean success) {
+                    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                    recorder.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+                    (success ? succeeded : failed).increment();
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+        long sendEnd = System.nanoTime();
+        while (inFlight.get() > 0 && System.nanoTime() - sendEnd < TimeUnit.SECONDS.toNanos(30)) {
+            Thread.sleep(10);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return new Result(recorder.getIntervalHistogram(), succeeded.sum(), failed.sum(), dropped.sum(), elapsedNanos);
+    }
+
+    @Override
+    public void close() {
+        try {
+            asyncHttpClient.close();
+        } catch (IOException e) {
+            log.error("load client close error", e);
+        }
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    /**
+     * 一次压测的结果，延迟单位微秒，延迟分布包含被丢弃的请求
+     */
+    @Getter
+    public static class Result {
+        private final Histogram histogram;
+
+        private final long succeeded;
+
+        private final long failed;
+
+        /**
+         * 在途请求达到上限未发送的请求数，按超时计入延迟分布，不计入失败数
+         */
+        private final long dropped;
+
+        private final long elapsedNanos;
+
+        Result(Histogram histogram, long succeeded, long failed, long dropped, long elapsedNanos) {
+            this.histogram = histogram;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.dropped = dropped;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double getThroughput() {
+            return succeeded * 1e9 / elapsedNanos;
+        }
+
+        public double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.jep.gateway.benchmark.load;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测用的下游服务桩
+ * 按延迟分布在 EventLoop 上延后写回响应，不占用线程；响应体大小按分布采样。
+ * 同一端口同时支持 HTTP/1.1 和 h2c(prior knowledge)，并统计建立过的连接数和当前打开的连接数
+ *
+ * @author enping.jep
+ * @date 2026/10/19 17:20
+ **/
+@Slf4j
+public class UpstreamStub {
+
+    /**
+     * 无上界的响应体分布截断到 1MB
+     */
+    private static final int MAX_PAYLOAD = 1024 * 1024;
+
+    private final Distribution latencyMillis;
+
+    private final Distribution payloadBytes;
+
+    private final byte[] payload;
+
+    private final EventLoopGroup eventLoopGroup;
+
+    @Getter
+    private int port;
+
+    private final AtomicLong acceptedConnections = new AtomicLong();
+
+    private final AtomicLong openConnections = new AtomicLong();
+
+    public UpstreamStub(Distribution latencyMillis, Distribution payloadBytes, int threads) {
+        this.latencyMillis = latencyMillis;
+        this.payloadBytes = payloadBytes;
+        this.payload = new byte[(int) Math.min(MAX_PAYLOAD, payloadBytes.max())];
+        Arrays.fill(payload, (byte) 'a');
+        this.eventLoopGroup = new NioEventLoopGroup(threads, new DefaultThreadFactory("upstream-stub"));
+    }
+
+    public void start() throws InterruptedException {
+        Channel channel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        acceptedConnections.incrementAndGet();
+                        openConnections.incrementAndGet();
+                        ch.closeFuture().addListener(future -> openConnections.decrementAndGet());
+                        HttpServerCodec httpServerCodec = new HttpServerCodec();
+                        // 只支持 prior knowledge，不支持 HTTP/1.1 Upgrade
+                        HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(httpServerCodec, protocol -> null);
+                        ch.pipeline().addLast(
+                                new CleartextHttp2ServerUpgradeHandler(httpServerCodec, upgradeHandler, newHttp2Handler()),
+                                new HttpObjectAggregator(MAX_PAYLOAD),
+                                new StubHandler()
+                        );
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        this.port = ((InetSocketAddress) channel.localAddress()).getPort();
+        log.warn("upstream stub listening on 127.0.0.1:{}", port);
+    }
+
+    public void shutdown() {
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    /**
+     * 启动以来接受的连接数
+     */
+    public long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    /**
+     * 当前打开的连接数
+     */
+    public long getOpenConnections() {
+        return openConnections.get();
+    }
+
+    private ChannelHandler newHttp2Handler() {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(Http2FrameCodecBuilder.forServer().build());
+                ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel stream) {
+                        stream.pipeline().addLast(
+                                new Http2StreamFrameToHttpObjectCodec(true),
+                                new HttpObjectAggregator(MAX_PAYLOAD),
+                                new StubHandler()
+                        );
+                    }
+                }));
+            }
+        };
+    }
+
+    private class StubHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            boolean keepAlive = HttpUtil.isKeepAlive(request);
+            int size = (int) Math.min(payload.length, Math.max(0, payloadBytes.sample()));
+            long delayMicros = (long) (Math.max(0, latencyMillis.sample()) * 1000);
+            if (delayMicros == 0) {
+                write(ctx, size, keepAlive);
+            } else {
+                ctx.executor().schedule(() -> write(ctx, size, keepAlive), delayMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+
+        private void write(ChannelHandlerContext ctx, int size, boolean keepAlive) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.wrappedBuffer(payload, 0, size));
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, size);
+            if (keepAlive) {
+                response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+                ctx.writeAndFlush(response);
+            } else {
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.commons.collections.CollectionUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +43,21 @@ public class DynamicConfigManager {
      */
     private ConcurrentHashMap<String, List<Rule>> serviceRuleMap = new ConcurrentHashMap<>();
 
+    /**
+     * 规则快照版本号，每次规则变更时递增
+     */
+    private final AtomicLong ruleVersion = new AtomicLong();
+
+    /**
+     * 服务定义快照版本号，每次服务定义变更时递增
+     */
+    private final AtomicLong serviceDefinitionVersion = new AtomicLong();
+
+    /**
+     * 服务实例快照版本号  serviceId —> version
+     */
+    private final ConcurrentHashMap<String, AtomicLong> serviceInstanceVersionMap = new ConcurrentHashMap<>();
+
     public DynamicConfigManager() {
     }
 
@@ -56,10 +72,12 @@ public class DynamicConfigManager {
     /******* 对服务定义缓存的相关方法 ********/
     public void putServiceDefinition(String uniqueId, ServiceDefinition definition) {
         serviceDefinitionMap.put(uniqueId, definition);
+        serviceDefinitionVersion.incrementAndGet();
     }
 
     public void removeServiceDefinition(String uniqueId) {
         serviceDefinitionMap.remove(uniqueId);
+        serviceDefinitionVersion.incrementAndGet();
     }
 
     public ServiceDefinition getServiceDefinition(String uniqueId) {
@@ -83,6 +101,7 @@ public class DynamicConfigManager {
      */
     public void addServiceInstance(String uniqueId, List<ServiceInstance> serviceInstances) {
         serviceInstanceMap.put(uniqueId, serviceInstances);
+        incrementServiceInstanceVersion(uniqueId);
     }
 
     /**
@@ -90,11 +109,17 @@ public class DynamicConfigManager {
      */
     public void removeServiceInstanceByUniqueId(String uniqueId) {
         serviceInstanceMap.remove(uniqueId);
+        incrementServiceInstanceVersion(uniqueId);
+    }
+
+    private void incrementServiceInstanceVersion(String uniqueId) {
+        serviceInstanceVersionMap.computeIfAbsent(uniqueId, key -> new AtomicLong()).incrementAndGet();
     }
 
     /******* 缓存规则相关操作方法 ********/
     public void putRule(String ruleId, Rule rule) {
         ruleMap.put(ruleId, rule);
+        ruleVersion.incrementAndGet();
     }
 
     public void putAllRule(List<Rule> ruleList) {
@@ -119,6 +144,7 @@ public class DynamicConfigManager {
         ruleMap = newRuleMap;
         pathRuleMap = newPathMap;
         serviceRuleMap = newServiceMap;
+        ruleVersion.incrementAndGet();
     }
 
     public Rule getRule(String ruleId) {
@@ -127,6 +153,7 @@ public class DynamicConfigManager {
 
     public void removeRule(String ruleId) {
         ruleMap.remove(ruleId);
+        ruleVersion.incrementAndGet();
     }
 
     public Rule getRulePath(String path) {
@@ -138,6 +165,24 @@ public class DynamicConfigManager {
     }
 
 
+    /******* 配置快照版本号 ********/
+    public long getRuleVersion() {
+        return ruleVersion.get();
+    }
+
+    public long getServiceDefinitionVersion() {
+        return serviceDefinitionVersion.get();
+    }
+
+    /**
+     * 各服务实例集合的版本号  serviceId —> version
+     */
+    public Map<String, Long> getServiceInstanceVersions() {
+        Map<String, Long> versions = new TreeMap<>();
+        serviceInstanceVersionMap.forEach((serviceId, version) -> versions.put(serviceId, version.get()));
+        return versions;
+    }
+
     /***************** 	对服务实例缓存进行操作的系列方法 	***************/
 
     public List<ServiceInstance> getServiceInstanceByServiceId(String serviceId, boolean gray) {
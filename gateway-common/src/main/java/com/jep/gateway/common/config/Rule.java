@@ -3,6 +3,7 @@ package com.jep.gateway.common.config;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -54,11 +55,26 @@ public class Rule implements Comparable<Rule>, Serializable {
      */
     private Set<FilterConfig> filterConfigs = new HashSet<FilterConfig>();
 
+    /**
+     * 请求超时时间(毫秒)，从网关收到请求开始计算，包括排队、重试的时间，0表示使用服务调用的超时时间
+     */
+    private int timeout;
+
     /**
      * 重试规则
      */
     private RetryConfig retryConfig = new RetryConfig();
 
+    /**
+     * 对冲请求规则，为空时不对冲
+     */
+    private HedgeConfig hedgeConfig;
+
+    /**
+     * 请求合并规则，为空时不合并
+     */
+    private CoalesceConfig coalesceConfig;
+
     /**
      * 限流规则
      */
@@ -106,15 +122,68 @@ public class Rule implements Comparable<Rule>, Serializable {
     }
 
     /**
-     * 重试次数
+     * 重试规则：下游超时或连接失败时换一个实例重试，只重试幂等请求和未发出的请求
      */
     @Data
     public static class RetryConfig {
+        /**
+         * 最多重试次数
+         */
         private int times;
+
+        /**
+         * 第一次重试的退避上限(毫秒)，之后每次翻倍，实际退避在 0 到上限之间随机
+         */
+        private int backoff = 25;
+
+        /**
+         * 退避上限的最大值(毫秒)
+         */
+        private int maxBackoff = 1000;
     }
 
     /**
-     * 熔断规则
+     * 对冲请求：下游在该路由延迟分位数内没有响应时，向另一个实例再发一次请求，取先返回的响应
+     * 只对幂等请求方法生效
+     */
+    @Data
+    public static class HedgeConfig {
+        /**
+         * 对冲延迟取该路由下游延迟的百分位数
+         */
+        private double percentile = 95;
+
+        /**
+         * 延迟样本不足时使用的对冲延迟(毫秒)
+         */
+        private int delay = 50;
+
+        /**
+         * 对冲延迟下限(毫秒)，避免延迟很低时几乎每个请求都对冲
+         */
+        private int minDelay = 5;
+
+        /**
+         * 对冲请求最多占原始请求的百分比，防止下游过载时对冲进一步放大负载
+         */
+        private double budgetPercent = 10;
+    }
+
+    /**
+     * 请求合并(single-flight)：同时到达的相同 GET 请求只向下游发一次，所有请求共享同一个响应
+     * 请求键由服务、请求路径与查询参数、userId 和配置的请求头组成
+     */
+    @Data
+    public static class CoalesceConfig {
+        /**
+         * 参与请求键的请求头，下游响应随这些请求头变化时必须列出；
+         * 携带 Authorization 或 Cookie 但未列出时请求不合并，避免按用户返回的响应被其他用户共享
+         */
+        private List<String> headers = Arrays.asList("Accept", "Accept-Encoding", "Authorization", "Cookie");
+    }
+
+    /**
+     * 熔断规则：滑动窗口失败率熔断器加信号量舱壁，不占用线程
      */
     @Data
     public static class HystrixConfig {
@@ -129,7 +198,7 @@ public class Rule implements Comparable<Rule>, Serializable {
         private int timeoutInMilliseconds;
 
         /**
-         * 核心线程数量
+         * 舱壁允许的最大并发请求数(沿用原线程池大小配置)，0 表示不限制
          */
         private int coreThreadSize;
 
@@ -137,6 +206,26 @@ public class Rule implements Comparable<Rule>, Serializable {
          * 熔断降级响应
          */
         private String fallbackResponse;
+
+        /**
+         * 触发熔断的失败率(百分比)，超时、连接失败和 5xx 计为失败
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 滑动窗口内至少的请求数，请求数不足时不熔断
+         */
+        private int minimumRequests = 20;
+
+        /**
+         * 统计失败率的滑动窗口(毫秒)
+         */
+        private int windowInMilliseconds = 10000;
+
+        /**
+         * 熔断后拒绝请求的时间(毫秒)，之后放行一个探测请求，成功则恢复
+         */
+        private int openInMilliseconds = 5000;
     }
 
     /**
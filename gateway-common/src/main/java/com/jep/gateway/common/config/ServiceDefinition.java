@@ -1,6 +1,7 @@
 package com.jep.gateway.common.config;
 
 import lombok.Builder;
+import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -37,7 +38,7 @@ public class ServiceDefinition implements Serializable {
     private String version;
 
     /**
-     * 服务的具体协议：http(mvc http) dubbo ..
+     * 服务的具体协议：http(mvc http) dubbo grpc ..
      */
     private String protocol;
 
@@ -61,12 +62,27 @@ public class ServiceDefinition implements Serializable {
      */
     private Map<String, ServiceInvoker> invokerMap;
 
+    /**
+     * 主动健康检查配置，为空时不做主动健康检查
+     */
+    private HealthCheckConfig healthCheck;
+
+    /**
+     * 下游 HTTP/2 配置，不为空时通过 h2c(prior knowledge) 多路复用连接调用该服务，为空时使用 HTTP/1.1
+     */
+    private Http2Config http2;
+
+    /**
+     * gRPC 配置，协议为 grpc 时网关把 JSON 请求转码为 gRPC 调用
+     */
+    private GrpcConfig grpc;
+
 
     public ServiceDefinition() {
         super();
     }
 
-    public ServiceDefinition(String uniqueId, String serviceId, String version, String protocol, String patternPath, String envType, boolean enable, Map<String, ServiceInvoker> invokerMap) {
+    public ServiceDefinition(String uniqueId, String serviceId, String version, String protocol, String patternPath, String envType, boolean enable, Map<String, ServiceInvoker> invokerMap, HealthCheckConfig healthCheck, Http2Config http2, GrpcConfig grpc) {
         super();
         this.uniqueId = uniqueId;
         this.serviceId = serviceId;
@@ -76,6 +92,9 @@ public class ServiceDefinition implements Serializable {
         this.envType = envType;
         this.enable = enable;
         this.invokerMap = invokerMap;
+        this.healthCheck = healthCheck;
+        this.http2 = http2;
+        this.grpc = grpc;
     }
 
     @Override
@@ -91,4 +110,85 @@ public class ServiceDefinition implements Serializable {
         return Objects.hash(uniqueId);
     }
 
+    /**
+     * 主动健康检查配置
+     */
+    @Data
+    public static class HealthCheckConfig implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 4411830373349417283L;
+
+        /**
+         * 探测路径，使用 GET 请求，2xx 和 3xx 视为健康
+         */
+        private String path = "/health";
+
+        /**
+         * 探测间隔(毫秒)，实际间隔会加入随机抖动
+         */
+        private int interval = 5000;
+
+        /**
+         * 单次探测超时时间(毫秒)
+         */
+        private int timeout = 1000;
+
+        /**
+         * 连续失败多少次后标记为不健康
+         */
+        private int unhealthyThreshold = 2;
+
+        /**
+         * 连续成功多少次后恢复为健康
+         */
+        private int healthyThreshold = 2;
+    }
+
+    /**
+     * 下游 HTTP/2 配置
+     */
+    @Data
+    public static class Http2Config implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = -2671489367050937512L;
+
+        /**
+         * 每个实例最多建立的连接数，已有连接的并发流都用满时才建立新连接
+         */
+        private int maxConnections = 2;
+
+        /**
+         * 每个连接的最大并发流数，实际取该值与下游 SETTINGS_MAX_CONCURRENT_STREAMS 的较小值
+         */
+        private int maxConcurrentStreams = 100;
+
+        /**
+         * 单个流的超时时间(毫秒)，包括等待可用流的时间，不超过请求剩余的超时时间，0表示只使用请求的超时时间
+         */
+        private int streamTimeout = 0;
+    }
+
+    /**
+     * gRPC 服务配置
+     * 请求路径的最后一段为方法名，请求体为方法输入消息的 JSON 表示，响应为输出消息的 JSON 表示
+     */
+    @Data
+    public static class GrpcConfig implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 5310928476615052817L;
+
+        /**
+         * gRPC 服务全名：package.Service
+         */
+        private String service;
+
+        /**
+         * 服务的 FileDescriptorSet，Base64 编码，需要包含依赖的文件(protoc --include_imports --descriptor_set_out)
+         */
+        private String descriptorSet;
+    }
+
 }
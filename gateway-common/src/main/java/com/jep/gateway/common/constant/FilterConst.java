@@ -29,7 +29,18 @@ public interface FilterConst {
     String LOAD_BALANCE_KEY = "load_balance";
     String LOAD_BALANCE_STRATEGY_RANDOM = "Random";
     String LOAD_BALANCE_STRATEGY_ROUND_ROBIN = "RoundRobin";
+    //	历史名称，实际为平滑加权轮询，与 LOAD_BALANCE_STRATEGY_WEIGHTED_ROUND_ROBIN 相同，保留以兼容已有配置
     String LOAD_BALANCE_STRATEGY_WEIGHT_RANDOM = "WeightRandom";
+    String LOAD_BALANCE_STRATEGY_WEIGHTED_ROUND_ROBIN = "WeightedRoundRobin";
+    String LOAD_BALANCE_STRATEGY_LEAST_REQUEST = "LeastRequest";
+    String LOAD_BALANCE_STRATEGY_PEAK_EWMA = "PeakEwma";
+    //	基于别名表的加权随机，名称与历史的 WeightRandom 区分开
+    String LOAD_BALANCE_STRATEGY_WEIGHTED_RANDOM = "WeightedRandomAlias";
+    String LOAD_BALANCE_STRATEGY_RING_HASH = "RingHash";
+    String LOAD_BALANCE_STRATEGY_MAGLEV = "Maglev";
+    //	哈希负载均衡的哈希键：ip、userId、header:名称、cookie:名称、query:名称
+    String LOAD_BALANCE_HASH_KEY = "hash_key";
+    String LOAD_BALANCE_HASH_KEY_DEFAULT = "ip";
 
     /**
      * 路由过滤器
@@ -68,8 +79,13 @@ public interface FilterConst {
      */
     String GRAY_FILTER_ID = "gray_filter";
     String GRAY_FILTER_NAME = "gray_filter";
-    int GRAY_FILTER_ORDER = 0;
+    //	排在认证过滤器之后，灰度键可以使用认证解析出的 userId
+    int GRAY_FILTER_ORDER = 10;
+    //	灰度流量百分比，支持小数，如 {"gray_release": "5", "gray_key": "userId"}
     String GRAY_FILTER_KEY = "gray_release";
+    //	灰度分流的哈希键：ip、userId、header:名称、cookie:名称、query:名称
+    String GRAY_FILTER_HASH_KEY = "gray_key";
+    String GRAY_FILTER_HASH_KEY_DEFAULT = "userId";
 
     String PART_GRAY = "part_gray";
 
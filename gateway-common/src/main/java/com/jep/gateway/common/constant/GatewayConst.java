@@ -12,9 +12,24 @@ public interface GatewayConst {
 
     String PROTOCOL_KEY = "protocol";
 
+    /**
+     * 服务协议：dubbo 服务通过泛化调用转发
+     */
+    String PROTOCOL_DUBBO = "dubbo";
+
+    /**
+     * 服务协议：grpc 服务由网关把 JSON 转码为 protobuf 后通过 HTTP/2 调用
+     */
+    String PROTOCOL_GRPC = "grpc";
+
     int DEFAULT_WEIGHT = 2;
 
     String META_DATA_KEY = "meta";
 
     String BUFFER_TYPE_PARALLEL = "parallel";
+
+    /**
+     * 请求剩余超时时间(毫秒)的请求头，网关收到时只会缩短超时，转发下游时写入本次调用的剩余时间
+     */
+    String REQUEST_TIMEOUT_HEADER = "x-gateway-timeout";
 }
@@ -25,6 +25,7 @@ public enum ResponseCode {
 
     REQUEST_TIMEOUT(HttpResponseStatus.GATEWAY_TIMEOUT, 10007, "连接下游服务超时"),
     HYSTRIX_PROTECTION(HttpResponseStatus.INTERNAL_SERVER_ERROR, 10008, "熔断降级"),
+    REQUEST_ARGUMENT_ERROR(HttpResponseStatus.BAD_REQUEST, 10009, "请求体与接口参数类型不匹配"),
     HTTP_RESPONSE_ERROR(HttpResponseStatus.INTERNAL_SERVER_ERROR, 10030, "服务返回异常"),
 
     USERID_MISMATCH(HttpResponseStatus.BAD_REQUEST, 10001, "请求参数错误"),
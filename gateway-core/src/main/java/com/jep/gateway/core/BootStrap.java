@@ -12,6 +12,9 @@ import com.jep.gateway.config.ConfigCenter;
 import com.jep.gateway.config.RulesChangeListener;
 import com.jep.gateway.core.config.Config;
 import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.filter.loadbalance.ActiveHealthChecker;
+import com.jep.gateway.core.filter.loadbalance.InstanceSnapshotManager;
+import com.jep.gateway.core.helper.UpstreamHelper;
 import com.jep.gateway.register.RegisterCenter;
 import com.jep.gateway.register.RegisterCenterListener;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +25,9 @@ import java.util.ServiceLoader;
 
 /**
  * 启动
+ * <p>
+ * JDK 17 上需要添加 --add-opens java.base/java.lang=ALL-UNNAMED --add-opens java.base/java.math=ALL-UNNAMED，
+ * 否则 dubbo 协议的服务无法调用，见 {@link com.jep.gateway.core.upstream.DubboUpstreamClient}。
  *
  * @author enping.jep
  * @date 2025/1/27 18:57
@@ -116,6 +122,12 @@ public class BootStrap {
                 DynamicConfigManager manager = DynamicConfigManager.getInstance();
                 //将这次变更事件影响之后的服务实例再次添加到对应的服务实例集合
                 manager.addServiceInstance(serviceDefinition.getUniqueId(), serviceInstances);
+                //预先构建负载均衡使用的实例快照
+                InstanceSnapshotManager.getInstance().refresh(serviceDefinition.getUniqueId());
+                //按服务定义中的健康检查配置同步主动健康检查目标
+                ActiveHealthChecker.getInstance().onServiceChanged(serviceDefinition, serviceInstances);
+                //为新实例预热下游连接，关闭已下线实例的连接池
+                UpstreamHelper.getInstance().onServiceChanged(serviceDefinition, serviceInstances);
 
                 //修改发生对应的服务定义
                 manager.putServiceDefinition(serviceDefinition.getUniqueId(), serviceDefinition);
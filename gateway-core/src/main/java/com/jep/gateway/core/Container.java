@@ -1,11 +1,20 @@
 package com.jep.gateway.core;
 
+import com.jep.gateway.core.admin.AdminHttpServer;
 import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.filter.loadbalance.ActiveHealthChecker;
+import com.jep.gateway.core.filter.loadbalance.InstanceStatsManager;
+import com.jep.gateway.core.filter.loadbalance.Locality;
+import com.jep.gateway.core.filter.loadbalance.OutlierDetector;
+import com.jep.gateway.core.filter.loadbalance.PeakEwma;
+import com.jep.gateway.core.filter.loadbalance.SlowStart;
+import com.jep.gateway.core.jfr.GatewayEvents;
 import com.jep.gateway.core.netty.NettyHttpClient;
 import com.jep.gateway.core.netty.NettyHttpServer;
 import com.jep.gateway.core.netty.processor.DisruptorNettyCoreProcessor;
 import com.jep.gateway.core.netty.processor.NettyCoreProcessor;
 import com.jep.gateway.core.netty.processor.NettyProcessor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import static com.jep.gateway.common.constant.GatewayConst.BUFFER_TYPE_PARALLEL;
@@ -20,12 +29,17 @@ public class Container implements LifeCycle {
 
     private final Config config;
 
+    @Getter
     private NettyHttpServer nettyHttpServer;
 
+    @Getter
     private NettyHttpClient nettyHttpClient;
 
+    @Getter
     private NettyProcessor nettyProcessor;
 
+    private AdminHttpServer adminHttpServer;
+
     public Container(Config config) {
         this.config = config;
         init();
@@ -39,6 +53,16 @@ public class Container implements LifeCycle {
      */
     @Override
     public void init() {
+        // 初始化JFR事件开关与阈值
+        GatewayEvents.init(config);
+        // 初始化负载均衡延迟统计的衰减时间
+        PeakEwma.init(config);
+        // 初始化新实例慢启动的预热窗口
+        SlowStart.init(config);
+        // 初始化已下线实例运行时统计的保留时间
+        InstanceStatsManager.getInstance().init(config);
+        // 初始化同可用区优先路由
+        Locality.init(config);
         // 创建Netty核心处理器实例
         NettyCoreProcessor nettyCoreProcessor = new NettyCoreProcessor();
         // 根据配置中的缓冲类型决定使用哪种Netty处理器
@@ -53,6 +77,10 @@ public class Container implements LifeCycle {
         this.nettyHttpServer = new NettyHttpServer(config, nettyProcessor);
         //  nettyHttpServer、nettyHttpClient 共用相同的 work_threadGroup
         this.nettyHttpClient = new NettyHttpClient(config, nettyHttpServer.getEventLoopGroupWoker());
+        // 运维管理端口使用独立的线程，不与业务流量共用
+        if (config.isAdminEnabled()) {
+            this.adminHttpServer = new AdminHttpServer(config, this);
+        }
     }
 
     @Override
@@ -60,11 +88,21 @@ public class Container implements LifeCycle {
         nettyProcessor.start();
         nettyHttpServer.start();
         nettyHttpClient.start();
+        OutlierDetector.getInstance().start(config);
+        ActiveHealthChecker.getInstance().start(config);
+        if (adminHttpServer != null) {
+            adminHttpServer.start();
+        }
         log.info("api gateway started!");
     }
 
     @Override
     public void shutdown() {
+        OutlierDetector.getInstance().shutdown();
+        ActiveHealthChecker.getInstance().shutdown();
+        if (adminHttpServer != null) {
+            adminHttpServer.shutdown();
+        }
         nettyProcessor.shutDown();
         nettyHttpServer.shutdown();
         nettyHttpClient.shutdown();
@@ -0,0 +1,84 @@
+package com.jep.gateway.core.admin;
+
+import com.jep.gateway.core.Container;
+import com.jep.gateway.core.LifeCycle;
+import com.jep.gateway.core.config.Config;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 运维管理端口，独立于代理端口监听
+ * 使用单独的单线程 EventLoop，避免运维请求占用处理业务流量的 worker 线程
+ *
+ * @author enping.jep
+ * @date 2026/10/19 15:30
+ **/
+@Slf4j
+public class AdminHttpServer implements LifeCycle {
+
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024;
+
+    private final Config config;
+
+    private final Container container;
+
+    private ServerBootstrap serverBootstrap;
+
+    private EventLoopGroup eventLoopGroup;
+
+    public AdminHttpServer(Config config, Container container) {
+        this.config = config;
+        this.container = container;
+        init();
+    }
+
+    @Override
+    public void init() {
+        this.serverBootstrap = new ServerBootstrap();
+        this.eventLoopGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("gateway-admin"));
+    }
+
+    @Override
+    public void start() {
+        AdminHttpServerHandler handler = new AdminHttpServerHandler(config, container);
+        this.serverBootstrap
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .localAddress(new InetSocketAddress(config.getAdminHost(), config.getAdminPort()))
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(MAX_CONTENT_LENGTH),
+                                handler
+                        );
+                    }
+                });
+        try {
+            this.serverBootstrap.bind().sync();
+            log.info("admin server startup on {}:{}", config.getAdminHost(), config.getAdminPort());
+        } catch (Exception e) {
+            throw new RuntimeException("admin server startup failed", e);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.jep.gateway.core.admin;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.util.JSONUtil;
+import com.jep.gateway.core.Container;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.disruptor.ParallelQueueHandler;
+import com.jep.gateway.core.filter.FilterChainFactoryImpl;
+import com.jep.gateway.core.filter.loadbalance.InstanceStats;
+import com.jep.gateway.core.filter.loadbalance.InstanceStatsManager;
+import com.jep.gateway.core.netty.StatsChannelPool;
+import com.jep.gateway.core.netty.processor.DisruptorNettyCoreProcessor;
+import com.jep.gateway.core.netty.processor.NettyProcessor;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * 运维管理接口处理器
+ * <p>
+ * GET  /admin/stats        所有统计汇总
+ * GET  /admin/queue        Disruptor RingBuffer 占用与消费者滞后
+ * GET  /admin/filter-chain 过滤器链缓存命中统计
+ * GET  /admin/upstream     每个下游地址的连接池使用情况
+ * GET  /admin/config       动态配置版本号
+ * GET  /admin/loadbalance  每个服务实例的负载均衡计数
+ * GET  /admin/event-loops  EventLoop 待执行任务数
+ * POST /admin/tuning       运行时调整 waitStrategy、accessLogSampleRate、shedThreshold
+ *
+ * @author enping.jep
+ * @date 2026/10/19 15:35
+ **/
+@Slf4j
+@ChannelHandler.Sharable
+public class AdminHttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final String WAIT_STRATEGY = "waitStrategy";
+
+    private static final String ACCESS_LOG_SAMPLE_RATE = "accessLogSampleRate";
+
+    private static final String SHED_THRESHOLD = "shedThreshold";
+
+    private static final Set<String> WAIT_STRATEGIES = new HashSet<>(Arrays.asList("blocking", "busySpin", "yielding", "sleeping"));
+
+    private final Config config;
+
+    private final Container container;
+
+    public AdminHttpServerHandler(Config config, Container container) {
+        this.config = config;
+        this.container = container;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        String path = decoder.path();
+        Object body;
+        HttpResponseStatus status = HttpResponseStatus.OK;
+        try {
+            if (HttpMethod.POST.equals(request.method()) && "/admin/tuning".equals(path)) {
+                body = tuning(decoder.parameters());
+            } else if (!HttpMethod.GET.equals(request.method())) {
+                status = HttpResponseStatus.METHOD_NOT_ALLOWED;
+                body = error("method not allowed");
+            } else {
+                switch (path) {
+                    case "/admin/stats":
+                        body = stats();
+                        break;
+                    case "/admin/queue":
+                        body = queueStats();
+                        break;
+                    case "/admin/filter-chain":
+                        body = filterChainStats();
+                        break;
+                    case "/admin/upstream":
+                        body = upstreamStats();
+                        break;
+                    case "/admin/config":
+                        body = configStats();
+                        break;
+                    case "/admin/loadbalance":
+                        body = loadBalanceStats();
+                        break;
+                    case "/admin/event-loops":
+                        body = eventLoopStats();
+                        break;
+                    default:
+                        status = HttpResponseStatus.NOT_FOUND;
+                        body = error("no such admin endpoint: " + path);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            status = HttpResponseStatus.BAD_REQUEST;
+            body = error(e.getMessage());
+        } catch (Exception e) {
+            log.error("admin request failed, uri: {}", request.uri(), e);
+            status = HttpResponseStatus.INTERNAL_SERVER_ERROR;
+            body = error(String.valueOf(e.getMessage()));
+        }
+        writeJson(ctx, request, status, body);
+    }
+
+    private Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queue", queueStats());
+        result.put("filterChain", filterChainStats());
+        result.put("upstream", upstreamStats());
+        result.put("config", configStats());
+        result.put("loadBalance", loadBalanceStats());
+        result.put("eventLoops", eventLoopStats());
+        result.put("tuning", tuningStats());
+        return result;
+    }
+
+    private Map<String, Object> queueStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bufferType", config.getBufferType());
+        NettyProcessor nettyProcessor = container.getNettyProcessor();
+        if (!(nettyProcessor instanceof DisruptorNettyCoreProcessor disruptorProcessor)) {
+            return result;
+        }
+        ParallelQueueHandler<?> queueHandler = disruptorProcessor.getParallelQueueHandler();
+        result.put("waitStrategy", config.getWaitStrategyName());
+        result.put("bufferSize", queueHandler.getBufferSize());
+        result.put("occupancy", queueHandler.getOccupancy());
+        result.put("cursor", queueHandler.getCursor());
+        result.put("consumerLags", queueHandler.getConsumerLags());
+        result.put("shedCount", disruptorProcessor.getShedCount());
+        return result;
+    }
+
+    private Map<String, Object> filterChainStats() {
+        FilterChainFactoryImpl factory = FilterChainFactoryImpl.getInstance();
+        CacheStats cacheStats = factory.getChainCacheStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", factory.getChainCacheSize());
+        result.put("hitCount", cacheStats.hitCount());
+        result.put("missCount", cacheStats.missCount());
+        result.put("hitRate", cacheStats.hitRate());
+        result.put("evictionCount", cacheStats.evictionCount());
+        return result;
+    }
+
+    private Map<String, Object> upstreamStats() {
+        Map<String, Object> result = new TreeMap<>();
+        StatsChannelPool channelPool = container.getNettyHttpClient().getChannelPool();
+        if (channelPool == null) {
+            return result;
+        }
+        channelPool.getHostStats().forEach((host, hostStats) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("open", hostStats.getOpen().sum());
+            item.put("active", hostStats.getActive());
+            item.put("idle", hostStats.getIdle().sum());
+            item.put("hits", hostStats.getHits().sum());
+            item.put("misses", hostStats.getMisses().sum());
+            item.put("offered", hostStats.getOffered().sum());
+            result.put(host, item);
+        });
+        return result;
+    }
+
+    private Map<String, Object> configStats() {
+        DynamicConfigManager manager = DynamicConfigManager.getInstance();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ruleVersion", manager.getRuleVersion());
+        result.put("serviceDefinitionVersion", manager.getServiceDefinitionVersion());
+        result.put("serviceInstanceVersions", manager.getServiceInstanceVersions());
+        return result;
+    }
+
+    private Map<String, Object> loadBalanceStats() {
+        Map<String, Object> result = new TreeMap<>();
+        for (InstanceStats stats : InstanceStatsManager.getInstance().getAllStats().values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("chosen", stats.getChosen().sum());
+            item.put("inFlight", stats.getInFlight().get());
+            item.put("ewmaCostMs", stats.getLatency().getCost() / 1_000_000);
+            item.put("consecutiveFailures", stats.getConsecutiveFailures().get());
+            item.put("ejected", stats.isEjected());
+            item.put("ejectionCount", stats.getEjectionCount());
+            item.put("unhealthy", stats.isUnhealthy());
+            result.put(stats.getServiceInstanceId(), item);
+        }
+        return result;
+    }
+
+    private Map<String, Object> eventLoopStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("boss", pendingTasks(container.getNettyHttpServer().getEventLoopGroupBoss()));
+        result.put("worker", pendingTasks(container.getNettyHttpServer().getEventLoopGroupWoker()));
+        return result;
+    }
+
+    private List<Integer> pendingTasks(EventLoopGroup group) {
+        List<Integer> result = new ArrayList<>();
+        if (group == null) {
+            return result;
+        }
+        for (EventExecutor executor : group) {
+            if (executor instanceof SingleThreadEventExecutor singleThreadEventExecutor) {
+                result.add(singleThreadEventExecutor.pendingTasks());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> tuningStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(WAIT_STRATEGY, config.getWaitStrategyName());
+        result.put(ACCESS_LOG_SAMPLE_RATE, config.getAccessLogSampleRate());
+        result.put(SHED_THRESHOLD, config.getShedThreshold());
+        return result;
+    }
+
+    /**
+     * 运行时参数调整，先全部校验再统一生效
+     */
+    private Map<String, Object> tuning(Map<String, List<String>> parameters) {
+        String waitStrategy = firstParameter(parameters, WAIT_STRATEGY);
+        if (waitStrategy != null && !WAIT_STRATEGIES.contains(waitStrategy)) {
+            throw new IllegalArgumentException("unknown waitStrategy: " + waitStrategy);
+        }
+        Double sampleRate = parseRatio(parameters, ACCESS_LOG_SAMPLE_RATE);
+        Double shedThreshold = parseRatio(parameters, SHED_THRESHOLD);
+
+        if (waitStrategy != null && !waitStrategy.equals(config.getWaitStrategyName())) {
+            if (!(container.getNettyProcessor() instanceof DisruptorNettyCoreProcessor disruptorProcessor)) {
+                throw new IllegalArgumentException("waitStrategy only applies to bufferType parallel");
+            }
+            disruptorProcessor.changeWaitStrategy(waitStrategy);
+        }
+        if (sampleRate != null) {
+            config.setAccessLogSampleRate(sampleRate);
+        }
+        if (shedThreshold != null) {
+            config.setShedThreshold(shedThreshold);
+        }
+        log.info("admin tuning applied: {}", parameters);
+        return tuningStats();
+    }
+
+    private Double parseRatio(Map<String, List<String>> parameters, String name) {
+        String value = firstParameter(parameters, name);
+        if (value == null) {
+            return null;
+        }
+        double ratio;
+        try {
+            ratio = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return ratio;
+    }
+
+    private String firstParameter(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private Map<String, Object> error(String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(JSONUtil.MESSAGE, message);
+        return result;
+    }
+
+    private void writeJson(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status, Object body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                Unpooled.copiedBuffer(JSONUtil.toJSONString(body), CharsetUtil.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON + ";charset=utf-8");
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+        if (HttpUtil.isKeepAlive(request)) {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
@@ -53,13 +53,125 @@ public class Config {
     //	客户端空闲连接超时时间, 默认60秒
     private int httpPooledConnectionIdleTimeout = 60 * 1000;
 
+    //	下游客户端实现：asynchttpclient 或 netty(按 EventLoop 划分连接池的原生 Netty 客户端)
+    private String upstreamClient = "asynchttpclient";
+
+    //	注册中心发现新实例时为每个实例预先建立的空闲连接数，0 表示不预热
+    private int upstreamWarmupConnections = 2;
+
+    //	下游响应体超过该字节数或长度未知(chunked)时流式转发给客户端，不在网关聚合；只对原生 Netty 客户端生效，0 表示不流式转发
+    private int upstreamStreamingThreshold = 256 * 1024;
+
+    //	流式转发时两个响应体分片之间的最长等待时间(毫秒)，超时后关闭客户端和下游连接；客户端写缓冲已满暂停读取的时间不计入，0 表示不限制
+    private int upstreamStreamingReadTimeout = 30000;
+
     private String bufferType = "parallel";//开启disruptor模式
 
     private int bufferSize = 1024 * 16;
 
     private int processThread = Runtime.getRuntime().availableProcessors();
 
-    private String waitStrategy = "blocking";
+    private volatile String waitStrategy = "blocking";
+
+    //admin
+
+    //	是否开启运维管理端口
+    private boolean adminEnabled = true;
+
+    //	运维管理端口监听地址，默认只允许本机访问
+    private String adminHost = "127.0.0.1";
+
+    //	运维管理端口，与代理端口分开
+    private int adminPort = 18001;
+
+    //	访问日志采样率，取值(0,1]，运行时可通过运维接口调整
+    private volatile double accessLogSampleRate = 1.0;
+
+    //	过载保护阈值：RingBuffer占用比例达到该值时直接拒绝新请求，0表示不开启，运行时可调整
+    private volatile double shedThreshold = 0;
+
+    //loadbalance
+
+    //	Peak EWMA 负载均衡的延迟衰减时间(毫秒)
+    private long peakEwmaDecayTime = 10 * 1000;
+
+    //	是否开启被动离群检测
+    private boolean outlierDetectionEnabled = true;
+
+    //	离群检测周期(毫秒)
+    private long outlierInterval = 10 * 1000;
+
+    //	连续失败(5xx、连接失败、超时)多少次后摘除实例
+    private int outlierConsecutiveFailures = 5;
+
+    //	首次摘除时长(毫秒)，之后每次摘除翻倍
+    private long outlierBaseEjectionTime = 30 * 1000;
+
+    //	单次摘除时长上限(毫秒)
+    private long outlierMaxEjectionTime = 300 * 1000;
+
+    //	同一服务最多摘除的实例比例(百分比)
+    private int outlierMaxEjectionPercent = 10;
+
+    //	成功率检测至少需要的实例数
+    private int outlierSuccessRateMinimumHosts = 5;
+
+    //	成功率检测时实例在一个周期内至少需要的请求数
+    private long outlierSuccessRateRequestVolume = 100;
+
+    //	成功率低于 均值 - 系数 × 标准差 时摘除
+    private double outlierSuccessRateStdevFactor = 1.9;
+
+    //	新实例慢启动预热窗口(毫秒)，0表示不预热
+    private long slowStartWindow = 30 * 1000;
+
+    //	预热开始时的权重比例(百分比)
+    private int slowStartMinWeightPercent = 10;
+
+    //	实例从所有快照中消失后保留运行时统计的时间(毫秒)，超过后清除，期间重新上线的实例沿用原统计
+    private long instanceStatsRetention = 60 * 1000;
+
+    //	网关所在可用区，与实例标签中的 zone 对应，为空时不做同可用区优先路由
+    private String zone;
+
+    //	同可用区健康实例比例(百分比)低于该值时溢出到其他可用区
+    private int zoneSpilloverThreshold = 70;
+
+    //	是否开启主动健康检查，具体探测路径和间隔在服务定义中配置
+    private boolean healthCheckEnabled = true;
+
+    //	主动健康检查使用的独立 EventLoop 线程数
+    private int healthCheckThreads = 1;
+
+    //	主动健康检查建立连接的超时时间(毫秒)
+    private int healthCheckConnectTimeout = 1000;
+
+    //	重试预算：每个服务的重试请求最多占原始请求的百分比
+    private double retryBudgetPercent = 20;
+
+    //	重试预算允许突发的重试请求数
+    private int retryBudgetMaxTokens = 10;
+
+    //jfr
+
+    //	是否发送网关JFR事件，只有开启JFR录制时事件才会真正落盘
+    private boolean jfrEnabled = true;
+
+    //	Disruptor排队等待耗时阈值(毫秒)，低于阈值的事件不提交
+    private long jfrRingWaitThreshold = 0;
+
+    //	单个过滤器执行耗时阈值(毫秒)
+    private long jfrFilterThreshold = 0;
+
+    //	下游调用耗时阈值(毫秒)
+    private long jfrUpstreamThreshold = 0;
+
+    //	请求整体耗时阈值(毫秒)，作用于响应写回事件
+    private long jfrResponseThreshold = 0;
+
+    public String getWaitStrategyName() {
+        return waitStrategy;
+    }
 
     public WaitStrategy getWaitStrategy() {
         switch (waitStrategy) {
@@ -1,6 +1,7 @@
 package com.jep.gateway.core.context;
 
 import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceInstance;
 import com.jep.gateway.common.util.AssertUtil;
 import com.jep.gateway.core.request.GatewayRequest;
 import com.jep.gateway.core.response.GatewayResponse;
@@ -10,6 +11,10 @@ import io.netty.util.ReferenceCountUtil;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author enping.jep
  * @date 2025/1/27 21:53
@@ -32,6 +37,11 @@ public class GatewayContext extends BaseContext {
      */
     private Rule rule;
 
+    /**
+     * 负载均衡选中的服务实例，重试时会重新选择
+     */
+    private ServiceInstance serviceInstance;
+
     /**
      * 灰度发布
      */
@@ -42,11 +52,31 @@ public class GatewayContext extends BaseContext {
      */
     private int currentRetryTimes;
 
+    /**
+     * 已经请求失败的实例ID，重试时避开，只在发生重试或对冲时创建
+     */
+    private Set<String> triedInstances;
+
     /**
      * 记录应用程序中的方法调用或服务请求所花费的时间
      */
     private Timer.Sample timerSample;
 
+    /**
+     * 本次下游调用发出的时间(纳秒)，用于JFR事件和实例延迟统计
+     */
+    private long upstreamStartTime;
+
+    /**
+     * 请求截止时间(纳秒)，为0时没有截止时间
+     */
+    private long deadline;
+
+    /**
+     * 本次下游调用是否复用了同时进行的相同请求的响应，复用时没有占用所选实例，不更新实例统计
+     */
+    private boolean coalesced;
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -107,6 +137,26 @@ public class GatewayContext extends BaseContext {
         }
     }
 
+    /**
+     * 记录请求失败的实例
+     */
+    public void addTriedInstance(String serviceInstanceId) {
+        if (triedInstances == null) {
+            triedInstances = new HashSet<>();
+        }
+        triedInstances.add(serviceInstanceId);
+    }
+
+    /**
+     * 距离请求截止时间的剩余毫秒数，已经超时返回0，没有截止时间时返回 defaultTimeout
+     */
+    public long getRemainingTimeout(long defaultTimeout) {
+        if (deadline == 0) {
+            return defaultTimeout;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
     public Rule.FilterConfig getFilterConfig(String filterId) {
         return rule.getFilterConfigById(filterId);
     }
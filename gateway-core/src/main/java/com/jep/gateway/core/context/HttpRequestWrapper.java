@@ -12,4 +12,14 @@ import io.netty.handler.codec.http.FullHttpRequest;
 public class HttpRequestWrapper {
     private FullHttpRequest request;
     private ChannelHandlerContext ctx;
+
+    /**
+     * 发布到RingBuffer的时间(纳秒)，未采集JFR事件时为0
+     */
+    private long enqueueTime;
+
+    /**
+     * 网关收到请求的时间(纳秒)，请求截止时间从这里开始计算
+     */
+    private long receiveTime;
 }
@@ -18,8 +18,8 @@ import java.util.concurrent.Executors;
  **/
 public class ParallelQueueHandler<E> implements ParallelQueue<E> {
 
-    // 环形缓冲区，用于存储事件
-    private RingBuffer<Holder> ringBuffer;
+    // 环形缓冲区，用于存储事件；关闭时置空，生产者无锁读取
+    private volatile RingBuffer<Holder> ringBuffer;
 
     // 事件监听器，用于处理事件
     private EventListener<E> eventListener;
@@ -33,6 +33,9 @@ public class ParallelQueueHandler<E> implements ParallelQueue<E> {
     // 事件翻译器，用于将事件数据翻译到环形缓冲区的事件中
     private EventTranslatorOneArg<Holder, E> eventTranslator;
 
+    // 环形缓冲区容量
+    private final int bufferSize;
+
     /**
      * 构造函数，初始化 ParallelQueueHandler。
      *
@@ -43,6 +46,8 @@ public class ParallelQueueHandler<E> implements ParallelQueue<E> {
         this.executorService = Executors.newFixedThreadPool(builder.threads,
                 new ThreadFactoryBuilder().setNameFormat("ParallelQueueHandler" + builder.namePrefix + "-pool-%d").build());
 
+        this.bufferSize = builder.bufferSize;
+
         // 设置事件监听器
         this.eventListener = builder.listener;
         this.eventTranslator = new HolderEventTranslator();
@@ -84,6 +89,7 @@ public class ParallelQueueHandler<E> implements ParallelQueue<E> {
         // 如果环形缓冲区为空，则处理已关闭异常
         if (holderRing == null) {
             process(this.eventListener, new IllegalStateException("ParallelQueueHandler is close"), event);
+            return;
         }
         try {
             // 尝试将事件发布到环形缓冲区
@@ -104,6 +110,7 @@ public class ParallelQueueHandler<E> implements ParallelQueue<E> {
         final RingBuffer<Holder> holderRing = ringBuffer;
         if (holderRing == null) {
             process(this.eventListener, new IllegalStateException("ParallelQueueHandler is close"), events);
+            return;
         }
         try {
             ringBuffer.publishEvents(this.eventTranslator, events);
@@ -186,6 +193,49 @@ public class ParallelQueueHandler<E> implements ParallelQueue<E> {
         return ringBuffer == null;
     }
 
+    /**
+     * 环形缓冲区容量
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 已发布但尚未被消费完成的槽位数量
+     */
+    public long getOccupancy() {
+        final RingBuffer<Holder> holderRing = ringBuffer;
+        if (holderRing == null) {
+            return 0;
+        }
+        return holderRing.getBufferSize() - holderRing.remainingCapacity();
+    }
+
+    /**
+     * 生产者当前发布到的序号
+     */
+    public long getCursor() {
+        final RingBuffer<Holder> holderRing = ringBuffer;
+        return holderRing == null ? -1 : holderRing.getCursor();
+    }
+
+    /**
+     * 每个消费者序号落后于生产者游标的距离
+     */
+    public long[] getConsumerLags() {
+        final RingBuffer<Holder> holderRing = ringBuffer;
+        Sequence[] sequences = workerPool.getWorkerSequences();
+        long[] lags = new long[sequences.length];
+        if (holderRing == null) {
+            return lags;
+        }
+        long cursor = holderRing.getCursor();
+        for (int i = 0; i < sequences.length; i++) {
+            lags[i] = Math.max(0, cursor - sequences[i].get());
+        }
+        return lags;
+    }
+
     /**
      * 处理事件监听器的异常。
      *
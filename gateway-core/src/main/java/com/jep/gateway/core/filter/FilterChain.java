@@ -2,6 +2,7 @@ package com.jep.gateway.core.filter;
 
 import com.jep.gateway.core.context.ContextStatus;
 import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.jfr.GatewayEvents;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
@@ -40,7 +41,9 @@ public class FilterChain {
         }
         try {
             for (Filter fl : filters) {
+                long start = GatewayEvents.startTime();
                 fl.doFilter(ctx);
+                GatewayEvents.filterExecuted(ctx, fl, start);
                 if (ctx.getContextStatus() == ContextStatus.Terminated) {
                     break;
                 }
@@ -2,6 +2,7 @@ package com.jep.gateway.core.filter;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.jep.gateway.common.config.Rule;
 import com.jep.gateway.common.constant.FilterConst;
 import com.jep.gateway.core.context.GatewayContext;
@@ -122,6 +123,20 @@ public class FilterChainFactoryImpl implements FilterChainFactory {
         return chain;
     }
 
+    /**
+     * 过滤器链缓存命中统计
+     */
+    public CacheStats getChainCacheStats() {
+        return chainCache.stats();
+    }
+
+    /**
+     * 过滤器链缓存当前条目数
+     */
+    public long getChainCacheSize() {
+        return chainCache.estimatedSize();
+    }
+
     @Override
     public Filter getFilterInfo(String filterId) {
         return processorFilterIdMap.get(filterId);
@@ -0,0 +1,114 @@
+package com.jep.gateway.core.filter.gray;
+
+import com.alibaba.fastjson.JSON;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.filter.Filter;
+import com.jep.gateway.core.filter.annotation.FilterAspect;
+import com.jep.gateway.core.filter.loadbalance.HashKeyExtractor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jep.gateway.common.constant.FilterConst.*;
+
+/**
+ * 灰度发布
+ * 按灰度键(默认 userId)的哈希值对 10000 取模，落在灰度百分比内的请求标记为灰度请求，
+ * 同一个键总是得到相同的结果；不含灰度键的请求走稳定实例。
+ * 负载均衡按标记从实例快照中预先划分好的灰度/稳定子快照中选择，灰度路由与普通路由开销相同。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 23:45
+ **/
+@Slf4j
+@FilterAspect(id = GRAY_FILTER_ID,
+        name = GRAY_FILTER_NAME,
+        order = GRAY_FILTER_ORDER)
+public class GrayFilter implements Filter {
+
+    /**
+     * 灰度百分比的精度：万分之一
+     */
+    private static final int BUCKETS = 10000;
+
+    /**
+     * 规则ID——解析后的灰度配置，规则的过滤器配置变化后重新解析
+     */
+    private final ConcurrentHashMap<String, GrayConfig> configMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void doFilter(GatewayContext ctx) throws Exception {
+        Rule rule = ctx.getRule();
+        if (rule == null || ctx.getRequest() == null) {
+            return;
+        }
+        GrayConfig config = getGrayConfig(rule);
+        if (config == null || config.buckets == 0) {
+            return;
+        }
+        long hash = config.keyExtractor.hash(ctx.getRequest());
+        if (hash == HashKeyExtractor.NO_KEY) {
+            return;
+        }
+        ctx.setGray(Long.remainderUnsigned(hash, BUCKETS) < config.buckets);
+    }
+
+    private GrayConfig getGrayConfig(Rule rule) {
+        for (Rule.FilterConfig filterConfig : rule.getFilterConfigs()) {
+            if (filterConfig == null || !GRAY_FILTER_ID.equals(filterConfig.getId())) {
+                continue;
+            }
+            String source = filterConfig.getConfig();
+            GrayConfig config = configMap.get(rule.getId());
+            if (config == null || config.source != source) {
+                config = parseGrayConfig(source);
+                configMap.put(rule.getId(), config);
+            }
+            return config;
+        }
+        return null;
+    }
+
+    /**
+     * 解析灰度配置，百分比非法时不做灰度
+     */
+    private GrayConfig parseGrayConfig(String source) {
+        String percentage = null;
+        String hashKey = null;
+        if (StringUtils.isNotEmpty(source)) {
+            Map<String, String> map = JSON.parseObject(source, Map.class);
+            percentage = map.get(FilterConst.GRAY_FILTER_KEY);
+            hashKey = map.get(FilterConst.GRAY_FILTER_HASH_KEY);
+        }
+        int buckets = 0;
+        if (StringUtils.isNotBlank(percentage)) {
+            try {
+                double value = Double.parseDouble(percentage.trim());
+                buckets = (int) Math.round(Math.min(100, Math.max(0, value)) * BUCKETS / 100);
+            } catch (NumberFormatException e) {
+                log.warn("invalid gray release percentage: {}", percentage);
+            }
+        }
+        return new GrayConfig(source, buckets,
+                HashKeyExtractor.parse(StringUtils.defaultIfEmpty(hashKey, FilterConst.GRAY_FILTER_HASH_KEY_DEFAULT)));
+    }
+
+    private static final class GrayConfig {
+
+        private final String source;
+
+        private final int buckets;
+
+        private final HashKeyExtractor keyExtractor;
+
+        GrayConfig(String source, int buckets, HashKeyExtractor keyExtractor) {
+            this.source = source;
+            this.buckets = buckets;
+            this.keyExtractor = keyExtractor;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.config.Config;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主动健康检查
+ * 按服务定义中的健康检查配置，定时向每个服务实例发送 HTTP GET 探测请求，连续失败/成功达到阈值后标记实例为不健康/健康，
+ * 实例健康状态变化时递增可用状态版本号，所有负载均衡策略通过实例快照上的可用位图过滤不健康实例。
+ * <p>
+ * 所有探测运行在独立的小 EventLoopGroup 上，每个实例只是 EventLoop 上的一个定时任务，不占用线程；
+ * 每个实例使用一个连接池复用长连接；首次探测时间在一个间隔内随机分布，之后每次间隔加入随机抖动，避免大量实例同时探测。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 22:50
+ **/
+@Slf4j
+public class ActiveHealthChecker {
+
+    private static final AttributeKey<Promise<Boolean>> PROBE_RESULT = AttributeKey.valueOf("gatewayHealthCheckResult");
+
+    /**
+     * 探测间隔的随机抖动比例
+     */
+    private static final double JITTER = 0.1;
+
+    private static final int MAX_RESPONSE_LENGTH = 64 * 1024;
+
+    private static class SingletonHolder {
+        private static final ActiveHealthChecker INSTANCE = new ActiveHealthChecker();
+    }
+
+    public static ActiveHealthChecker getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 服务ID —> (服务实例ID —> 探测目标)
+     */
+    private final ConcurrentHashMap<String, Map<String, Target>> targetMap = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+
+    private EventLoopGroup eventLoopGroup;
+
+    private AbstractChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap;
+
+    private ActiveHealthChecker() {
+    }
+
+    public synchronized void start(Config config) {
+        if (!config.isHealthCheckEnabled() || eventLoopGroup != null) {
+            return;
+        }
+        eventLoopGroup = new NioEventLoopGroup(config.getHealthCheckThreads(), new DefaultThreadFactory("gateway-health-check", true));
+        Bootstrap bootstrap = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getHealthCheckConnectTimeout())
+                .option(ChannelOption.TCP_NODELAY, true);
+        poolMap = new AbstractChannelPoolMap<>() {
+            @Override
+            protected SimpleChannelPool newPool(InetSocketAddress address) {
+                return new SimpleChannelPool(bootstrap.clone().remoteAddress(address), new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec());
+                        ch.pipeline().addLast(new HttpObjectAggregator(MAX_RESPONSE_LENGTH));
+                        ch.pipeline().addLast(new ProbeResponseHandler());
+                    }
+                });
+            }
+        };
+        enabled = true;
+    }
+
+    public synchronized void shutdown() {
+        if (eventLoopGroup == null) {
+            return;
+        }
+        enabled = false;
+        targetMap.values().forEach(targets -> targets.values().forEach(Target::cancel));
+        targetMap.clear();
+        poolMap.close();
+        eventLoopGroup.shutdownGracefully();
+        eventLoopGroup = null;
+    }
+
+    /**
+     * 注册中心推送服务实例变更：为新实例启动探测，停止已下线实例和配置已变化实例的探测
+     */
+    public synchronized void onServiceChanged(ServiceDefinition serviceDefinition, List<ServiceInstance> serviceInstances) {
+        if (!enabled) {
+            return;
+        }
+        String uniqueId = serviceDefinition.getUniqueId();
+        ServiceDefinition.HealthCheckConfig healthCheck = serviceDefinition.getHealthCheck();
+        Map<String, Target> previous = targetMap.getOrDefault(uniqueId, Map.of());
+        Map<String, Target> current = new HashMap<>();
+        if (healthCheck != null && serviceInstances != null) {
+            for (ServiceInstance instance : serviceInstances) {
+                String instanceId = instance.getServiceInstanceId();
+                Target target = previous.get(instanceId);
+                if (target == null || !target.healthCheck.equals(healthCheck)) {
+                    target = new Target(instance, healthCheck, eventLoopGroup.next());
+                    // 首次探测在一个间隔内随机分布
+                    target.schedule(ThreadLocalRandom.current().nextLong(healthCheck.getInterval() + 1L));
+                }
+                current.put(instanceId, target);
+            }
+        }
+        boolean changed = false;
+        for (Map.Entry<String, Target> entry : previous.entrySet()) {
+            Target target = entry.getValue();
+            if (current.get(entry.getKey()) != target) {
+                target.cancel();
+                changed |= target.resetHealth();
+                if (!current.containsKey(entry.getKey())) {
+                    poolMap.remove(target.address);
+                }
+            }
+        }
+        if (current.isEmpty()) {
+            targetMap.remove(uniqueId);
+        } else {
+            targetMap.put(uniqueId, current);
+        }
+        if (changed) {
+            InstanceStatsManager.getInstance().availabilityChanged();
+        }
+    }
+
+    /**
+     * 正在探测的实例数
+     */
+    public int getTargetCount() {
+        int count = 0;
+        for (Map<String, Target> targets : targetMap.values()) {
+            count += targets.size();
+        }
+        return count;
+    }
+
+    /**
+     * 单个实例的探测目标，计数只在绑定的 EventLoop 上修改
+     */
+    private final class Target {
+
+        private final ServiceInstance instance;
+
+        private final InstanceStats stats;
+
+        private final ServiceDefinition.HealthCheckConfig healthCheck;
+
+        private final InetSocketAddress address;
+
+        private final EventLoop eventLoop;
+
+        private volatile boolean cancelled;
+
+        private volatile ScheduledFuture<?> next;
+
+        private int successes;
+
+        private int failures;
+
+        Target(ServiceInstance instance, ServiceDefinition.HealthCheckConfig healthCheck, EventLoop eventLoop) {
+            this.instance = instance;
+            this.stats = InstanceStatsManager.getInstance().getStats(instance.getServiceInstanceId());
+            this.healthCheck = healthCheck;
+            this.address = InetSocketAddress.createUnresolved(instance.getIp(), instance.getPort());
+            this.eventLoop = eventLoop;
+        }
+
+        void schedule(long delayMillis) {
+            if (!cancelled) {
+                next = eventLoop.schedule(this::probe, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduled = next;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        /**
+         * 停止探测时恢复为健康，避免残留状态影响之后重新上线的同一实例
+         */
+        boolean resetHealth() {
+            if (stats.isUnhealthy()) {
+                stats.setUnhealthy(false);
+                return true;
+            }
+            return false;
+        }
+
+        void probe() {
+            if (cancelled) {
+                return;
+            }
+            Promise<Boolean> result = eventLoop.newPromise();
+            result.addListener((Future<Boolean> future) -> onResult(future.isSuccess() && future.getNow()));
+            SimpleChannelPool pool = poolMap.get(address);
+            pool.acquire().addListener((Future<Channel> future) -> {
+                if (!future.isSuccess()) {
+                    result.trySuccess(false);
+                    return;
+                }
+                Channel channel = future.getNow();
+                channel.attr(PROBE_RESULT).set(result);
+                ScheduledFuture<?> timeout = channel.eventLoop().schedule(() -> {
+                    // 超时的连接直接关闭，不再归还连接池
+                    if (result.trySuccess(false)) {
+                        channel.close();
+                    }
+                }, healthCheck.getTimeout(), TimeUnit.MILLISECONDS);
+                result.addListener(done -> {
+                    timeout.cancel(false);
+                    if (channel.isActive() && channel.attr(PROBE_RESULT).compareAndSet(result, null)) {
+                        pool.release(channel);
+                    }
+                });
+                FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, healthCheck.getPath(), Unpooled.EMPTY_BUFFER);
+                request.headers().set(HttpHeaderNames.HOST, instance.getIp() + ":" + instance.getPort());
+                request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+                channel.writeAndFlush(request).addListener(write -> {
+                    if (!write.isSuccess() && result.trySuccess(false)) {
+                        channel.close();
+                    }
+                });
+            });
+        }
+
+        private void onResult(boolean healthy) {
+            boolean changed = false;
+            if (healthy) {
+                failures = 0;
+                if (++successes >= healthCheck.getHealthyThreshold() && stats.isUnhealthy()) {
+                    stats.setUnhealthy(false);
+                    changed = true;
+                    log.info("instance {} passed health check", instance.getServiceInstanceId());
+                }
+            } else {
+                successes = 0;
+                if (++failures >= healthCheck.getUnhealthyThreshold() && !stats.isUnhealthy() && !cancelled) {
+                    stats.setUnhealthy(true);
+                    changed = true;
+                    log.warn("instance {} failed health check {} times", instance.getServiceInstanceId(), failures);
+                }
+            }
+            if (changed) {
+                InstanceStatsManager.getInstance().availabilityChanged();
+            }
+            long interval = healthCheck.getInterval();
+            long jitter = (long) (interval * JITTER);
+            schedule(interval - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1));
+        }
+    }
+
+    /**
+     * 探测响应处理：2xx 和 3xx 视为健康，服务端不保持连接时关闭
+     */
+    private static final class ProbeResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            Promise<Boolean> result = ctx.channel().attr(PROBE_RESULT).get();
+            int code = response.status().code();
+            if (!HttpUtil.isKeepAlive(response)) {
+                ctx.channel().attr(PROBE_RESULT).set(null);
+                ctx.close();
+            }
+            if (result != null) {
+                result.trySuccess(code >= 200 && code < 400);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            Promise<Boolean> result = ctx.channel().attr(PROBE_RESULT).getAndSet(null);
+            ctx.close();
+            if (result != null) {
+                result.trySuccess(false);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            Promise<Boolean> result = ctx.channel().attr(PROBE_RESULT).getAndSet(null);
+            if (result != null) {
+                result.trySuccess(false);
+            }
+            super.channelInactive(ctx);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.cookie.Cookie;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+
+/**
+ * 哈希负载均衡的键提取器
+ * 配置格式：ip（默认）、userId、header:名称、cookie:名称、query:名称
+ *
+ * @author enping.jep
+ * @date 2026/10/19 21:05
+ **/
+public final class HashKeyExtractor {
+
+    /**
+     * 请求中不存在哈希键时返回的值，调用方退化为随机选择
+     */
+    public static final long NO_KEY = 0L;
+
+    private static final String USER_ID = "userId";
+
+    private static final String HEADER_PREFIX = "header:";
+
+    private static final String COOKIE_PREFIX = "cookie:";
+
+    private static final String QUERY_PREFIX = "query:";
+
+    private enum Source {
+        IP, USER_ID, HEADER, COOKIE, QUERY
+    }
+
+    private final Source source;
+
+    private final String name;
+
+    private HashKeyExtractor(Source source, String name) {
+        this.source = source;
+        this.name = name;
+    }
+
+    public static HashKeyExtractor parse(String spec) {
+        if (StringUtils.isBlank(spec) || FilterConst.LOAD_BALANCE_HASH_KEY_DEFAULT.equals(spec)) {
+            return new HashKeyExtractor(Source.IP, null);
+        }
+        if (USER_ID.equals(spec)) {
+            return new HashKeyExtractor(Source.USER_ID, null);
+        }
+        if (spec.startsWith(HEADER_PREFIX)) {
+            return new HashKeyExtractor(Source.HEADER, spec.substring(HEADER_PREFIX.length()));
+        }
+        if (spec.startsWith(COOKIE_PREFIX)) {
+            return new HashKeyExtractor(Source.COOKIE, spec.substring(COOKIE_PREFIX.length()));
+        }
+        if (spec.startsWith(QUERY_PREFIX)) {
+            return new HashKeyExtractor(Source.QUERY, spec.substring(QUERY_PREFIX.length()));
+        }
+        throw new IllegalArgumentException("unsupported hash key: " + spec);
+    }
+
+    /**
+     * 计算请求哈希键的哈希值，请求中不存在该键时返回 {@link #NO_KEY}
+     */
+    public long hash(GatewayRequest request) {
+        if (source == Source.USER_ID) {
+            long userId = request.getUserId();
+            return userId == 0 ? NO_KEY : Hashing.hash(userId);
+        }
+        String key = switch (source) {
+            case HEADER -> request.getHeaders().get(name);
+            case COOKIE -> cookieValue(request);
+            case QUERY -> queryValue(request);
+            default -> request.getClientIp();
+        };
+        return StringUtils.isEmpty(key) ? NO_KEY : Hashing.hash(key);
+    }
+
+    private String cookieValue(GatewayRequest request) {
+        // getCookie 在没有 Cookie 头时会抛出未授权异常，这里先判断
+        if (!request.getHeaders().contains(HttpHeaderNames.COOKIE)) {
+            return null;
+        }
+        Cookie cookie = request.getCookie(name);
+        return cookie == null ? null : cookie.value();
+    }
+
+    private String queryValue(GatewayRequest request) {
+        List<String> values = request.getQueryParametersMultiple(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.constant.GatewayConst;
+
+import java.util.Arrays;
+
+/**
+ * 按实例快照构建的哈希环：有序的虚拟节点哈希值及其对应的实例下标
+ * 每个快照分区(灰度、稳定、同可用区)各自持有一份，在快照上只构建一次，见 {@link InstanceSnapshot#getHashRing()}。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 19:30
+ **/
+final class HashRing {
+
+    /**
+     * 默认权重实例的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * 哈希环虚拟节点总数上限，实例很多时按比例减少每个实例的虚拟节点
+     */
+    private static final int MAX_RING_SIZE = 1 << 20;
+
+    private final InstanceSnapshot snapshot;
+
+    private final int[] hashes;
+
+    private final int[] owners;
+
+    /**
+     * 分桶索引：按哈希值高位分桶，记录每个桶在环上的第一个虚拟节点位置
+     */
+    private final int[] buckets;
+
+    private final int bucketShift;
+
+    HashRing(InstanceSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int size = snapshot.size();
+        int perInstance = Math.max(1, Math.min(VIRTUAL_NODES, MAX_RING_SIZE / size));
+        int[] replicas = new int[size];
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            // 虚拟节点数与权重成正比，默认权重对应 perInstance 个
+            long scaled = (long) perInstance * snapshot.getWeight(i) / GatewayConst.DEFAULT_WEIGHT;
+            replicas[i] = snapshot.getWeight(i) == 0 ? 0 : (int) Math.max(1, Math.min(scaled, MAX_RING_SIZE / size * 4L));
+            total += replicas[i];
+        }
+
+        // 高位放31位哈希值，低32位放实例下标，一次排序即可同时得到有序哈希和对应的实例
+        long[] nodes = new long[total];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            long seed = Hashing.hash(snapshot.get(i).getServiceInstanceId());
+            for (int r = 0; r < replicas[i]; r++) {
+                nodes[n++] = ((Hashing.hash(seed, r) >>> 33) << 32) | i;
+            }
+        }
+        Arrays.sort(nodes);
+        this.hashes = new int[total];
+        this.owners = new int[total];
+        for (int k = 0; k < total; k++) {
+            hashes[k] = (int) (nodes[k] >>> 32);
+            owners[k] = (int) nodes[k];
+        }
+
+        int bucketBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(total - 1));
+        this.bucketShift = 31 - bucketBits;
+        this.buckets = new int[1 << bucketBits];
+        int k = 0;
+        for (int b = 0; b < buckets.length; b++) {
+            int bucketStart = b << bucketShift;
+            while (k < total && hashes[k] < bucketStart) {
+                k++;
+            }
+            buckets[b] = k;
+        }
+    }
+
+    int lookup(long hash) {
+        int point = (int) (hash >>> 33);
+        int k = buckets[point >>> bucketShift];
+        while (k < hashes.length && hashes[k] < point) {
+            k++;
+        }
+        // 超过最后一个虚拟节点时回到环的起点
+        if (k == hashes.length) {
+            k = 0;
+        }
+        // 落在被摘除实例上时继续顺时针查找，只有该实例的键会迁移
+        for (int n = 0; n < hashes.length && !snapshot.isAvailable(owners[k]); n++) {
+            k = k + 1 == hashes.length ? 0 : k + 1;
+        }
+        return owners[k];
+    }
+}
@@ -0,0 +1,46 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+/**
+ * 负载均衡使用的64位哈希函数
+ * 字符串使用 FNV-1a 逐字符累积后再做 murmur3 finalizer 混合，不产生中间对象
+ *
+ * @author enping.jep
+ * @date 2026/10/19 21:00
+ **/
+final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private Hashing() {
+    }
+
+    static long hash(CharSequence value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    static long hash(long value) {
+        return mix(value * GOLDEN_GAMMA);
+    }
+
+    /**
+     * 由同一个种子派生出第 n 个哈希值，用于虚拟节点和 Maglev 的偏移/步长
+     */
+    static long hash(long seed, int n) {
+        return mix(seed + n * GOLDEN_GAMMA);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,629 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.constant.GatewayConst;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 服务实例列表的不可变快照
+ * 注册中心推送新的实例列表时构建一次：实例数组、对齐的运行时统计、权重、总权重、平滑加权轮询调度表和加权随机的别名表，
+ * 负载均衡选择时只做数组下标运算，O(1) 且不产生对象分配。灰度实例和非灰度(稳定)实例各自预先构建一份子快照，
+ * 灰度路由与普通路由的开销相同。每个子快照再预先划分出与网关同可用区的实例，见 {@link Locality}。
+ * 被离群检测摘除的实例通过可用位图过滤，位图只在实例可用状态变化后重新计算一次。
+ * 处于慢启动预热期的实例按预热系数做接受采样，系数按 {@link SlowStart#STEPS} 步预先计算，预热全部结束后不再有额外开销。
+ * 一致性哈希的 Maglev 查找表和哈希环缓存在各个子快照上，只构建一次；服务使用过一致性哈希后，快照重建时随新快照预先构建。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 20:10
+ **/
+public final class InstanceSnapshot {
+
+    /**
+     * 加权轮询调度表的最大长度，总权重超过时按比例缩小权重
+     */
+    private static final int MAX_SCHEDULE_LENGTH = 1 << 16;
+
+    /**
+     * 加权随机选中被摘除实例时的最大重新抽样次数
+     */
+    private static final int MAX_RESAMPLE = 4;
+
+    /**
+     * 构建快照所用的原始实例列表，用于判断注册中心是否推送了新的列表
+     */
+    private final List<ServiceInstance> source;
+
+    private final ServiceInstance[] instances;
+
+    private final InstanceStats[] stats;
+
+    private final int[] weights;
+
+    private final int totalWeight;
+
+    /**
+     * 平滑加权轮询调度表，元素为实例下标
+     */
+    private final int[] schedule;
+
+    /**
+     * 别名表：命中概率与别名下标
+     */
+    private final double[] aliasProbability;
+
+    private final int[] alias;
+
+    /**
+     * 灰度实例子快照，没有灰度实例时为稳定实例子快照
+     */
+    private final InstanceSnapshot gray;
+
+    /**
+     * 稳定(非灰度)实例子快照，没有灰度实例或全部为灰度实例时为快照自身
+     */
+    private final InstanceSnapshot stable;
+
+    /**
+     * 与网关同可用区的实例子快照，未配置可用区、没有同可用区实例或全部为同可用区实例时为快照自身
+     */
+    private final InstanceSnapshot local;
+
+    /**
+     * 按实例可用状态版本号缓存的可用位图
+     */
+    private volatile Availability availability;
+
+    /**
+     * 各实例预热开始时间(毫秒)，0表示不需要预热
+     */
+    private final long[] warmupStart;
+
+    /**
+     * 当前步的预热系数，没有实例处于预热期时为 null
+     */
+    private volatile Warmup warmup;
+
+    /**
+     * Maglev 查找表，首次使用时构建
+     */
+    private volatile MaglevTable maglevTable;
+
+    /**
+     * 一致性哈希环，首次使用时构建
+     */
+    private volatile HashRing hashRing;
+
+    private InstanceSnapshot(List<ServiceInstance> source, ServiceInstance[] instances, boolean grayPartition, boolean zonePartition) {
+        this.source = source;
+        this.instances = instances;
+        int size = instances.length;
+        this.stats = new InstanceStats[size];
+        this.weights = new int[size];
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            stats[i] = InstanceStatsManager.getInstance().getStats(instances[i].getServiceInstanceId());
+            weights[i] = weightOf(instances[i]);
+            total += weights[i];
+        }
+        // 全部实例权重都为0时按等权处理
+        if (size > 0 && total == 0) {
+            Arrays.fill(weights, 1);
+            total = size;
+        }
+        this.totalWeight = total;
+        this.schedule = buildSchedule(weights);
+        this.aliasProbability = new double[size];
+        this.alias = new int[size];
+        buildAlias(weights, total, aliasProbability, alias);
+        this.warmupStart = new long[size];
+        long now = System.currentTimeMillis();
+        boolean warming = false;
+        for (int i = 0; i < size; i++) {
+            warmupStart[i] = SlowStart.startTime(instances[i], stats[i], now);
+            warming |= warmupStart[i] != 0;
+        }
+        this.warmup = warming ? new Warmup(warmupStart, now) : null;
+        if (grayPartition) {
+            int grayCount = 0;
+            for (ServiceInstance instance : instances) {
+                grayCount += instance.isGray() ? 1 : 0;
+            }
+            boolean split = grayCount > 0 && grayCount < size;
+            this.stable = split ? buildGrayPartition(instances, false) : this;
+            this.gray = split ? buildGrayPartition(instances, true) : this.stable;
+        } else {
+            this.stable = this;
+            this.gray = this;
+        }
+        this.local = zonePartition ? buildLocalPartition(instances) : this;
+    }
+
+    /**
+     * 根据注册中心的实例列表构建快照
+     */
+    static InstanceSnapshot build(List<ServiceInstance> source) {
+        if (source == null || source.isEmpty()) {
+            return new InstanceSnapshot(source, new ServiceInstance[0], true, true);
+        }
+        return new InstanceSnapshot(source, source.toArray(new ServiceInstance[0]), true, true);
+    }
+
+    private static InstanceSnapshot buildGrayPartition(ServiceInstance[] instances, boolean gray) {
+        List<ServiceInstance> partition = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (instance.isGray() == gray) {
+                partition.add(instance);
+            }
+        }
+        return new InstanceSnapshot(null, partition.toArray(new ServiceInstance[0]), false, true);
+    }
+
+    private InstanceSnapshot buildLocalPartition(ServiceInstance[] instances) {
+        String zone = Locality.getZone();
+        if (zone == null) {
+            return this;
+        }
+        List<ServiceInstance> partition = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (Locality.isLocal(instance, zone)) {
+                partition.add(instance);
+            }
+        }
+        if (partition.isEmpty() || partition.size() == instances.length) {
+            return this;
+        }
+        return new InstanceSnapshot(null, partition.toArray(new ServiceInstance[0]), false, false);
+    }
+
+    /**
+     * 实例权重：未配置时使用默认权重，负数按0处理
+     */
+    private static int weightOf(ServiceInstance instance) {
+        Integer weight = instance.getWeight();
+        if (weight == null) {
+            return GatewayConst.DEFAULT_WEIGHT;
+        }
+        return Math.max(weight, 0);
+    }
+
+    /**
+     * 构建平滑加权轮询调度表
+     * 每个实例第 k 次被调度的虚拟时间为 (k + 0.5) / weight，按虚拟时间先后排列，
+     * 与 nginx 平滑加权轮询一样把高权重实例均匀地穿插在低权重实例之间，构建复杂度 O(总权重 · log n)。
+     */
+    private static int[] buildSchedule(int[] weights) {
+        int size = weights.length;
+        if (size == 0) {
+            return new int[0];
+        }
+        int[] scheduleWeights = weights.clone();
+        int gcd = 0;
+        for (int weight : scheduleWeights) {
+            gcd = gcd(gcd, weight);
+        }
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            scheduleWeights[i] /= gcd;
+            total += scheduleWeights[i];
+        }
+        if (total > Math.max(MAX_SCHEDULE_LENGTH, size)) {
+            long scaled = 0;
+            for (int i = 0; i < size; i++) {
+                if (scheduleWeights[i] > 0) {
+                    scheduleWeights[i] = (int) Math.max(1, scheduleWeights[i] * (long) MAX_SCHEDULE_LENGTH / total);
+                }
+                scaled += scheduleWeights[i];
+            }
+            total = scaled;
+        }
+
+        int[] schedule = new int[(int) total];
+        int[] count = new int[size];
+        double[] next = new double[size];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(size, (a, b) -> {
+            int compare = Double.compare(next[a], next[b]);
+            return compare != 0 ? compare : Integer.compare(a, b);
+        });
+        for (int i = 0; i < size; i++) {
+            if (scheduleWeights[i] > 0) {
+                next[i] = 0.5 / scheduleWeights[i];
+                queue.add(i);
+            }
+        }
+        for (int n = 0; n < schedule.length; n++) {
+            int index = queue.poll();
+            schedule[n] = index;
+            count[index]++;
+            if (count[index] < scheduleWeights[index]) {
+                next[index] = (count[index] + 0.5) / scheduleWeights[index];
+                queue.add(index);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * 构建 Vose 别名表，加权随机选择时只需一次下标随机和一次概率比较
+     */
+    private static void buildAlias(int[] weights, int totalWeight, double[] probability, int[] alias) {
+        int size = weights.length;
+        if (size == 0) {
+            return;
+        }
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (double) weights[i] * size / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // 剩余元素的概率因浮点误差可能略偏离1，统一置为1
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 上一个快照的子快照用过的一致性哈希表，在新快照的对应子快照上预先构建，注册中心推送后的第一个请求不再承担构建开销
+     */
+    void buildHashTables(InstanceSnapshot previous) {
+        boolean maglev = false;
+        boolean ring = false;
+        for (InstanceSnapshot partition : previous.routingPartitions()) {
+            maglev |= partition.maglevTable != null;
+            ring |= partition.hashRing != null;
+        }
+        for (InstanceSnapshot partition : routingPartitions()) {
+            if (partition.isEmpty()) {
+                continue;
+            }
+            if (maglev) {
+                partition.getMaglevTable();
+            }
+            if (ring) {
+                partition.getHashRing();
+            }
+        }
+    }
+
+    /**
+     * 路由可能选用的子快照：稳定、灰度及它们的同可用区子快照
+     */
+    private InstanceSnapshot[] routingPartitions() {
+        return new InstanceSnapshot[]{stable, stable.local, gray, gray.local};
+    }
+
+    /**
+     * Maglev 查找表，不存在时构建，同一子快照只构建一次
+     */
+    MaglevTable getMaglevTable() {
+        MaglevTable table = maglevTable;
+        if (table == null) {
+            synchronized (this) {
+                table = maglevTable;
+                if (table == null) {
+                    table = new MaglevTable(this);
+                    maglevTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 一致性哈希环，不存在时构建，同一子快照只构建一次
+     */
+    HashRing getHashRing() {
+        HashRing ring = hashRing;
+        if (ring == null) {
+            synchronized (this) {
+                ring = hashRing;
+                if (ring == null) {
+                    ring = new HashRing(this);
+                    hashRing = ring;
+                }
+            }
+        }
+        return ring;
+    }
+
+    List<ServiceInstance> getSource() {
+        return source;
+    }
+
+    public InstanceSnapshot getGray() {
+        return gray;
+    }
+
+    public InstanceSnapshot getStable() {
+        return stable;
+    }
+
+    /**
+     * 同可用区优先：本可用区健康实例比例达到阈值时返回同可用区子快照，否则返回快照自身
+     */
+    public InstanceSnapshot preferLocal() {
+        if (local == this) {
+            return this;
+        }
+        return Locality.hasLocalCapacity(local.availability().healthy, local.size()) ? local : this;
+    }
+
+    public boolean isEmpty() {
+        return instances.length == 0;
+    }
+
+    public int size() {
+        return instances.length;
+    }
+
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    public InstanceStats getStats(int index) {
+        return stats[index];
+    }
+
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * 实例是否可被选中（未被摘除）
+     */
+    public boolean isAvailable(int index) {
+        return availability().isAvailable(index);
+    }
+
+    /**
+     * 可被选中的实例数
+     */
+    public int availableSize() {
+        return availability().indexes.length;
+    }
+
+    /**
+     * 第 k 个可被选中的实例下标
+     */
+    public int availableIndex(int k) {
+        return availability().indexes[k];
+    }
+
+    /**
+     * 随机选择
+     */
+    public ServiceInstance random() {
+        int[] indexes = availability().indexes;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = indexes[random.nextInt(indexes.length)];
+        for (int attempt = 1; attempt < MAX_RESAMPLE && !acceptWarmup(index, random); attempt++) {
+            index = indexes[random.nextInt(indexes.length)];
+        }
+        return instances[index];
+    }
+
+    /**
+     * 随机选择一个不在排除集合中的可用实例，全部被排除时返回 null，用于重试和对冲避开已经请求过的实例
+     */
+    public ServiceInstance randomExcept(Set<String> excludedInstanceIds) {
+        int[] indexes = availability().indexes;
+        if (indexes.length == 0) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(indexes.length);
+        for (int i = 0; i < indexes.length; i++) {
+            ServiceInstance instance = instances[indexes[(start + i) % indexes.length]];
+            if (!excludedInstanceIds.contains(instance.getServiceInstanceId())) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 轮询选择，计数器溢出为负数后仍然得到合法下标
+     */
+    public ServiceInstance roundRobin(int counter) {
+        int[] indexes = availability().indexes;
+        int index = indexes[(counter & Integer.MAX_VALUE) % indexes.length];
+        // 预热中的实例按系数概率让出本次选择，让出的流量随机分散到其他实例，避免集中到下一个实例
+        if (warmup != null && !acceptWarmup(index, ThreadLocalRandom.current())) {
+            return random();
+        }
+        return instances[index];
+    }
+
+    /**
+     * 平滑加权轮询选择，调度表中被摘除的实例直接跳到下一个槽位
+     */
+    public ServiceInstance weightedRoundRobin(int counter) {
+        Availability current = availability();
+        int slot = (counter & Integer.MAX_VALUE) % schedule.length;
+        if (!current.full) {
+            for (int n = 0; n < schedule.length && !current.isAvailable(schedule[slot]); n++) {
+                slot = slot + 1 == schedule.length ? 0 : slot + 1;
+            }
+        }
+        if (warmup != null && !acceptWarmup(schedule[slot], ThreadLocalRandom.current())) {
+            return weightedRandom();
+        }
+        return instances[schedule[slot]];
+    }
+
+    /**
+     * 基于别名表的加权随机选择，选中被摘除的实例时重新抽样，多次未命中后退化为在可用实例中随机
+     */
+    public ServiceInstance weightedRandom() {
+        Availability current = availability();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < MAX_RESAMPLE; attempt++) {
+            int index = random.nextInt(instances.length);
+            index = random.nextDouble() < aliasProbability[index] ? index : alias[index];
+            if (current.isAvailable(index) && acceptWarmup(index, random)) {
+                return instances[index];
+            }
+        }
+        return instances[current.indexes[random.nextInt(current.indexes.length)]];
+    }
+
+    /**
+     * 实例当前的预热系数，取值 (0, 1]
+     */
+    public double getWarmupFactor(int index) {
+        Warmup current = currentWarmup();
+        return current == null ? 1.0 : current.factors[index];
+    }
+
+    /**
+     * 按预热系数做接受采样，没有实例处于预热期时总是接受
+     */
+    private boolean acceptWarmup(int index, ThreadLocalRandom random) {
+        Warmup current = currentWarmup();
+        return current == null || current.factors[index] >= 1.0 || random.nextDouble() < current.factors[index];
+    }
+
+    /**
+     * 获取当前步的预热系数，到达下一步时重新计算，全部实例预热结束后置为 null
+     */
+    private Warmup currentWarmup() {
+        Warmup current = warmup;
+        if (current == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= current.nextUpdate) {
+            current = new Warmup(warmupStart, now);
+            warmup = current.active ? current : null;
+        }
+        return warmup;
+    }
+
+    /**
+     * 获取当前的可用位图，实例可用状态版本号变化后重新计算
+     */
+    private Availability availability() {
+        long version = InstanceStatsManager.getInstance().getAvailabilityVersion();
+        Availability current = availability;
+        if (current == null || current.version != version) {
+            current = new Availability(version, stats);
+            availability = current;
+        }
+        return current;
+    }
+
+    /**
+     * 一个预热步内各实例的预热系数
+     */
+    private static final class Warmup {
+
+        private final double[] factors;
+
+        private final long nextUpdate;
+
+        private final boolean active;
+
+        Warmup(long[] warmupStart, long now) {
+            this.factors = new double[warmupStart.length];
+            boolean active = false;
+            for (int i = 0; i < warmupStart.length; i++) {
+                factors[i] = SlowStart.factor(warmupStart[i], now);
+                active |= factors[i] < 1.0;
+            }
+            this.active = active;
+            this.nextUpdate = now + Math.max(1, SlowStart.getWindow() / SlowStart.STEPS);
+        }
+    }
+
+    /**
+     * 可用位图与可用实例下标的稠密数组
+     * 全部实例都不可用时忽略摘除状态，按全部可用处理，避免服务整体不可用
+     */
+    private static final class Availability {
+
+        private final long version;
+
+        private final boolean full;
+
+        private final long[] mask;
+
+        private final int[] indexes;
+
+        /**
+         * 实际可用的实例数，全部不可用时为0
+         */
+        private final int healthy;
+
+        Availability(long version, InstanceStats[] stats) {
+            this.version = version;
+            int size = stats.length;
+            long[] mask = new long[(size + 63) >>> 6];
+            int[] indexes = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (stats[i].isAvailable()) {
+                    mask[i >>> 6] |= 1L << i;
+                    indexes[count++] = i;
+                }
+            }
+            this.healthy = count;
+            this.full = count == size || count == 0;
+            if (full) {
+                for (int i = 0; i < size; i++) {
+                    indexes[i] = i;
+                }
+                count = size;
+            }
+            this.mask = mask;
+            this.indexes = count == size ? indexes : Arrays.copyOf(indexes, count);
+        }
+
+        boolean isAvailable(int index) {
+            return full || (mask[index >>> 6] & (1L << index)) != 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.ServiceInstance;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务实例快照管理类  serviceId —> InstanceSnapshot
+ * 注册中心变更时主动刷新；读取时再比较一次原始列表的引用，列表被替换后自动重建，保证快照不会过期。
+ * 重建时沿用上一个快照已经构建过的一致性哈希表，见 {@link InstanceSnapshot#buildHashTables(InstanceSnapshot)}。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 20:30
+ **/
+public class InstanceSnapshotManager {
+
+    private static class SingletonHolder {
+        private static final InstanceSnapshotManager INSTANCE = new InstanceSnapshotManager();
+    }
+
+    public static InstanceSnapshotManager getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private final ConcurrentHashMap<String, InstanceSnapshot> snapshotMap = new ConcurrentHashMap<>();
+
+    private InstanceSnapshotManager() {
+    }
+
+    /**
+     * 获取服务用于路由的实例快照：灰度请求返回灰度实例子快照，其余请求返回稳定实例子快照，
+     * 本可用区容量充足时再缩小到同可用区实例
+     */
+    public InstanceSnapshot getSnapshot(String serviceId, boolean gray) {
+        List<ServiceInstance> source = DynamicConfigManager.getInstance().getServiceInstanceByServiceId(serviceId, false);
+        InstanceSnapshot snapshot = snapshotMap.get(serviceId);
+        if (snapshot == null || snapshot.getSource() != source) {
+            snapshot = rebuild(snapshot, source);
+            snapshotMap.put(serviceId, snapshot);
+            evictStats();
+        }
+        return (gray ? snapshot.getGray() : snapshot.getStable()).preferLocal();
+    }
+
+    /**
+     * 当前所有服务的实例快照
+     */
+    public Map<String, InstanceSnapshot> getSnapshots() {
+        return snapshotMap;
+    }
+
+    /**
+     * 注册中心推送新的实例列表后重建快照
+     */
+    public void refresh(String serviceId) {
+        List<ServiceInstance> source = DynamicConfigManager.getInstance().getServiceInstanceByServiceId(serviceId, false);
+        snapshotMap.put(serviceId, rebuild(snapshotMap.get(serviceId), source));
+        evictStats();
+    }
+
+    /**
+     * 按当前所有快照中的实例清除已下线实例的运行时统计
+     */
+    void evictStats() {
+        Set<String> live = new HashSet<>();
+        for (InstanceSnapshot snapshot : snapshotMap.values()) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                live.add(snapshot.get(i).getServiceInstanceId());
+            }
+        }
+        InstanceStatsManager.getInstance().evictAbsent(live);
+    }
+
+    /**
+     * 重建快照，非首次构建时记录新出现实例的发现时间，用于没有注册时间的实例的慢启动，并预先构建用过的一致性哈希表
+     */
+    private InstanceSnapshot rebuild(InstanceSnapshot previous, List<ServiceInstance> source) {
+        if (previous != null && source != null) {
+            Set<String> known = new HashSet<>();
+            for (int i = 0; i < previous.size(); i++) {
+                known.add(previous.get(i).getServiceInstanceId());
+            }
+            long now = System.currentTimeMillis();
+            for (ServiceInstance instance : source) {
+                if (!known.contains(instance.getServiceInstanceId())) {
+                    InstanceStatsManager.getInstance().getStats(instance.getServiceInstanceId()).setFirstSeenTime(now);
+                }
+            }
+        }
+        InstanceSnapshot snapshot = InstanceSnapshot.build(source);
+        if (previous != null) {
+            snapshot.buildHashTables(previous);
+        }
+        return snapshot;
+    }
+}
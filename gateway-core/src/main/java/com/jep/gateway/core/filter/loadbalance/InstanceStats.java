@@ -0,0 +1,89 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务实例的负载均衡运行时统计
+ * 以 serviceInstanceId 为维度保存，不随注册中心刷新实例列表而重置
+ *
+ * @author enping.jep
+ * @date 2026/10/19 15:10
+ **/
+@Getter
+public class InstanceStats {
+
+    /**
+     * 服务实例ID: ip:port
+     */
+    private final String serviceInstanceId;
+
+    /**
+     * 被负载均衡选中的次数
+     */
+    private final LongAdder chosen = new LongAdder();
+
+    /**
+     * 已发往该实例、尚未完成的请求数，RouterFilter 发送时加一，回调时减一
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 下游调用耗时的 Peak EWMA，RouterFilter 回调时记录
+     */
+    private final PeakEwma latency = new PeakEwma();
+
+    /**
+     * 连续失败次数(5xx、连接失败、超时)，成功一次即清零
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 当前检测周期内的请求数与成功数，离群检测每个周期读取后清零
+     */
+    private final LongAdder intervalRequests = new LongAdder();
+
+    private final LongAdder intervalSuccesses = new LongAdder();
+
+    /**
+     * 被离群检测摘除的截止时间(System.nanoTime)，0 表示未摘除
+     */
+    @Setter
+    private volatile long ejectedUntil;
+
+    /**
+     * 累计被摘除的次数，决定下一次摘除的时长，由 OutlierDetector 维护
+     */
+    @Setter
+    private int ejectionCount;
+
+    /**
+     * 主动健康检查判定为不健康
+     */
+    @Setter
+    private volatile boolean unhealthy;
+
+    /**
+     * 网关首次发现该实例的时间(毫秒)，网关启动时已存在的实例为0，用于没有注册时间的实例的慢启动
+     */
+    @Setter
+    private volatile long firstSeenTime;
+
+    public InstanceStats(String serviceInstanceId) {
+        this.serviceInstanceId = serviceInstanceId;
+    }
+
+    public boolean isEjected() {
+        return ejectedUntil != 0;
+    }
+
+    /**
+     * 是否可以被负载均衡选中：未被离群检测摘除且主动健康检查通过
+     */
+    public boolean isAvailable() {
+        return !isEjected() && !unhealthy;
+    }
+}
@@ -0,0 +1,116 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.netty.GatewayTimer;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务实例运行时统计管理类  serviceInstanceId —> InstanceStats
+ * 实例快照重建时清除不在任何快照中的实例统计：实例消失后先保留一段时间，期间重新上线的实例沿用原统计，
+ * 超过保留时间仍未出现才清除，避免实例频繁上下线时统计表只增不减。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 15:12
+ **/
+public class InstanceStatsManager {
+
+    private static class SingletonHolder {
+        private static final InstanceStatsManager INSTANCE = new InstanceStatsManager();
+    }
+
+    public static InstanceStatsManager getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private final ConcurrentHashMap<String, InstanceStats> statsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 实例可用状态版本号，任意实例被摘除或恢复时递增，实例快照据此重新计算可用位图
+     */
+    private final AtomicLong availabilityVersion = new AtomicLong();
+
+    /**
+     * 已经不在任何快照中的实例 —> 首次发现消失的时间(毫秒)
+     */
+    private final ConcurrentHashMap<String, Long> absentSince = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已经安排了保留时间到期后的再次清理
+     */
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+
+    private volatile long retention = 60 * 1000;
+
+    private InstanceStatsManager() {
+    }
+
+    /**
+     * 根据静态配置初始化已下线实例统计的保留时间
+     */
+    public void init(Config config) {
+        retention = config.getInstanceStatsRetention();
+    }
+
+    /**
+     * 获取服务实例统计，不存在时创建
+     */
+    public InstanceStats getStats(String serviceInstanceId) {
+        InstanceStats stats = statsMap.get(serviceInstanceId);
+        if (stats == null) {
+            stats = statsMap.computeIfAbsent(serviceInstanceId, InstanceStats::new);
+        }
+        return stats;
+    }
+
+    public Map<String, InstanceStats> getAllStats() {
+        return statsMap;
+    }
+
+    public long getAvailabilityVersion() {
+        return availabilityVersion.get();
+    }
+
+    /**
+     * 清除不在存活实例中、且消失超过保留时间的实例统计；仍在保留期内的实例在到期后再检查一次
+     *
+     * @param liveInstanceIds 所有快照中的实例
+     */
+    void evictAbsent(Set<String> liveInstanceIds) {
+        long now = System.currentTimeMillis();
+        boolean pending = false;
+        for (Iterator<Map.Entry<String, InstanceStats>> iterator = statsMap.entrySet().iterator(); iterator.hasNext(); ) {
+            String serviceInstanceId = iterator.next().getKey();
+            if (liveInstanceIds.contains(serviceInstanceId)) {
+                absentSince.remove(serviceInstanceId);
+                continue;
+            }
+            long since = absentSince.computeIfAbsent(serviceInstanceId, key -> now);
+            if (now - since >= retention) {
+                iterator.remove();
+                absentSince.remove(serviceInstanceId);
+            } else {
+                pending = true;
+            }
+        }
+        absentSince.keySet().retainAll(statsMap.keySet());
+        if (pending && sweepScheduled.compareAndSet(false, true)) {
+            GatewayTimer.getInstance().newTimeout(() -> {
+                sweepScheduled.set(false);
+                InstanceSnapshotManager.getInstance().evictStats();
+            }, retention);
+        }
+    }
+
+    /**
+     * 实例可用状态发生变化
+     */
+    public void availabilityChanged() {
+        availabilityVersion.incrementAndGet();
+    }
+}
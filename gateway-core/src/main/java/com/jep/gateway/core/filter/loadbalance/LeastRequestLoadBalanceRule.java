@@ -0,0 +1,70 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.exception.NotFoundException;
+import com.jep.gateway.core.context.GatewayContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.jep.gateway.common.enums.ResponseCode.SERVICE_INSTANCE_NOT_FOUND;
+
+/**
+ * 最少在途请求负载均衡（Power of Two Choices）
+ * 随机取两个不同的实例，选择在途请求数较少的一个；在途请求数由 RouterFilter 在发送和回调时维护；
+ * 慢启动预热中的实例在途请求数按预热系数放大
+ *
+ * @author enping.jep
+ * @date 2026/10/19 18:30
+ **/
+@Slf4j
+public class LeastRequestLoadBalanceRule implements LoadBalanceRule {
+
+    private final String serviceId;
+
+    public LeastRequestLoadBalanceRule(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * 服务ID——最少在途请求负载均衡策略
+     */
+    private static final ConcurrentHashMap<String, LeastRequestLoadBalanceRule> serviceMap = new ConcurrentHashMap<>();
+
+    public static LeastRequestLoadBalanceRule getInstance(String serviceId) {
+        return serviceMap.computeIfAbsent(serviceId, LeastRequestLoadBalanceRule::new);
+    }
+
+    @Override
+    public ServiceInstance choose(GatewayContext ctx) {
+        return choose(ctx.getUniqueId(), ctx.isGray());
+    }
+
+    @Override
+    public ServiceInstance choose(String serviceId, boolean gray) {
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
+        if (snapshot.isEmpty()) {
+            log.warn("No instance available for:{}", serviceId);
+            throw new NotFoundException(SERVICE_INSTANCE_NOT_FOUND);
+        }
+        // 只在未被摘除的实例中选择
+        int size = snapshot.availableSize();
+        if (size == 1) {
+            return snapshot.get(snapshot.availableIndex(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        // 第二个下标在其余 size-1 个实例中选取，保证两次选择不重复
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        first = snapshot.availableIndex(first);
+        second = snapshot.availableIndex(second);
+        // 预热中的实例按预热系数放大在途请求数
+        double loadFirst = (snapshot.getStats(first).getInFlight().get() + 1) / snapshot.getWarmupFactor(first);
+        double loadSecond = (snapshot.getStats(second).getInFlight().get() + 1) / snapshot.getWarmupFactor(second);
+        return snapshot.get(loadSecond < loadFirst ? second : first);
+    }
+}
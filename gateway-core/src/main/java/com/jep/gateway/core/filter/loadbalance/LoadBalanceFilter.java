@@ -9,6 +9,7 @@ import com.jep.gateway.common.exception.NotFoundException;
 import com.jep.gateway.core.context.GatewayContext;
 import com.jep.gateway.core.filter.Filter;
 import com.jep.gateway.core.filter.annotation.FilterAspect;
+import com.jep.gateway.core.jfr.GatewayEvents;
 import com.jep.gateway.core.request.GatewayRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -49,7 +50,8 @@ public class LoadBalanceFilter implements Filter {
         }
 
         // 选取服务实例，重新构造 Request 请求头
-        ServiceInstance instance = gatewayRule.choose(serviceId, ctx.isGray());
+        long start = GatewayEvents.startTime();
+        ServiceInstance instance = gatewayRule.choose(ctx);
 
         // 日志记录优化
         if (instance != null ) {
@@ -59,12 +61,16 @@ public class LoadBalanceFilter implements Filter {
             throw new NotFoundException(ResponseCode.SERVICE_INSTANCE_NOT_FOUND);
         }
 
+        InstanceStatsManager.getInstance().getStats(instance.getServiceInstanceId()).getChosen().increment();
+        ctx.setServiceInstance(instance);
+
         GatewayRequest gatewayRequest = ctx.getRequest();
         if (gatewayRequest != null) {
             //todo modifyHost->targetHost
             String modifyHost = instance.getIp() + ":" + instance.getPort();
             gatewayRequest.setModifyHost(modifyHost);
         }
+        GatewayEvents.loadBalance(ctx, gatewayRule.getClass().getSimpleName(), start);
     }
 
     /**
@@ -98,22 +104,29 @@ public class LoadBalanceFilter implements Filter {
      */
     private LoadBalanceRule parseLoadBalanceConfig(String config, String serviceId) {
         String strategy = FilterConst.LOAD_BALANCE_STRATEGY_RANDOM;
+        String hashKey = null;
         if (StringUtils.isNotEmpty(config)) {
             Map<String, String> map = JSON.parseObject(config, Map.class);
             strategy = map.getOrDefault(FilterConst.LOAD_BALANCE_KEY, strategy);
+            hashKey = map.get(FilterConst.LOAD_BALANCE_HASH_KEY);
         }
-        return getLoadBalanceRuleByStrategy(strategy, serviceId);
+        return getLoadBalanceRuleByStrategy(strategy, serviceId, StringUtils.defaultIfEmpty(hashKey, FilterConst.LOAD_BALANCE_HASH_KEY_DEFAULT));
     }
 
     /**
      * 根据策略获取负载均衡规则
      */
-    private LoadBalanceRule getLoadBalanceRuleByStrategy(String strategy, String serviceId) {
+    private LoadBalanceRule getLoadBalanceRuleByStrategy(String strategy, String serviceId, String hashKey) {
         return switch (strategy) {
             case FilterConst.LOAD_BALANCE_STRATEGY_RANDOM -> RandomLoadBalanceRule.getInstance(serviceId);
             case FilterConst.LOAD_BALANCE_STRATEGY_ROUND_ROBIN -> RoundRobinLoadBalanceRule.getInstance(serviceId);
-            case FilterConst.LOAD_BALANCE_STRATEGY_WEIGHT_RANDOM ->
+            case FilterConst.LOAD_BALANCE_STRATEGY_WEIGHT_RANDOM, FilterConst.LOAD_BALANCE_STRATEGY_WEIGHTED_ROUND_ROBIN ->
                     WeightedRoundRobinLoadBalanceRule.getInstance(serviceId);
+            case FilterConst.LOAD_BALANCE_STRATEGY_LEAST_REQUEST -> LeastRequestLoadBalanceRule.getInstance(serviceId);
+            case FilterConst.LOAD_BALANCE_STRATEGY_PEAK_EWMA -> PeakEwmaLoadBalanceRule.getInstance(serviceId);
+            case FilterConst.LOAD_BALANCE_STRATEGY_WEIGHTED_RANDOM -> WeightedRandomLoadBalanceRule.getInstance(serviceId);
+            case FilterConst.LOAD_BALANCE_STRATEGY_RING_HASH -> RingHashLoadBalanceRule.getInstance(serviceId, hashKey);
+            case FilterConst.LOAD_BALANCE_STRATEGY_MAGLEV -> MaglevLoadBalanceRule.getInstance(serviceId, hashKey);
             default -> {
                 log.warn("No load balance rule can be loaded for service={}, using default strategy: {}", serviceId, strategy);
                 yield RandomLoadBalanceRule.getInstance(serviceId);
@@ -0,0 +1,75 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.config.Config;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 同可用区优先路由
+ * 网关所在可用区来自静态配置，实例所在可用区来自实例标签(如 "zone=az1,env=prod")。
+ * 实例快照构建时预先划分出与网关同可用区的实例子快照，同可用区健康实例比例不低于阈值时只在本可用区内选择，
+ * 低于阈值时溢出到全部可用区，避免本可用区实例被压垮。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 00:10
+ **/
+public final class Locality {
+
+    /**
+     * 实例标签中表示可用区的键
+     */
+    private static final String ZONE_TAG = "zone";
+
+    private static volatile String zone;
+
+    private static volatile int spilloverThreshold = 70;
+
+    private Locality() {
+    }
+
+    /**
+     * 根据静态配置初始化网关所在可用区和溢出阈值
+     */
+    public static void init(Config config) {
+        zone = StringUtils.trimToNull(config.getZone());
+        spilloverThreshold = Math.min(100, Math.max(0, config.getZoneSpilloverThreshold()));
+    }
+
+    /**
+     * 网关所在可用区，未配置时为 null，不做同可用区优先
+     */
+    public static String getZone() {
+        return zone;
+    }
+
+    /**
+     * 本可用区健康实例数是否达到溢出阈值
+     */
+    static boolean hasLocalCapacity(int healthy, int total) {
+        return healthy > 0 && healthy * 100L >= (long) spilloverThreshold * total;
+    }
+
+    /**
+     * 实例是否与网关在同一可用区
+     */
+    static boolean isLocal(ServiceInstance instance, String zone) {
+        return zone != null && zone.equals(zoneOf(instance));
+    }
+
+    /**
+     * 从实例标签中解析可用区，标签格式为逗号或分号分隔的 key=value
+     */
+    static String zoneOf(ServiceInstance instance) {
+        String tags = instance.getTags();
+        if (StringUtils.isEmpty(tags)) {
+            return null;
+        }
+        for (String tag : StringUtils.split(tags, ",;")) {
+            int separator = tag.indexOf('=');
+            if (separator > 0 && ZONE_TAG.equals(tag.substring(0, separator).trim())) {
+                return StringUtils.trimToNull(tag.substring(separator + 1));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import java.util.Arrays;
+
+/**
+ * 按实例快照构建的 Maglev 查找表，元素为实例下标
+ * 每个快照分区(灰度、稳定、同可用区)各自持有一份，在快照上只构建一次，见 {@link InstanceSnapshot#getMaglevTable()}。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 19:30
+ **/
+final class MaglevTable {
+
+    /**
+     * 查找表最小长度(质数)，论文建议查找表长度远大于实例数
+     */
+    private static final int MIN_TABLE_SIZE = 65537;
+
+    /**
+     * 每个实例平均占用的查找表槽位数下限
+     */
+    private static final int SLOTS_PER_INSTANCE = 100;
+
+    /**
+     * 命中被摘除实例时的最大再哈希次数
+     */
+    private static final int MAX_REHASH = 8;
+
+    private final InstanceSnapshot snapshot;
+
+    private final int[] entries;
+
+    MaglevTable(InstanceSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int size = snapshot.size();
+        int tableSize = nextPrime(Math.max(MIN_TABLE_SIZE, (long) size * SLOTS_PER_INSTANCE));
+        long[] offsets = new long[size];
+        long[] skips = new long[size];
+        long[] next = new long[size];
+        int maxWeight = 0;
+        for (int i = 0; i < size; i++) {
+            long seed = Hashing.hash(snapshot.get(i).getServiceInstanceId());
+            offsets[i] = Long.remainderUnsigned(Hashing.hash(seed, 0), tableSize);
+            skips[i] = Long.remainderUnsigned(Hashing.hash(seed, 1), tableSize - 1) + 1;
+            maxWeight = Math.max(maxWeight, snapshot.getWeight(i));
+        }
+
+        int[] entries = new int[tableSize];
+        Arrays.fill(entries, -1);
+        // 加权 Maglev：每轮各实例累积自身权重，累积值达到最大权重时才抢占一个槽位
+        long[] credit = new long[size];
+        int filled = 0;
+        while (filled < tableSize) {
+            for (int i = 0; i < size && filled < tableSize; i++) {
+                credit[i] += snapshot.getWeight(i);
+                if (credit[i] < maxWeight) {
+                    continue;
+                }
+                credit[i] -= maxWeight;
+                int slot = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                while (entries[slot] >= 0) {
+                    next[i]++;
+                    slot = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                }
+                entries[slot] = i;
+                next[i]++;
+                filled++;
+            }
+        }
+        this.entries = entries;
+    }
+
+    int lookup(long hash) {
+        int index = entries[(int) Long.remainderUnsigned(hash, entries.length)];
+        // 命中被摘除实例时对哈希值再哈希，多次未命中后在可用实例中按哈希值取模
+        for (int attempt = 1; attempt <= MAX_REHASH && !snapshot.isAvailable(index); attempt++) {
+            index = entries[(int) Long.remainderUnsigned(Hashing.hash(hash, attempt), entries.length)];
+        }
+        if (!snapshot.isAvailable(index)) {
+            index = snapshot.availableIndex((int) Long.remainderUnsigned(hash, snapshot.availableSize()));
+        }
+        return index;
+    }
+
+    private static int nextPrime(long n) {
+        long candidate = n | 1;
+        while (!isPrime(candidate)) {
+            candidate += 2;
+        }
+        return (int) candidate;
+    }
+
+    private static boolean isPrime(long n) {
+        for (long d = 3; d * d <= n; d += 2) {
+            if (n % d == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
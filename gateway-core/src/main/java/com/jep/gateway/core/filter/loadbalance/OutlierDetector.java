@@ -0,0 +1,216 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.core.config.Config;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 被动离群检测
+ * 根据 RouterFilter 回调中的下游调用结果统计每个实例：
+ * 1.连续失败(5xx、连接失败、超时)达到阈值时立即摘除；
+ * 2.每个检测周期按服务计算各实例成功率的均值和标准差，低于 均值 - 系数 × 标准差 的实例被摘除。
+ * 摘除时长按 基础时长 × 2^(摘除次数-1) 指数增长并设有上限，同一服务被摘除的实例比例不超过配置的最大值。
+ * 摘除和恢复只修改实例统计并递增可用状态版本号，负载均衡通过实例快照上的可用位图过滤。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 22:10
+ **/
+@Slf4j
+public class OutlierDetector {
+
+    private static class SingletonHolder {
+        private static final OutlierDetector INSTANCE = new OutlierDetector();
+    }
+
+    public static OutlierDetector getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private volatile boolean enabled;
+
+    private volatile int consecutiveFailures = 5;
+
+    private volatile long baseEjectionTime = TimeUnit.SECONDS.toNanos(30);
+
+    private volatile long maxEjectionTime = TimeUnit.SECONDS.toNanos(300);
+
+    private volatile int maxEjectionPercent = 10;
+
+    private volatile int successRateMinimumHosts = 5;
+
+    private volatile long successRateRequestVolume = 100;
+
+    private volatile double successRateStdevFactor = 1.9;
+
+    private ScheduledExecutorService scheduler;
+
+    private OutlierDetector() {
+    }
+
+    /**
+     * 根据配置启动周期检测任务
+     */
+    public synchronized void start(Config config) {
+        enabled = config.isOutlierDetectionEnabled();
+        consecutiveFailures = config.getOutlierConsecutiveFailures();
+        baseEjectionTime = TimeUnit.MILLISECONDS.toNanos(config.getOutlierBaseEjectionTime());
+        maxEjectionTime = TimeUnit.MILLISECONDS.toNanos(config.getOutlierMaxEjectionTime());
+        maxEjectionPercent = config.getOutlierMaxEjectionPercent();
+        successRateMinimumHosts = config.getOutlierSuccessRateMinimumHosts();
+        successRateRequestVolume = config.getOutlierSuccessRateRequestVolume();
+        successRateStdevFactor = config.getOutlierSuccessRateStdevFactor();
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        long interval = config.getOutlierInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("gateway-outlier-detector", true));
+        scheduler.scheduleWithFixedDelay(this::detect, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 记录一次下游调用结果
+     *
+     * @param serviceId 服务ID，用于计算同一服务的摘除比例
+     * @param stats     被调用实例的统计
+     * @param success   是否成功
+     */
+    public void record(String serviceId, InstanceStats stats, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        stats.getIntervalRequests().increment();
+        if (success) {
+            stats.getIntervalSuccesses().increment();
+            if (stats.getConsecutiveFailures().get() != 0) {
+                stats.getConsecutiveFailures().set(0);
+            }
+            return;
+        }
+        if (stats.getConsecutiveFailures().incrementAndGet() >= consecutiveFailures && !stats.isEjected()) {
+            InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshots().get(serviceId);
+            if (snapshot != null) {
+                eject(snapshot, stats, "consecutive failures");
+            }
+        }
+    }
+
+    /**
+     * 周期检测：恢复到期的实例，再按成功率偏差摘除离群实例
+     */
+    void detect() {
+        try {
+            long now = System.nanoTime();
+            boolean changed = false;
+            for (InstanceStats stats : InstanceStatsManager.getInstance().getAllStats().values()) {
+                changed |= tryUneject(stats, now);
+            }
+            if (changed) {
+                InstanceStatsManager.getInstance().availabilityChanged();
+            }
+            for (InstanceSnapshot snapshot : InstanceSnapshotManager.getInstance().getSnapshots().values()) {
+                detectSuccessRate(snapshot);
+            }
+        } catch (Exception e) {
+            log.error("outlier detection failed", e);
+        }
+    }
+
+    private boolean tryUneject(InstanceStats stats, long now) {
+        synchronized (stats) {
+            long ejectedUntil = stats.getEjectedUntil();
+            if (ejectedUntil == 0) {
+                // 健康的实例逐步降低摘除次数，下次摘除时长随之缩短
+                if (stats.getEjectionCount() > 0 && stats.getConsecutiveFailures().get() == 0) {
+                    stats.setEjectionCount(stats.getEjectionCount() - 1);
+                }
+                return false;
+            }
+            if (now - ejectedUntil < 0) {
+                return false;
+            }
+            stats.setEjectedUntil(0);
+            stats.getConsecutiveFailures().set(0);
+            log.info("instance {} returned to load balancing", stats.getServiceInstanceId());
+            return true;
+        }
+    }
+
+    private void detectSuccessRate(InstanceSnapshot snapshot) {
+        int size = snapshot.size();
+        double[] rates = new double[size];
+        int hosts = 0;
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            InstanceStats stats = snapshot.getStats(i);
+            long requests = stats.getIntervalRequests().sumThenReset();
+            long successes = stats.getIntervalSuccesses().sumThenReset();
+            if (requests < successRateRequestVolume || stats.isEjected()) {
+                rates[i] = -1;
+                continue;
+            }
+            rates[i] = (double) successes / requests;
+            sum += rates[i];
+            hosts++;
+        }
+        if (hosts < successRateMinimumHosts) {
+            return;
+        }
+        double mean = sum / hosts;
+        double variance = 0;
+        for (double rate : rates) {
+            if (rate >= 0) {
+                variance += (rate - mean) * (rate - mean);
+            }
+        }
+        double threshold = mean - successRateStdevFactor * Math.sqrt(variance / hosts);
+        for (int i = 0; i < size; i++) {
+            if (rates[i] >= 0 && rates[i] < threshold) {
+                eject(snapshot, snapshot.getStats(i), "success rate " + rates[i] + " below " + threshold);
+            }
+        }
+    }
+
+    /**
+     * 摘除实例，摘除时长按摘除次数指数增长，同一服务被摘除的比例达到上限时不再摘除
+     */
+    private void eject(InstanceSnapshot snapshot, InstanceStats stats, String reason) {
+        synchronized (this) {
+            if (stats.isEjected()) {
+                return;
+            }
+            int ejected = 0;
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (snapshot.getStats(i).isEjected()) {
+                    ejected++;
+                }
+            }
+            if (ejected * 100L >= (long) maxEjectionPercent * snapshot.size()) {
+                log.debug("instance {} not ejected ({}), max ejection percent {} reached", stats.getServiceInstanceId(), reason, maxEjectionPercent);
+                return;
+            }
+            synchronized (stats) {
+                int ejectionCount = stats.getEjectionCount() + 1;
+                long ejectionTime = baseEjectionTime;
+                for (int n = 1; n < ejectionCount && ejectionTime < maxEjectionTime; n++) {
+                    ejectionTime <<= 1;
+                }
+                ejectionTime = Math.min(ejectionTime, maxEjectionTime);
+                stats.setEjectionCount(ejectionCount);
+                stats.setEjectedUntil(System.nanoTime() + ejectionTime);
+                log.warn("instance {} ejected for {}ms: {}", stats.getServiceInstanceId(), TimeUnit.NANOSECONDS.toMillis(ejectionTime), reason);
+            }
+        }
+        InstanceStatsManager.getInstance().availabilityChanged();
+    }
+}
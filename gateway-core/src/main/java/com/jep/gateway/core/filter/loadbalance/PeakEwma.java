@@ -0,0 +1,84 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.core.config.Config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 峰值敏感的指数加权移动平均延迟（Peak EWMA）
+ * 延迟升高时立即取峰值，回落时按指数衰减平滑，空闲时成本随时间衰减到0，让慢实例有机会重新被探测。
+ * 状态压缩在一个 long 中：高32位为约1毫秒精度的时间刻度，低32位为 float 类型的成本(纳秒)，通过 CAS 无锁更新。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 19:20
+ **/
+public class PeakEwma {
+
+    /**
+     * System.nanoTime 右移20位作为时间刻度，约1.05毫秒，int 回绕后按差值计算仍然正确
+     */
+    private static final int TICK_SHIFT = 20;
+
+    private static volatile double decayTicks = toTicks(TimeUnit.SECONDS.toNanos(10));
+
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 根据静态配置初始化衰减时间
+     */
+    public static void init(Config config) {
+        decayTicks = toTicks(TimeUnit.MILLISECONDS.toNanos(config.getPeakEwmaDecayTime()));
+    }
+
+    /**
+     * 记录一次下游调用耗时
+     */
+    public void observe(long rttNanos) {
+        float rtt = rttNanos;
+        int now = tick();
+        while (true) {
+            long prev = state.get();
+            float cost = Float.intBitsToFloat((int) prev);
+            float next;
+            if (prev == 0L || rtt > cost) {
+                next = rtt;
+            } else {
+                double w = weight(now, (int) (prev >>> 32));
+                next = (float) (cost * w + rtt * (1 - w));
+            }
+            if (state.compareAndSet(prev, encode(now, next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前成本(纳秒)，按距上次记录的时间衰减，只读不修改状态
+     */
+    public double getCost() {
+        long current = state.get();
+        if (current == 0L) {
+            return 0;
+        }
+        float cost = Float.intBitsToFloat((int) current);
+        return cost * weight(tick(), (int) (current >>> 32));
+    }
+
+    private static double weight(int now, int stamp) {
+        int elapsed = Math.max(now - stamp, 0);
+        return Math.exp(-elapsed / decayTicks);
+    }
+
+    private static long encode(int tick, float cost) {
+        return ((long) tick << 32) | (Float.floatToRawIntBits(cost) & 0xFFFFFFFFL);
+    }
+
+    private static int tick() {
+        return (int) (System.nanoTime() >>> TICK_SHIFT);
+    }
+
+    private static double toTicks(long nanos) {
+        return Math.max(1, nanos >>> TICK_SHIFT);
+    }
+}
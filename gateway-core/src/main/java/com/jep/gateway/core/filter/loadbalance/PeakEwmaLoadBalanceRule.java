@@ -0,0 +1,83 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.exception.NotFoundException;
+import com.jep.gateway.core.context.GatewayContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.jep.gateway.common.enums.ResponseCode.SERVICE_INSTANCE_NOT_FOUND;
+
+/**
+ * Peak EWMA 延迟感知负载均衡
+ * 随机取两个不同的实例，比较 延迟成本 × (在途请求数 + 1)，选择较小的一个。
+ * 因 GC 停顿等原因变慢的实例成本会立即升高，流量随之自动减少。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 19:40
+ **/
+@Slf4j
+public class PeakEwmaLoadBalanceRule implements LoadBalanceRule {
+
+    /**
+     * 尚无延迟样本但已有在途请求的实例的惩罚成本，避免新实例在第一个响应返回前被大量请求压垮
+     */
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final String serviceId;
+
+    public PeakEwmaLoadBalanceRule(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * 服务ID——Peak EWMA 负载均衡策略
+     */
+    private static final ConcurrentHashMap<String, PeakEwmaLoadBalanceRule> serviceMap = new ConcurrentHashMap<>();
+
+    public static PeakEwmaLoadBalanceRule getInstance(String serviceId) {
+        return serviceMap.computeIfAbsent(serviceId, PeakEwmaLoadBalanceRule::new);
+    }
+
+    @Override
+    public ServiceInstance choose(GatewayContext ctx) {
+        return choose(ctx.getUniqueId(), ctx.isGray());
+    }
+
+    @Override
+    public ServiceInstance choose(String serviceId, boolean gray) {
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
+        if (snapshot.isEmpty()) {
+            log.warn("No instance available for:{}", serviceId);
+            throw new NotFoundException(SERVICE_INSTANCE_NOT_FOUND);
+        }
+        int size = snapshot.availableSize();
+        if (size == 1) {
+            return snapshot.get(snapshot.availableIndex(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        first = snapshot.availableIndex(first);
+        second = snapshot.availableIndex(second);
+        return snapshot.get(load(snapshot, second) < load(snapshot, first) ? second : first);
+    }
+
+    /**
+     * 实例负载，预热中的实例按预热系数放大负载
+     */
+    private static double load(InstanceSnapshot snapshot, int index) {
+        InstanceStats stats = snapshot.getStats(index);
+        int inFlight = stats.getInFlight().get();
+        double cost = stats.getLatency().getCost();
+        if (cost == 0 && inFlight != 0) {
+            return (PENALTY + inFlight) / snapshot.getWarmupFactor(index);
+        }
+        return cost * (inFlight + 1) / snapshot.getWarmupFactor(index);
+    }
+}
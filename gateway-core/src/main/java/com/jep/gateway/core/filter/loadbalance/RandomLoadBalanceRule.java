@@ -1,16 +1,11 @@
 package com.jep.gateway.core.filter.loadbalance;
 
-import com.jep.gateway.common.config.DynamicConfigManager;
 import com.jep.gateway.common.config.ServiceInstance;
 import com.jep.gateway.core.context.GatewayContext;
 import lombok.extern.slf4j.Slf4j;
 import com.jep.gateway.common.exception.NotFoundException;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
 
 import static com.jep.gateway.common.enums.ResponseCode.SERVICE_INSTANCE_NOT_FOUND;
 
@@ -22,8 +17,6 @@ import static com.jep.gateway.common.enums.ResponseCode.SERVICE_INSTANCE_NOT_FOU
 public class RandomLoadBalanceRule implements LoadBalanceRule {
     private final String serviceId;
 
-    private Set<ServiceInstance> serviceInstanceSet;
-
     public RandomLoadBalanceRule(String serviceId) {
         this.serviceId = serviceId;
     }
@@ -60,14 +53,11 @@ public class RandomLoadBalanceRule implements LoadBalanceRule {
      */
     @Override
     public ServiceInstance choose(String serviceId, boolean gray) {
-        List<ServiceInstance> serviceInstances = DynamicConfigManager.getInstance().getServiceInstanceByServiceId(serviceId, gray);
-        if (serviceInstances.isEmpty()) {
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
+        if (snapshot.isEmpty()) {
             log.warn("No instance available for:{}", serviceId);
             throw new NotFoundException(SERVICE_INSTANCE_NOT_FOUND);
         }
-        List<ServiceInstance> instances = new ArrayList<ServiceInstance>(serviceInstances);
-        int index = ThreadLocalRandom.current().nextInt(instances.size());
-        ServiceInstance instance = (ServiceInstance) instances.get(index);
-        return instance;
+        return snapshot.random();
     }
 }
@@ -0,0 +1,66 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.exception.NotFoundException;
+import com.jep.gateway.core.context.GatewayContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jep.gateway.common.enums.ResponseCode.SERVICE_INSTANCE_NOT_FOUND;
+
+/**
+ * 一致性哈希（环哈希）负载均衡
+ * 每个实例按权重在哈希环上放置若干虚拟节点，请求按哈希键顺时针找到第一个虚拟节点；
+ * 实例上下线时只有相邻区间的键会迁移。哈希环缓存在实例快照上，见 {@link HashRing}，查找时通过分桶索引直接定位到环上的起点，期望 O(1)。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 21:20
+ **/
+@Slf4j
+public class RingHashLoadBalanceRule implements LoadBalanceRule {
+
+    private final String serviceId;
+
+    private final HashKeyExtractor keyExtractor;
+
+    public RingHashLoadBalanceRule(String serviceId, String hashKey) {
+        this.serviceId = serviceId;
+        this.keyExtractor = HashKeyExtractor.parse(hashKey);
+    }
+
+    /**
+     * 服务ID——哈希键——环哈希负载均衡策略
+     */
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, RingHashLoadBalanceRule>> serviceMap = new ConcurrentHashMap<>();
+
+    public static RingHashLoadBalanceRule getInstance(String serviceId, String hashKey) {
+        return serviceMap.computeIfAbsent(serviceId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(hashKey, key -> new RingHashLoadBalanceRule(serviceId, key));
+    }
+
+    @Override
+    public ServiceInstance choose(GatewayContext ctx) {
+        return choose(ctx.getUniqueId(), ctx.isGray(), keyExtractor.hash(ctx.getRequest()));
+    }
+
+    /**
+     * 没有请求上下文时无法取得哈希键，退化为随机选择
+     */
+    @Override
+    public ServiceInstance choose(String serviceId, boolean gray) {
+        return choose(serviceId, gray, HashKeyExtractor.NO_KEY);
+    }
+
+    private ServiceInstance choose(String serviceId, boolean gray, long hash) {
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
+        if (snapshot.isEmpty()) {
+            log.warn("No instance available for:{}", serviceId);
+            throw new NotFoundException(SERVICE_INSTANCE_NOT_FOUND);
+        }
+        if (hash == HashKeyExtractor.NO_KEY) {
+            return snapshot.random();
+        }
+        return snapshot.get(snapshot.getHashRing().lookup(hash));
+    }
+}
@@ -1,14 +1,10 @@
 package com.jep.gateway.core.filter.loadbalance;
 
-import com.jep.gateway.common.config.DynamicConfigManager;
 import com.jep.gateway.common.config.ServiceInstance;
 import com.jep.gateway.common.exception.NotFoundException;
 import com.jep.gateway.core.context.GatewayContext;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -47,18 +43,11 @@ public class RoundRobinLoadBalanceRule implements LoadBalanceRule {
 
     @Override
     public ServiceInstance choose(String serviceId, boolean gray) {
-        List<ServiceInstance> serviceInstances = DynamicConfigManager.getInstance().getServiceInstanceByServiceId(serviceId, gray);
-        if (serviceInstances.isEmpty()) {
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
+        if (snapshot.isEmpty()) {
             log.warn("No instance available for:{}", serviceId);
             throw new NotFoundException(SERVICE_INSTANCE_NOT_FOUND);
         }
-        List<ServiceInstance> instances = new ArrayList<ServiceInstance>(serviceInstances);
-        if (instances.isEmpty()) {
-            log.warn("No instance available for service:{}", serviceId);
-            return null;
-        } else {
-            int pos = Math.abs(this.position.incrementAndGet());
-            return instances.get(pos % instances.size());
-        }
+        return snapshot.roundRobin(this.position.incrementAndGet());
     }
 }
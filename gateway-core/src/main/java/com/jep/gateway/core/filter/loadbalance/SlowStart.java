@@ -0,0 +1,59 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.config.Config;
+
+/**
+ * 新实例慢启动（预热）
+ * 实例在注册后（没有注册时间时以网关首次发现该实例的时间为准）的预热窗口内，有效权重从最小比例线性增长到完整权重，
+ * 避免 JIT 尚未预热的新实例一上线就承担全部流量。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 23:20
+ **/
+public final class SlowStart {
+
+    /**
+     * 预热窗口内权重更新的步数，实例快照按步预先计算权重系数
+     */
+    static final int STEPS = 20;
+
+    private static volatile long window = 30 * 1000;
+
+    private static volatile double minFactor = 0.1;
+
+    private SlowStart() {
+    }
+
+    /**
+     * 根据静态配置初始化预热窗口和最小权重比例
+     */
+    public static void init(Config config) {
+        window = config.getSlowStartWindow();
+        minFactor = Math.min(1.0, Math.max(0.01, config.getSlowStartMinWeightPercent() / 100.0));
+    }
+
+    static long getWindow() {
+        return window;
+    }
+
+    /**
+     * 实例预热的开始时间(毫秒)，不需要预热时返回0
+     */
+    static long startTime(ServiceInstance instance, InstanceStats stats, long now) {
+        long start = instance.getRegisterTime() > 0 ? instance.getRegisterTime() : stats.getFirstSeenTime();
+        return start > 0 && now - start < window ? start : 0;
+    }
+
+    /**
+     * 预热权重系数，按步取整，预热结束返回1
+     */
+    static double factor(long start, long now) {
+        long elapsed = now - start;
+        if (start == 0 || elapsed >= window) {
+            return 1.0;
+        }
+        double progress = Math.floor(Math.max(0, elapsed) * (double) STEPS / window) / STEPS;
+        return Math.max(minFactor, progress);
+    }
+}
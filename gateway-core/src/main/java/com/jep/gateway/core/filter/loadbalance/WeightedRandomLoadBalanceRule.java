@@ -0,0 +1,51 @@
+package com.jep.gateway.core.filter.loadbalance;
+
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.exception.NotFoundException;
+import com.jep.gateway.core.context.GatewayContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jep.gateway.common.enums.ResponseCode.SERVICE_INSTANCE_NOT_FOUND;
+
+/**
+ * 加权随机负载均衡
+ * 使用实例快照中预先构建的别名表，每次选择只需一次下标随机和一次概率比较
+ *
+ * @author enping.jep
+ * @date 2026/10/19 20:40
+ **/
+@Slf4j
+public class WeightedRandomLoadBalanceRule implements LoadBalanceRule {
+
+    private final String serviceId;
+
+    public WeightedRandomLoadBalanceRule(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * 服务ID——加权随机负载均衡策略
+     */
+    private static final ConcurrentHashMap<String, WeightedRandomLoadBalanceRule> serviceMap = new ConcurrentHashMap<>();
+
+    public static WeightedRandomLoadBalanceRule getInstance(String serviceId) {
+        return serviceMap.computeIfAbsent(serviceId, WeightedRandomLoadBalanceRule::new);
+    }
+
+    @Override
+    public ServiceInstance choose(GatewayContext ctx) {
+        return choose(ctx.getUniqueId(), ctx.isGray());
+    }
+
+    @Override
+    public ServiceInstance choose(String serviceId, boolean gray) {
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
+        if (snapshot.isEmpty()) {
+            log.warn("No instance available for:{}", serviceId);
+            throw new NotFoundException(SERVICE_INSTANCE_NOT_FOUND);
+        }
+        return snapshot.weightedRandom();
+    }
+}
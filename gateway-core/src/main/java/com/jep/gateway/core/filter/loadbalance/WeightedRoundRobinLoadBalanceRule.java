@@ -1,23 +1,18 @@
 package com.jep.gateway.core.filter.loadbalance;
 
-import com.jep.gateway.common.config.DynamicConfigManager;
-import com.jep.gateway.common.config.Rule;
 import com.jep.gateway.common.config.ServiceInstance;
 import com.jep.gateway.common.enums.ResponseCode;
 import com.jep.gateway.common.exception.ResponseException;
 import com.jep.gateway.core.context.GatewayContext;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections.CollectionUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 加权轮询负载均衡规则实现类
- * 基于权重的轮询算法，权重越高的服务实例被选中的概率越大
+ * 基于权重的平滑轮询算法，权重越高的服务实例被选中的次数越多，且均匀穿插在其他实例之间
+ * 调度表在实例快照构建时预先计算，见 {@link InstanceSnapshot}
  *
  * @author enping.jep
  * @date 2025/1/31 21:32
@@ -74,8 +69,7 @@ public class WeightedRoundRobinLoadBalanceRule implements LoadBalanceRule {
      */
     @Override
     public ServiceInstance choose(GatewayContext ctx) {
-        Rule rule = ctx.getRule();
-        return choose(rule.getServiceId(), ctx.isGray());
+        return choose(ctx.getUniqueId(), ctx.isGray());
     }
 
     /**
@@ -89,34 +83,14 @@ public class WeightedRoundRobinLoadBalanceRule implements LoadBalanceRule {
      */
     @Override
     public ServiceInstance choose(String serviceId, boolean gray) {
-        // 获取服务实例集合
-        List<ServiceInstance> serviceSets = DynamicConfigManager.getInstance().getServiceInstanceByServiceId(serviceId, gray);
+        // 获取服务实例快照
+        InstanceSnapshot snapshot = InstanceSnapshotManager.getInstance().getSnapshot(serviceId, gray);
         // 如果服务实例集合为空，则抛出异常
-        if (CollectionUtils.isEmpty(serviceSets)) {
+        if (snapshot.isEmpty()) {
             log.warn("serviceId {} don't match any serviceInstance", serviceId);
             throw new ResponseException(ResponseCode.SERVICE_INVOKER_NOT_FOUND);
         }
-        // 将服务实例集合转换为列表
-        List<ServiceInstance> serviceLists = new ArrayList<>(serviceSets);
-
-        // 计算所有服务实例的权重总和
-        int totalWeight = serviceLists.stream().mapToInt(ServiceInstance::getWeight).sum();
-        int currentWeight = 0;
-
-        // 计算当前位置（通过原子递增确保线程安全，并对总权重取模避免越界）
-        int index = position.getAndIncrement() % totalWeight;
-
-        // 遍历服务实例列表，根据权重和当前位置选择服务实例
-        // 权重越大的实例被选中的概率越高
-        for (ServiceInstance instance : serviceLists) {
-            currentWeight += instance.getWeight();
-            // 当累计权重超过当前位置索引时，选中当前实例
-            if (currentWeight > index) {
-                return instance;
-            }
-        }
-
-        // 正常情况下不会执行到这里，作为兜底策略返回列表中的第一个实例
-        return serviceLists.get(0);
+        // 按原子递增的位置读取预先计算的调度表，位置溢出为负数时仍取到合法下标
+        return snapshot.weightedRoundRobin(position.getAndIncrement());
     }
 }
\ No newline at end of file
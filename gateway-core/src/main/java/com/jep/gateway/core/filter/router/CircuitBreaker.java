@@ -0,0 +1,145 @@
+package com.jep.gateway.core.filter.router;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的滑动窗口熔断器
+ * 窗口分为 10 个环形桶，每个桶的请求数和失败数压缩在一个 long 中(高32位失败数，低32位请求数)，记录只有一次原子加。
+ * 关闭状态下窗口内请求数达到下限并且失败率达到阈值时打开；打开一段时间后放行一个探测请求(半开)，
+ * 探测成功则关闭并清空窗口，失败则重新打开。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 13:20
+ **/
+public final class CircuitBreaker {
+
+    /**
+     * 拒绝请求
+     */
+    public static final int REJECTED = 0;
+
+    /**
+     * 正常放行
+     */
+    public static final int PERMITTED = 1;
+
+    /**
+     * 半开状态下放行的探测请求
+     */
+    public static final int PROBE = 2;
+
+    private static final int CLOSED = 0;
+
+    private static final int OPEN = 1;
+
+    private static final int HALF_OPEN = 2;
+
+    private static final int BUCKETS = 10;
+
+    private static final long FAILURE = (1L << 32) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * 每个桶对应的时间段序号，与当前序号不同时桶已过期
+     */
+    private final AtomicLongArray epochs = new AtomicLongArray(BUCKETS);
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+
+    private final long bucketNanos;
+
+    private final long openNanos;
+
+    private final int failureRateThreshold;
+
+    private final int minimumRequests;
+
+    private volatile long openUntil;
+
+    public CircuitBreaker(int windowInMilliseconds, int openInMilliseconds, int failureRateThreshold, int minimumRequests) {
+        this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowInMilliseconds) / BUCKETS);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openInMilliseconds);
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = Math.max(1, minimumRequests);
+    }
+
+    /**
+     * 请求前调用：关闭时放行；打开超过熔断时间后只放行一个探测请求；其余情况拒绝
+     *
+     * @return {@link #REJECTED}、{@link #PERMITTED} 或 {@link #PROBE}
+     */
+    public int tryAcquire() {
+        int current = state.get();
+        if (current == CLOSED) {
+            return PERMITTED;
+        }
+        if (current == OPEN && System.nanoTime() - openUntil >= 0 && state.compareAndSet(OPEN, HALF_OPEN)) {
+            return PROBE;
+        }
+        return REJECTED;
+    }
+
+    /**
+     * 请求完成后调用
+     *
+     * @param permit  {@link #tryAcquire()} 的返回值
+     * @param success 是否成功
+     */
+    public void onComplete(int permit, boolean success) {
+        if (permit == PROBE) {
+            if (success) {
+                reset();
+                state.set(CLOSED);
+            } else {
+                open();
+            }
+            return;
+        }
+        long epoch = System.nanoTime() / bucketNanos;
+        int index = (int) Math.floorMod(epoch, BUCKETS);
+        long bucketEpoch = epochs.get(index);
+        if (bucketEpoch != epoch && epochs.compareAndSet(index, bucketEpoch, epoch)) {
+            // 重置过期桶与并发的记录存在竞争，最多丢失个别样本
+            counts.set(index, 0);
+        }
+        counts.addAndGet(index, success ? 1 : FAILURE);
+        if (!success && state.get() == CLOSED && isFailureRateExceeded(epoch)) {
+            open();
+        }
+    }
+
+    public boolean isOpen() {
+        return state.get() != CLOSED;
+    }
+
+    private boolean isFailureRateExceeded(long epoch) {
+        long requests = 0;
+        long failures = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epoch - epochs.get(i) < BUCKETS) {
+                long count = counts.get(i);
+                requests += count & 0xFFFFFFFFL;
+                failures += count >>> 32;
+            }
+        }
+        return requests >= minimumRequests && failures * 100 >= requests * failureRateThreshold;
+    }
+
+    /**
+     * 先写打开截止时间再发布状态，其他线程看到打开状态时截止时间已可见
+     */
+    private void open() {
+        openUntil = System.nanoTime() + openNanos;
+        state.set(OPEN);
+    }
+
+    private void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            epochs.set(i, 0);
+            counts.set(i, 0);
+        }
+    }
+}
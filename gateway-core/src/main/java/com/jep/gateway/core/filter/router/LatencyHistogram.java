@@ -0,0 +1,143 @@
+package com.jep.gateway.core.filter.router;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滚动窗口的延迟直方图，用于计算路由延迟的百分位数
+ * 以微秒为单位，每个 2 的幂区间分为 4 个子桶，相对误差不超过 25%，最大约 268 秒。
+ * 当前窗口持续至少 1 秒并且样本足够时滚动，百分位数只从上一个完整窗口计算，记录只有一次原子自增。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 10:45
+ **/
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 27;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) << SUB_BUCKET_BITS;
+
+    /**
+     * 一个窗口至少的样本数，样本不足时窗口延长
+     */
+    private static final long MIN_SAMPLES = 100;
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    /**
+     * 上一个完整窗口，没有时为空
+     */
+    private volatile Window last;
+
+    /**
+     * 记录一次延迟
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(index(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        if (samples.incrementAndGet() < MIN_SAMPLES) {
+            return;
+        }
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start >= WINDOW && windowStart.compareAndSet(start, now)) {
+            rotate();
+        }
+    }
+
+    /**
+     * 上一个完整窗口的百分位数(纳秒)，取所在桶的上界；还没有完整窗口时返回 -1
+     *
+     * @param percentile 百分位数，如 95、99
+     */
+    public long quantile(double percentile) {
+        Window window = last;
+        return window == null ? -1 : window.quantile(percentile);
+    }
+
+    private void rotate() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.getAndSet(i, 0);
+            total += snapshot[i];
+        }
+        // 与并发的记录存在竞争，个别样本会被计入下一个窗口，不影响百分位数
+        samples.set(0);
+        last = new Window(snapshot, total);
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    /**
+     * 桶的上界(微秒)
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lower + (1L << shift);
+    }
+
+    /**
+     * 一个完整窗口的计数，最近一次计算的百分位数被缓存
+     */
+    private static final class Window {
+
+        private final long[] counts;
+
+        private final long total;
+
+        private long cachedNanos;
+
+        private volatile double cachedPercentile = -1;
+
+        Window(long[] counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        long quantile(double percentile) {
+            // 先写结果再写百分位数，读到相同的百分位数时结果已可见
+            if (cachedPercentile == percentile) {
+                return cachedNanos;
+            }
+            long rank = (long) Math.ceil(total * Math.min(percentile, 100) / 100);
+            long seen = 0;
+            int index = BUCKETS - 1;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    index = i;
+                    break;
+                }
+            }
+            long nanos = TimeUnit.MICROSECONDS.toNanos(upperBound(index));
+            cachedNanos = nanos;
+            cachedPercentile = percentile;
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.jep.gateway.core.filter.router;
+
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.netty.GatewayTimer;
+import com.jep.gateway.core.request.GatewayRequest;
+import com.jep.gateway.core.upstream.UpstreamResponse;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 请求合并(single-flight)
+ * 配置了合并的路由上，同时到达的相同 GET 请求只有第一个(领头请求)发往下游，之后的请求加入等待，
+ * 下游响应后所有请求共享同一个响应体(retainedDuplicate，各自释放)，响应头每个请求复制一份。
+ * <p>
+ * 1.在途表按请求键索引，下游调用完成时先移除表项，之后到达的请求发起新的调用，不会拿到过期的响应；
+ * 2.等待的请求在各自客户端连接的 EventLoop 上完成；下游失败时所有请求收到同一个异常，再各自按重试策略处理；
+ * 3.流式响应无法共享，等待的请求各自重新发起下游调用；
+ * 4.等待的请求被取消(熔断超时)或超过请求截止时间时只退出等待，所有请求都退出后才取消下游调用；
+ * 5.领头请求发起下游调用时抛出异常，表项立即移除，已经加入的请求以同一个异常完成；
+ * 6.请求携带凭证请求头(Authorization、Cookie)而请求键没有包含时不合并，按用户返回的响应不会被其他用户共享。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 16:30
+ **/
+public class RequestCoalescer {
+
+    private static class SingletonHolder {
+        private static final RequestCoalescer INSTANCE = new RequestCoalescer();
+    }
+
+    public static RequestCoalescer getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 凭证请求头，未列入请求键时携带它们的请求不合并
+     */
+    private static final String[] CREDENTIAL_HEADERS = {HttpHeaderNames.AUTHORIZATION.toString(), HttpHeaderNames.COOKIE.toString()};
+
+    /**
+     * 请求键 —> 在途的下游调用
+     */
+    private final ConcurrentHashMap<String, InFlight> inFlights = new ConcurrentHashMap<>();
+
+    private RequestCoalescer() {
+    }
+
+    /**
+     * 请求是否可以合并：路由配置了合并、GET 请求、没有请求体、不是重试，且携带的凭证请求头都在请求键中
+     */
+    public boolean isCoalescable(GatewayContext ctx) {
+        Rule.CoalesceConfig config = ctx.getRule().getCoalesceConfig();
+        GatewayRequest request = ctx.getRequest();
+        return config != null && ctx.getCurrentRetryTimes() == 0 && HttpMethod.GET.equals(request.getMethod())
+                && !request.getFullHttpRequest().content().isReadable() && !hasUnkeyedCredential(config, request);
+    }
+
+    private static boolean hasUnkeyedCredential(Rule.CoalesceConfig config, GatewayRequest request) {
+        List<String> headers = config.getHeaders();
+        for (String credential : CREDENTIAL_HEADERS) {
+            if (request.getHeaders().contains(credential) && !containsIgnoreCase(headers, credential)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsIgnoreCase(List<String> headers, String name) {
+        if (headers != null) {
+            for (String header : headers) {
+                if (name.equalsIgnoreCase(header)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 加入相同请求的在途调用，没有时由当前请求发起
+     *
+     * @param ctx  网关上下文
+     * @param call 发起下游调用，只有领头请求和流式响应后重新发起的请求会调用
+     * @return 下游响应，每个请求持有各自的响应体引用
+     */
+    public CompletableFuture<UpstreamResponse> coalesce(GatewayContext ctx, Function<GatewayContext, CompletableFuture<UpstreamResponse>> call) {
+        String key = key(ctx);
+        Waiter waiter = new Waiter(ctx, call);
+        while (true) {
+            InFlight inFlight = inFlights.get(key);
+            if (inFlight == null) {
+                InFlight created = new InFlight(key, waiter);
+                inFlight = inFlights.putIfAbsent(key, created);
+                if (inFlight == null) {
+                    CompletableFuture<UpstreamResponse> upstream;
+                    try {
+                        upstream = call.apply(ctx);
+                    } catch (RuntimeException e) {
+                        // 下游调用没有发起，已经加入的请求不能一直等待
+                        created.abort(e);
+                        throw e;
+                    }
+                    created.start(upstream);
+                    return waiter;
+                }
+            }
+            if (inFlight.join(waiter)) {
+                ctx.setCoalesced(true);
+                return waiter;
+            }
+            // 调用已经完成，表项即将移除
+            inFlights.remove(key, inFlight);
+        }
+    }
+
+    /**
+     * 请求键：规则、服务、请求路径(含查询参数)、userId 和配置的请求头，不包含负载均衡选定的实例
+     */
+    private static String key(GatewayContext ctx) {
+        GatewayRequest request = ctx.getRequest();
+        String uri = request.getUri();
+        int query = uri.indexOf('?');
+        StringBuilder key = new StringBuilder(128)
+                .append(ctx.getRule().getId()).append(' ')
+                .append(ctx.getUniqueId()).append(' ')
+                .append(request.getModifyPath());
+        if (query >= 0) {
+            key.append(uri, query, uri.length());
+        }
+        key.append(' ').append(request.getUserId());
+        List<String> headers = ctx.getRule().getCoalesceConfig().getHeaders();
+        if (headers != null) {
+            for (String name : headers) {
+                // 请求头值不会包含换行，用换行分隔避免不同请求头拼接后相同
+                key.append('\n').append(name).append(':');
+                List<String> values = request.getHeaders().getAll(name);
+                for (int i = 0; i < values.size(); i++) {
+                    key.append(i == 0 ? "" : ",").append(values.get(i));
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 一次在途的下游调用及其等待的请求，状态通过对象锁保护，完成和取消在锁外执行
+     */
+    private final class InFlight {
+
+        private final String key;
+
+        private final List<Waiter> waiters = new ArrayList<>(4);
+
+        private CompletableFuture<UpstreamResponse> upstream;
+
+        /**
+         * 下游调用已经完成或已经取消，不再接受新的请求
+         */
+        private boolean closed;
+
+        InFlight(String key, Waiter leader) {
+            this.key = key;
+            this.waiters.add(leader);
+            leader.inFlight = this;
+        }
+
+        void start(CompletableFuture<UpstreamResponse> upstream) {
+            boolean cancelled;
+            synchronized (this) {
+                this.upstream = upstream;
+                cancelled = closed;
+            }
+            if (cancelled) {
+                upstream.cancel(false);
+                return;
+            }
+            upstream.whenComplete(this::onComplete);
+        }
+
+        /**
+         * 领头请求发起下游调用失败：关闭并移除表项，所有等待的请求以同一个异常完成
+         */
+        void abort(Throwable cause) {
+            List<Waiter> failed;
+            synchronized (this) {
+                closed = true;
+                failed = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            inFlights.remove(key, this);
+            for (Waiter waiter : failed) {
+                waiter.fail(cause);
+            }
+        }
+
+        synchronized boolean join(Waiter waiter) {
+            if (closed) {
+                return false;
+            }
+            waiters.add(waiter);
+            waiter.inFlight = this;
+            return true;
+        }
+
+        /**
+         * 请求退出等待，最后一个请求退出时取消下游调用
+         */
+        void leave(Waiter waiter) {
+            CompletableFuture<UpstreamResponse> cancel = null;
+            synchronized (this) {
+                if (closed || !waiters.remove(waiter) || !waiters.isEmpty()) {
+                    return;
+                }
+                closed = true;
+                cancel = upstream;
+            }
+            inFlights.remove(key, this);
+            if (cancel != null) {
+                cancel.cancel(false);
+            }
+        }
+
+        /**
+         * 先为等待的请求复制响应，最后把原始响应交给第一个请求，复制时原始响应的读索引还没有移动
+         */
+        private void onComplete(UpstreamResponse response, Throwable throwable) {
+            List<Waiter> completed;
+            synchronized (this) {
+                closed = true;
+                completed = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            inFlights.remove(key, this);
+            if (completed.isEmpty()) {
+                if (response != null) {
+                    response.release();
+                }
+                return;
+            }
+            if (throwable != null) {
+                for (Waiter waiter : completed) {
+                    waiter.fail(throwable);
+                }
+                return;
+            }
+            if (response.isStreaming()) {
+                completed.get(0).succeed(response);
+                for (int i = 1; i < completed.size(); i++) {
+                    completed.get(i).retry();
+                }
+                return;
+            }
+            for (int i = 1; i < completed.size(); i++) {
+                completed.get(i).succeed(new UpstreamResponse(response.getStatusCode(),
+                        response.getHeaders().copy(), response.getContent().retainedDuplicate()));
+            }
+            completed.get(0).succeed(response);
+        }
+    }
+
+    /**
+     * 一个请求的等待结果，在请求所在客户端连接的 EventLoop 上完成
+     * 等待不超过请求的剩余超时时间，超时后退出等待，不依赖领头请求的下游调用一定完成
+     */
+    private static final class Waiter extends CompletableFuture<UpstreamResponse> {
+
+        private final GatewayContext ctx;
+
+        private final EventLoop eventLoop;
+
+        private final Function<GatewayContext, CompletableFuture<UpstreamResponse>> call;
+
+        private volatile InFlight inFlight;
+
+        private final Timeout timeout;
+
+        Waiter(GatewayContext ctx, Function<GatewayContext, CompletableFuture<UpstreamResponse>> call) {
+            this.ctx = ctx;
+            this.eventLoop = ctx.getNettyContext().channel().eventLoop();
+            this.call = call;
+            long timeoutMillis = ctx.getRemainingTimeout(ConfigLoader.getConfig().getHttpRequestTimeout());
+            this.timeout = GatewayTimer.getInstance().newTimeout(() -> eventLoop.execute(this::expire), timeoutMillis);
+        }
+
+        @Override
+        public boolean complete(UpstreamResponse value) {
+            boolean completed = super.complete(value);
+            if (completed) {
+                timeout.cancel();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completed = super.completeExceptionally(ex);
+            if (completed) {
+                timeout.cancel();
+            }
+            return completed;
+        }
+
+        /**
+         * 超过请求截止时间仍未拿到响应，按超时处理并退出等待
+         */
+        private void expire() {
+            if (completeExceptionally(new TimeoutException("coalesced request timeout")) && inFlight != null) {
+                inFlight.leave(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                timeout.cancel();
+            }
+            if (cancelled && inFlight != null) {
+                inFlight.leave(this);
+            }
+            return cancelled;
+        }
+
+        void succeed(UpstreamResponse response) {
+            if (eventLoop.inEventLoop()) {
+                if (!complete(response)) {
+                    response.release();
+                }
+            } else {
+                eventLoop.execute(() -> succeed(response));
+            }
+        }
+
+        void fail(Throwable throwable) {
+            if (eventLoop.inEventLoop()) {
+                completeExceptionally(throwable);
+            } else {
+                eventLoop.execute(() -> fail(throwable));
+            }
+        }
+
+        /**
+         * 领头请求拿到的是流式响应，当前请求重新发起下游调用
+         */
+        void retry() {
+            if (!eventLoop.inEventLoop()) {
+                eventLoop.execute(this::retry);
+                return;
+            }
+            if (isDone()) {
+                return;
+            }
+            CompletableFuture<UpstreamResponse> own;
+            try {
+                own = call.apply(ctx);
+            } catch (RuntimeException e) {
+                completeExceptionally(e);
+                return;
+            }
+            own.whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    completeExceptionally(throwable);
+                } else if (!complete(response)) {
+                    response.release();
+                }
+            });
+            // 重新发起后被取消或超时时取消自己的下游调用
+            whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    own.cancel(false);
+                }
+            });
+        }
+    }
+}
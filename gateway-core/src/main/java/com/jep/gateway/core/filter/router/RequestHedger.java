@@ -0,0 +1,289 @@
+package com.jep.gateway.core.filter.router;
+
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.filter.loadbalance.InstanceSnapshotManager;
+import com.jep.gateway.core.filter.loadbalance.InstanceStats;
+import com.jep.gateway.core.filter.loadbalance.InstanceStatsManager;
+import com.jep.gateway.core.filter.loadbalance.OutlierDetector;
+import com.jep.gateway.core.helper.UpstreamHelper;
+import com.jep.gateway.core.jfr.GatewayEvents;
+import com.jep.gateway.core.upstream.UpstreamResponse;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求对冲
+ * 幂等请求在该路由下游延迟的百分位数内没有响应时，向另一个实例再发一次请求，使用先返回的成功响应并取消另一个请求。
+ * 对冲延迟按路由(规则ID)统计，对冲请求受令牌预算限制，下游整体变慢时预算耗尽，对冲不会进一步放大负载。
+ * <p>
+ * 上下文中的实例始终是最终采用的那次请求的实例，由 RouterFilter 回调时更新其统计；
+ * 被取消或先失败的另一次请求的实例统计在这里更新。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 11:10
+ **/
+@Slf4j
+public class RequestHedger {
+
+    /**
+     * 预算允许突发的对冲请求数
+     */
+    private static final int MAX_BURST = 10;
+
+    private static class SingletonHolder {
+        private static final RequestHedger INSTANCE = new RequestHedger();
+    }
+
+    public static RequestHedger getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 规则ID —> 路由的延迟统计与对冲预算
+     */
+    private final ConcurrentHashMap<String, RouteHedge> routeMap = new ConcurrentHashMap<>();
+
+    private RequestHedger() {
+    }
+
+    /**
+     * 为已发出的请求安排对冲，返回先完成的响应；不满足对冲条件时直接返回原请求的 future
+     *
+     * @param ctx     网关上下文
+     * @param primary 发往负载均衡所选实例的请求
+     */
+    public CompletableFuture<UpstreamResponse> hedge(GatewayContext ctx, CompletableFuture<UpstreamResponse> primary) {
+        Rule rule = ctx.getRule();
+        Rule.HedgeConfig config = rule.getHedgeConfig();
+        if (config == null || ctx.getServiceInstance() == null || !ctx.getRequest().isIdempotent() || primary.isDone()) {
+            return primary;
+        }
+        RouteHedge route = routeMap.computeIfAbsent(rule.getId(), id -> new RouteHedge());
+        route.budget.deposit(config.getBudgetPercent() / 100);
+        long delay = route.delay(config);
+        HedgedResponse hedged = new HedgedResponse(ctx, route, primary, delay);
+        // 先安排定时器，原请求在注册回调时已完成的话回调中可以直接取消定时器
+        hedged.timer = ctx.getNettyContext().channel().eventLoop().schedule(hedged::fire, delay, TimeUnit.NANOSECONDS);
+        primary.whenComplete(hedged::onPrimary);
+        return hedged;
+    }
+
+    /**
+     * 单个路由的延迟统计与对冲预算
+     */
+    private static final class RouteHedge {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final TokenBudget budget = new TokenBudget(MAX_BURST);
+
+        /**
+         * 对冲延迟(纳秒)：延迟样本足够时取百分位数，否则使用配置的固定延迟，都不低于下限
+         */
+        long delay(Rule.HedgeConfig config) {
+            long quantile = latency.quantile(config.getPercentile());
+            long delay = quantile < 0 ? TimeUnit.MILLISECONDS.toNanos(config.getDelay()) : quantile;
+            return Math.max(delay, TimeUnit.MILLISECONDS.toNanos(config.getMinDelay()));
+        }
+    }
+
+    /**
+     * 一次对冲请求的结果：第一个成功的响应胜出，两次都失败时使用后失败的异常
+     * 状态在两个请求的回调线程和定时器线程之间共享，通过对象锁保护，完成和取消在锁外执行
+     */
+    private static final class HedgedResponse extends CompletableFuture<UpstreamResponse> {
+
+        private final GatewayContext ctx;
+
+        private final RouteHedge route;
+
+        private final CompletableFuture<UpstreamResponse> primary;
+
+        private final InstanceStats primaryStats;
+
+        private final long primaryStart;
+
+        private final long delay;
+
+        private ScheduledFuture<?> timer;
+
+        private CompletableFuture<UpstreamResponse> hedge;
+
+        private ServiceInstance hedgeInstance;
+
+        private InstanceStats hedgeStats;
+
+        private long hedgeStart;
+
+        private boolean primaryFailed;
+
+        private boolean hedgeFailed;
+
+        private boolean decided;
+
+        HedgedResponse(GatewayContext ctx, RouteHedge route, CompletableFuture<UpstreamResponse> primary, long delay) {
+            this.ctx = ctx;
+            this.route = route;
+            this.primary = primary;
+            this.primaryStats = InstanceStatsManager.getInstance().getStats(ctx.getServiceInstance().getServiceInstanceId());
+            this.primaryStart = ctx.getUpstreamStartTime();
+            this.delay = delay;
+        }
+
+        /**
+         * 对冲延迟到期，原请求仍未完成时向另一个实例发出对冲请求
+         */
+        void fire() {
+            CompletableFuture<UpstreamResponse> future;
+            synchronized (this) {
+                if (decided || primaryFailed) {
+                    return;
+                }
+                ServiceInstance instance = InstanceSnapshotManager.getInstance().getSnapshot(ctx.getUniqueId(), ctx.isGray())
+                        .randomExcept(Set.of(primaryStats.getServiceInstanceId()));
+                if (instance == null || !route.budget.tryAcquire()) {
+                    return;
+                }
+                String host = instance.getIp() + ":" + instance.getPort();
+                InstanceStats stats = InstanceStatsManager.getInstance().getStats(instance.getServiceInstanceId());
+                stats.getChosen().increment();
+                stats.getInFlight().incrementAndGet();
+                GatewayEvents.hedge(ctx, host, delay);
+                hedgeStart = System.nanoTime();
+                try {
+                    future = UpstreamHelper.getInstance().execute(ctx, host);
+                } catch (RuntimeException e) {
+                    stats.getInFlight().decrementAndGet();
+                    log.warn("hedge request to {} failed", host, e);
+                    return;
+                }
+                hedgeInstance = instance;
+                hedgeStats = stats;
+                hedge = future;
+            }
+            future.whenComplete(this::onHedge);
+        }
+
+        private void onPrimary(UpstreamResponse response, Throwable throwable) {
+            CompletableFuture<UpstreamResponse> loser = null;
+            synchronized (this) {
+                if (decided) {
+                    discard(response);
+                    return;
+                }
+                if (throwable == null) {
+                    decided = true;
+                    route.latency.record(System.nanoTime() - primaryStart);
+                    if (hedge != null && !hedgeFailed) {
+                        hedgeStats.getInFlight().decrementAndGet();
+                        loser = hedge;
+                    }
+                } else if (hedge != null && !hedgeFailed) {
+                    // 对冲请求还在进行，原请求的失败计入原实例，等待对冲请求的结果
+                    primaryFailed = true;
+                    settleFailure(primaryStats);
+                    ctx.addTriedInstance(primaryStats.getServiceInstanceId());
+                    switchToHedge();
+                    return;
+                } else {
+                    decided = true;
+                }
+            }
+            timer.cancel(false);
+            if (loser != null) {
+                loser.cancel(false);
+            }
+            finish(response, throwable);
+        }
+
+        private void onHedge(UpstreamResponse response, Throwable throwable) {
+            CompletableFuture<UpstreamResponse> loser = null;
+            synchronized (this) {
+                if (decided) {
+                    discard(response);
+                    return;
+                }
+                if (throwable == null) {
+                    decided = true;
+                    route.latency.record(System.nanoTime() - hedgeStart);
+                    if (!primaryFailed) {
+                        primaryStats.getInFlight().decrementAndGet();
+                        loser = primary;
+                        switchToHedge();
+                    }
+                } else if (!primaryFailed) {
+                    // 原请求还在进行，对冲请求的失败计入对冲实例，等待原请求的结果
+                    hedgeFailed = true;
+                    settleFailure(hedgeStats);
+                    ctx.addTriedInstance(hedgeStats.getServiceInstanceId());
+                    return;
+                } else {
+                    decided = true;
+                }
+            }
+            if (loser != null) {
+                loser.cancel(false);
+            }
+            finish(response, throwable);
+        }
+
+        /**
+         * 熔断超时取消时同时取消两次请求，对冲请求的实例统计在这里结算，原请求的由 RouterFilter 回调结算
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            CompletableFuture<UpstreamResponse> running;
+            synchronized (this) {
+                if (decided) {
+                    return false;
+                }
+                decided = true;
+                running = hedgeFailed ? null : hedge;
+                if (running != null && !primaryFailed) {
+                    hedgeStats.getInFlight().decrementAndGet();
+                }
+            }
+            timer.cancel(false);
+            primary.cancel(false);
+            if (running != null) {
+                running.cancel(false);
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        /**
+         * 上下文切换到对冲请求的实例，RouterFilter 回调时按该实例更新统计和记录日志
+         */
+        private void switchToHedge() {
+            ctx.setServiceInstance(hedgeInstance);
+            ctx.setUpstreamStartTime(hedgeStart);
+            ctx.getRequest().setModifyHost(hedgeInstance.getIp() + ":" + hedgeInstance.getPort());
+        }
+
+        private void settleFailure(InstanceStats stats) {
+            stats.getInFlight().decrementAndGet();
+            OutlierDetector.getInstance().record(ctx.getUniqueId(), stats, false);
+        }
+
+        private void finish(UpstreamResponse response, Throwable throwable) {
+            if (throwable != null) {
+                completeExceptionally(throwable);
+            } else {
+                complete(response);
+            }
+        }
+
+        private static void discard(UpstreamResponse response) {
+            if (response != null) {
+                response.release();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.jep.gateway.core.filter.router;
 
 
 import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceInstance;
 import com.jep.gateway.common.enums.ResponseCode;
 import com.jep.gateway.common.exception.ConnectException;
 import com.jep.gateway.common.exception.ResponseException;
@@ -10,19 +11,26 @@ import com.jep.gateway.core.context.ContextStatus;
 import com.jep.gateway.core.context.GatewayContext;
 import com.jep.gateway.core.filter.Filter;
 import com.jep.gateway.core.filter.annotation.FilterAspect;
-import com.jep.gateway.core.helper.AsyncHttpHelper;
+import com.jep.gateway.core.filter.loadbalance.InstanceStats;
+import com.jep.gateway.core.filter.loadbalance.InstanceStatsManager;
+import com.jep.gateway.core.filter.loadbalance.OutlierDetector;
 import com.jep.gateway.core.helper.ResponseHelper;
+import com.jep.gateway.core.helper.UpstreamHelper;
+import com.jep.gateway.core.jfr.GatewayEvents;
+import com.jep.gateway.core.netty.GatewayTimer;
 import com.jep.gateway.core.response.GatewayResponse;
-import com.netflix.hystrix.*;
+import com.jep.gateway.core.upstream.UpstreamResponse;
+import io.netty.channel.EventLoop;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.asynchttpclient.Request;
-import org.asynchttpclient.Response;
 
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 
@@ -50,9 +58,9 @@ public class RouterFilter implements Filter {
         Optional<Rule.HystrixConfig> hystrixConfig = getHystrixConfig(gatewayContext);
         //如果存在对应配置就走熔断降级的逻辑
         if (hystrixConfig.isPresent()) {
-            routeWithHystrix(gatewayContext, hystrixConfig);
+            routeWithCircuitBreaker(gatewayContext, hystrixConfig.get());
         } else {
-            route(gatewayContext, hystrixConfig);
+            route(gatewayContext, null);
         }
 
     }
@@ -73,27 +81,35 @@ public class RouterFilter implements Filter {
      * whenComplete 		当异步操作完成时（无论成功还是失败），会立即执行回调函数
      * whenCompleteAsync 	当异步操作完成时，会创建一个新的异步任务来执行回调函数
      */
-    private CompletableFuture<Response> route(GatewayContext gatewayContext, Optional<Rule.HystrixConfig> hystrixConfig) {
+    private CompletableFuture<UpstreamResponse> route(GatewayContext gatewayContext, RouteGuard.Permit permit) {
         log.info("request id : {}", gatewayContext.getRequest().getId());
         // 执行 HTTP 请求，并返回一个 CompletableFuture 对象
-        Request request = gatewayContext.getRequest().build();
-        CompletableFuture<Response> future = AsyncHttpHelper.getInstance().executeRequest(request);
+        UpstreamRetrier.getInstance().onRequest(gatewayContext);
+        gatewayContext.setUpstreamStartTime(System.nanoTime());
+        // 配置了合并的路由上，同时到达的相同 GET 请求共享一次下游调用
+        RequestCoalescer coalescer = RequestCoalescer.getInstance();
+        CompletableFuture<UpstreamResponse> future = coalescer.isCoalescable(gatewayContext)
+                ? coalescer.coalesce(gatewayContext, RouterFilter::callUpstream)
+                : callUpstream(gatewayContext);
+        if (permit != null) {
+            scheduleTimeout(gatewayContext, future, permit);
+        }
 
         boolean whenComplete = ConfigLoader.getConfig().isWhenComplete();
 
         // 单异步/双异步模型
         if (whenComplete) {
-            future.whenComplete(new BiConsumer<Response, Throwable>() {
+            future.whenComplete(new BiConsumer<UpstreamResponse, Throwable>() {
                 @Override
-                public void accept(Response response, Throwable throwable) {
-                    complete(request, response, throwable, gatewayContext, hystrixConfig);
+                public void accept(UpstreamResponse response, Throwable throwable) {
+                    complete(response, throwable, gatewayContext, permit);
                 }
             });
         } else {
-            future.whenCompleteAsync(new BiConsumer<Response, Throwable>() {
+            future.whenCompleteAsync(new BiConsumer<UpstreamResponse, Throwable>() {
                 @Override
-                public void accept(Response response, Throwable throwable) {
-                    complete(request, response, throwable, gatewayContext, hystrixConfig);
+                public void accept(UpstreamResponse response, Throwable throwable) {
+                    complete(response, throwable, gatewayContext, permit);
                 }
             });
         }
@@ -101,92 +117,142 @@ public class RouterFilter implements Filter {
     }
 
     /**
-     * 熔断降级请求策略：
-     * 1.命令执行超过配置超时时间；
-     * 2.命令执行出现异常或错误；
-     * 3.连续失败率达到配置的阈值；
+     * 向负载均衡选定的实例发起下游调用，更新实例的在途请求数
      */
-    private void routeWithHystrix(GatewayContext gatewayContext, Optional<Rule.HystrixConfig> hystrixConfig) {
-        HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(gatewayContext.getUniqueId())).andCommandKey(HystrixCommandKey.Factory.asKey(gatewayContext.getRequest().getPath()))
-                //核心线程数
-                .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter().withCoreSize(hystrixConfig.get().getCoreThreadSize()))
-                //线程隔离类型
-                .andCommandPropertiesDefaults(HystrixCommandProperties.Setter().withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.THREAD)
-                        // 命令执行超时
-                        .withExecutionTimeoutInMilliseconds(hystrixConfig.get().getTimeoutInMilliseconds())
-                        // 超时中断
-                        .withExecutionIsolationThreadInterruptOnTimeout(true)
-                        //启用执行超时功能
-                        .withExecutionTimeoutEnabled(true));
-
-        new HystrixCommand<Object>(setter) {
-            @Override
-            protected Object run() throws Exception {
-                route(gatewayContext, hystrixConfig).get();
-                return null;
+    private static CompletableFuture<UpstreamResponse> callUpstream(GatewayContext gatewayContext) {
+        gatewayContext.setCoalesced(false);
+        InstanceStats instanceStats = getInstanceStats(gatewayContext);
+        CompletableFuture<UpstreamResponse> future;
+        if (instanceStats == null) {
+            future = UpstreamHelper.getInstance().execute(gatewayContext);
+        } else {
+            instanceStats.getInFlight().incrementAndGet();
+            try {
+                future = UpstreamHelper.getInstance().execute(gatewayContext);
+            } catch (RuntimeException e) {
+                instanceStats.getInFlight().decrementAndGet();
+                throw e;
             }
+        }
+        // 幂等请求在配置了对冲的路由上，超过对冲延迟未响应时向另一个实例再发一次
+        return RequestHedger.getInstance().hedge(gatewayContext, future);
+    }
 
-            @Override
-            protected Object getFallback() {
-                Exception exception = (Exception) getExecutionException();
-                //打印异常信息
-                if (null != exception) {
-                    log.error("通过hystrix {}", exception.getMessage());
-                }
-                gatewayContext.setThrowable(new ResponseException(ResponseCode.HYSTRIX_PROTECTION));
-                gatewayContext.setResponse(GatewayResponse.buildGatewayResponse(ResponseCode.HYSTRIX_PROTECTION));
-                gatewayContext.setContextStatus(ContextStatus.Written);
-                ResponseHelper.writeResponse(gatewayContext);
-                return null;
+    /**
+     * 熔断降级请求策略：
+     * 1.舱壁已满或熔断器打开时直接降级，不发起下游调用；
+     * 2.请求超过配置超时时间时取消下游请求并降级；
+     * 3.请求出现异常时降级，超时、异常和 5xx 计入熔断器的失败率；
+     * 整个过程不占用额外线程，也不阻塞 EventLoop
+     */
+    private void routeWithCircuitBreaker(GatewayContext gatewayContext, Rule.HystrixConfig hystrixConfig) {
+        RouteGuard guard = RouteGuard.get(gatewayContext.getUniqueId(), hystrixConfig);
+        RouteGuard.Permit permit = guard.tryAcquire();
+        if (permit == null) {
+            if (guard.isCircuitOpen()) {
+                GatewayEvents.circuitOpen(gatewayContext);
             }
-        }.execute();
+            writeFallback(gatewayContext, guard);
+            return;
+        }
+        try {
+            route(gatewayContext, permit);
+        } catch (RuntimeException e) {
+            permit.release(false);
+            throw e;
+        }
     }
 
     /**
-     * 响应回调处理
+     * 超时后在客户端连接的 EventLoop 上取消下游请求，回调中按超时处理
      */
-    private void complete(Request request, Response response, Throwable throwable, GatewayContext gatewayContext, Optional<Rule.HystrixConfig> hystrixConfig) {
-        // 请求已经处理完毕 释放请求资源
-        gatewayContext.releaseRequest();
+    private static void scheduleTimeout(GatewayContext gatewayContext, CompletableFuture<UpstreamResponse> future, RouteGuard.Permit permit) {
+        int timeout = permit.getGuard().getConfig().getTimeoutInMilliseconds();
+        if (timeout > 0 && !future.isDone()) {
+            EventLoop eventLoop = gatewayContext.getNettyContext().channel().eventLoop();
+            permit.setTimeout(GatewayTimer.getInstance().newTimeout(() -> eventLoop.execute(() -> future.cancel(false)), timeout));
+        }
+    }
 
-        // 获取上下文请求配置规则
-        Rule rule = gatewayContext.getRule();
+    /**
+     * 写回降级响应
+     */
+    private static void writeFallback(GatewayContext gatewayContext, RouteGuard guard) {
+        gatewayContext.setThrowable(new ResponseException(ResponseCode.HYSTRIX_PROTECTION));
+        gatewayContext.setResponse(GatewayResponse.buildGatewayResponse(guard.fallback()));
+        gatewayContext.setContextStatus(ContextStatus.Written);
+        ResponseHelper.writeResponse(gatewayContext);
+    }
+
+    /**
+     * 响应回调处理
+     */
+    private void complete(UpstreamResponse response, Throwable throwable, GatewayContext gatewayContext, RouteGuard.Permit permit) {
+        if (throwable instanceof CancellationException) {
+            // 只有熔断超时会取消下游请求
+            throwable = new TimeoutException("upstream timeout");
+        }
+        GatewayEvents.upstreamCall(gatewayContext, response == null ? 0 : response.getStatusCode(), throwable);
 
-        // 获取已经重试调用的次数
-        int currentRetryTimes = gatewayContext.getCurrentRetryTimes();
-        //配置的调用次数
-        int confRetryTimes = rule.getRetryConfig().getTimes();
+        // 本次下游调用结束，更新所选实例的在途请求数、延迟和离群检测统计；复用其他请求的响应时所选实例没有被调用
+        InstanceStats instanceStats = gatewayContext.isCoalesced() ? null : getInstanceStats(gatewayContext);
+        if (instanceStats != null) {
+            instanceStats.getInFlight().decrementAndGet();
+            instanceStats.getLatency().observe(System.nanoTime() - gatewayContext.getUpstreamStartTime());
+            boolean success = throwable == null && response != null && response.getStatusCode() < 500;
+            OutlierDetector.getInstance().record(gatewayContext.getUniqueId(), instanceStats, success);
+        }
 
-        // 异常发生后进行重试
-        if ((throwable instanceof TimeoutException || throwable instanceof IOException) && currentRetryTimes <= confRetryTimes && hystrixConfig.isEmpty()) {
-            doRetry(gatewayContext, currentRetryTimes);
+        // 超时或连接失败后按重试策略和重试预算决定是否重试
+        if (permit == null && UpstreamRetrier.getInstance().shouldRetry(gatewayContext, throwable)) {
+            GatewayEvents.retry(gatewayContext, throwable);
+            doRetry(gatewayContext);
             return;
         }
 
+        if (permit != null) {
+            boolean success = throwable == null && response != null && response.getStatusCode() < 500;
+            permit.release(success);
+            if (throwable != null) {
+                log.error("熔断降级 {}", throwable.getMessage());
+                gatewayContext.releaseRequest();
+                writeFallback(gatewayContext, permit.getGuard());
+                return;
+            }
+        }
+
+        // 请求已经处理完毕 释放请求资源，重试时请求体还要再次发送，不能提前释放
+        gatewayContext.releaseRequest();
+
         // 处理响应
-        handleResponse(request, response, throwable, gatewayContext);
+        handleResponse(response, throwable, gatewayContext);
     }
 
     /**
      * 处理HTTP响应
      */
-    private void handleResponse(Request request, Response response, Throwable throwable, GatewayContext gatewayContext) {
-        String url = request.getUrl();
+    private void handleResponse(UpstreamResponse response, Throwable throwable, GatewayContext gatewayContext) {
         String reqId = gatewayContext.getUniqueId();
 
         try {
             if (Objects.nonNull(throwable)) {
                 // 如果是超时异常
                 if (throwable instanceof TimeoutException) {
-                    log.warn("handleResponse TimeoutException---complete timeout {} reqId : {}", url, reqId);
+                    log.warn("handleResponse TimeoutException---complete timeout {} reqId : {}", gatewayContext.getRequest().getFinalUrl(), reqId);
 
                     gatewayContext.setThrowable(throwable);
                     gatewayContext.setResponse(GatewayResponse.buildGatewayResponse(ResponseCode.REQUEST_TIMEOUT));
                 } else if (throwable instanceof IOException) {
+                    String url = gatewayContext.getRequest().getFinalUrl();
                     log.warn("handleResponse IOException---complete io exception {} reqId : {}", url, reqId);
 
                     gatewayContext.setThrowable(new ConnectException(throwable, gatewayContext.getUniqueId(), url, ResponseCode.HTTP_RESPONSE_ERROR));
                     gatewayContext.setResponse(GatewayResponse.buildGatewayResponse(ResponseCode.HTTP_RESPONSE_ERROR));
+                } else {
+                    log.warn("handleResponse unexpected exception {} reqId : {}", gatewayContext.getRequest().getFinalUrl(), reqId, throwable);
+
+                    gatewayContext.setThrowable(new ResponseException(ResponseCode.INTERNAL_ERROR));
+                    gatewayContext.setResponse(GatewayResponse.buildGatewayResponse(ResponseCode.INTERNAL_ERROR));
                 }
             } else {
                 gatewayContext.setResponse(GatewayResponse.buildGatewayResponse(response));
@@ -198,32 +264,64 @@ public class RouterFilter implements Filter {
         } finally {
             gatewayContext.setContextStatus(ContextStatus.Written);
             ResponseHelper.writeResponse(gatewayContext);
-            accessLog.info("{} {} {} {} {} {} {}",
-                    System.currentTimeMillis() - gatewayContext.getRequest().getBeginTime(),
-                    gatewayContext.getRequest().getClientIp(),
-                    gatewayContext.getRequest().getUniqueId(),
-                    gatewayContext.getRequest().getMethod(),
-                    gatewayContext.getRequest().getPath(),
-                    gatewayContext.getResponse().getHttpResponseStatus().code(),
-                    gatewayContext.getResponse().getFutureResponse().getResponseBodyAsBytes().length);
+            if (isAccessLogSampled()) {
+                accessLog.info("{} {} {} {} {} {} {}",
+                        System.currentTimeMillis() - gatewayContext.getRequest().getBeginTime(),
+                        gatewayContext.getRequest().getClientIp(),
+                        gatewayContext.getRequest().getUniqueId(),
+                        gatewayContext.getRequest().getMethod(),
+                        gatewayContext.getRequest().getPath(),
+                        gatewayContext.getResponse().getHttpResponseStatus().code(),
+                        gatewayContext.getResponse().getFutureResponse() == null ? 0 : gatewayContext.getResponse().getFutureResponse().getContentLength());
+            }
         }
     }
 
     /**
-     * 重试策略
+     * 获取负载均衡所选实例的运行时统计，未经过负载均衡时返回 null
      */
-    private void doRetry(GatewayContext gatewayContext, int retryTimes) {
-        gatewayContext.setCurrentRetryTimes(retryTimes + 1);
+    private static InstanceStats getInstanceStats(GatewayContext gatewayContext) {
+        ServiceInstance instance = gatewayContext.getServiceInstance();
+        return instance == null ? null : InstanceStatsManager.getInstance().getStats(instance.getServiceInstanceId());
+    }
 
-        log.info("当前请求重试次数为{}", gatewayContext.getCurrentRetryTimes());
+    /**
+     * 访问日志采样，采样率可通过运维接口在运行时调整
+     */
+    private boolean isAccessLogSampled() {
+        double sampleRate = ConfigLoader.getConfig().getAccessLogSampleRate();
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
 
-        try {
-            // 重新执行过滤器逻辑
-            doFilter(gatewayContext);
-        } catch (Exception e) {
-            log.warn("重试请求失败, requestId={}", gatewayContext.getUniqueId(), e);
-            throw new RuntimeException(e);
+    /**
+     * 重试：记录失败的实例，换一个实例后在 EventLoop 定时器上退避，只重新发起下游调用，不再执行整个过滤器链
+     */
+    private void doRetry(GatewayContext gatewayContext) {
+        ServiceInstance failed = gatewayContext.getServiceInstance();
+        if (failed != null) {
+            gatewayContext.addTriedInstance(failed.getServiceInstanceId());
+            ServiceInstance instance = UpstreamRetrier.getInstance().chooseInstance(gatewayContext);
+            if (instance != null) {
+                InstanceStatsManager.getInstance().getStats(instance.getServiceInstanceId()).getChosen().increment();
+                gatewayContext.setServiceInstance(instance);
+                gatewayContext.getRequest().setModifyHost(instance.getIp() + ":" + instance.getPort());
+            }
         }
+        int retryTimes = gatewayContext.getCurrentRetryTimes() + 1;
+        gatewayContext.setCurrentRetryTimes(retryTimes);
+        long backoff = UpstreamRetrier.getInstance().backoff(gatewayContext.getRule().getRetryConfig(), retryTimes);
+
+        log.info("当前请求重试次数为{}, 实例 {}, 退避 {}ms", retryTimes, gatewayContext.getRequest().getModifyHost(), backoff);
+
+        gatewayContext.getNettyContext().channel().eventLoop().schedule(() -> {
+            try {
+                route(gatewayContext, null);
+            } catch (Exception e) {
+                log.warn("重试请求失败, requestId={}", gatewayContext.getUniqueId(), e);
+                gatewayContext.releaseRequest();
+                handleResponse(null, e, gatewayContext);
+            }
+        }, backoff, TimeUnit.MILLISECONDS);
     }
 
 }
@@ -0,0 +1,70 @@
+package com.jep.gateway.core.filter.router;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 额外请求的令牌预算
+ * 每个原始请求存入 ratio 个令牌，每个额外请求(对冲、重试)取走一个令牌，令牌数有上限。
+ * 长期来看额外请求不超过原始请求的 ratio 倍，上限允许短时间的突发；下游变慢时额外请求增多，令牌耗尽后自动停止。
+ * 令牌以千分之一为单位保存在一个 long 中，通过 CAS 无锁更新。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 10:40
+ **/
+public final class TokenBudget {
+
+    private static final long UNIT = 1000;
+
+    private final long maxTokens;
+
+    private final AtomicLong tokens;
+
+    /**
+     * @param maxTokens 令牌上限，即允许突发的额外请求数，初始时令牌是满的
+     */
+    public TokenBudget(int maxTokens) {
+        this.maxTokens = maxTokens * UNIT;
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    /**
+     * 一个原始请求存入 ratio 个令牌
+     */
+    public void deposit(double ratio) {
+        long amount = (long) (ratio * UNIT);
+        if (amount <= 0) {
+            return;
+        }
+        while (true) {
+            long current = tokens.get();
+            if (current >= maxTokens) {
+                return;
+            }
+            if (tokens.compareAndSet(current, Math.min(maxTokens, current + amount))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取走一个令牌，令牌不足时返回 false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前令牌数
+     */
+    public double getTokens() {
+        return (double) tokens.get() / UNIT;
+    }
+}
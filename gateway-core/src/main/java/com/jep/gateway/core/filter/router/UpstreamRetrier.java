@@ -0,0 +1,94 @@
+package com.jep.gateway.core.filter.router;
+
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.filter.loadbalance.InstanceSnapshotManager;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 下游调用重试策略
+ * 1.只重试超时和连接/读写失败；非幂等请求只在连接建立失败(请求还没有发出)时重试；
+ * 2.每个服务一个重试令牌预算，重试请求不超过原始请求的固定比例，下游故障时不会把负载放大到 重试次数+1 倍；
+ * 3.指数退避加全抖动，退避在 0 到 backoff × 2^(n-1) 之间随机，由 EventLoop 定时器调度，不占用线程；
+ * 4.重试避开已经失败过的实例，没有其他可用实例时才重试原实例。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 12:10
+ **/
+public class UpstreamRetrier {
+
+    private static class SingletonHolder {
+        private static final UpstreamRetrier INSTANCE = new UpstreamRetrier();
+    }
+
+    public static UpstreamRetrier getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 服务唯一ID —> 重试预算
+     */
+    private final ConcurrentHashMap<String, TokenBudget> budgetMap = new ConcurrentHashMap<>();
+
+    private UpstreamRetrier() {
+    }
+
+    /**
+     * 原始请求发出时为所属服务的重试预算存入令牌，没有配置重试的路由不参与
+     */
+    public void onRequest(GatewayContext ctx) {
+        if (ctx.getCurrentRetryTimes() != 0 || ctx.getRule().getRetryConfig().getTimes() <= 0) {
+            return;
+        }
+        getBudget(ctx.getUniqueId()).deposit(ConfigLoader.getConfig().getRetryBudgetPercent() / 100);
+    }
+
+    /**
+     * 判断失败的请求是否重试，需要重试时取走一个预算令牌；请求已经超过截止时间时不再重试
+     */
+    public boolean shouldRetry(GatewayContext ctx, Throwable throwable) {
+        if (!(throwable instanceof TimeoutException || throwable instanceof IOException)) {
+            return false;
+        }
+        if (ctx.getCurrentRetryTimes() >= ctx.getRule().getRetryConfig().getTimes()) {
+            return false;
+        }
+        if (!ctx.getRequest().isIdempotent() && !(throwable instanceof ConnectException)) {
+            return false;
+        }
+        if (ctx.getRemainingTimeout(Long.MAX_VALUE) <= 0) {
+            return false;
+        }
+        return getBudget(ctx.getUniqueId()).tryAcquire();
+    }
+
+    /**
+     * 第 attempt 次重试的退避时间(毫秒)
+     */
+    public long backoff(Rule.RetryConfig retryConfig, int attempt) {
+        long cap = Math.min(retryConfig.getMaxBackoff(), (long) retryConfig.getBackoff() << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * 为重试选择实例：避开已经失败过的实例，都失败过时返回 null，由调用方重试原实例
+     */
+    public ServiceInstance chooseInstance(GatewayContext ctx) {
+        Set<String> tried = ctx.getTriedInstances();
+        return InstanceSnapshotManager.getInstance().getSnapshot(ctx.getUniqueId(), ctx.isGray())
+                .randomExcept(tried == null ? Set.of() : tried);
+    }
+
+    private TokenBudget getBudget(String uniqueId) {
+        return budgetMap.computeIfAbsent(uniqueId, key -> new TokenBudget(ConfigLoader.getConfig().getRetryBudgetMaxTokens()));
+    }
+}
@@ -52,6 +52,16 @@ public class AsyncHttpHelper {
         return future.toCompletableFuture();
     }
 
+    /**
+     * 使用异步HTTP客户端执行请求，返回可以取消请求的 ListenableFuture
+     *
+     * @param request 请求对象
+     * @return ListenableFuture对象，取消时中止请求
+     */
+    public ListenableFuture<Response> execute(Request request) {
+        return asyncHttpClient.executeRequest(request);
+    }
+
     /**
      * 使用异步HTTP客户端执行HTTP请求，并通过CompletableFuture处理响应结果
      * 该方法允许通过异步方式执行HTTP请求，并使用AsyncHandler处理响应，适用于需要异步处理HTTP响应的场景
@@ -5,6 +5,7 @@ import com.jep.gateway.common.constant.BasicConst;
 import com.jep.gateway.common.constant.GatewayConst;
 import com.jep.gateway.common.enums.ResponseCode;
 import com.jep.gateway.common.exception.ResponseException;
+import com.jep.gateway.core.config.ConfigLoader;
 import com.jep.gateway.core.context.GatewayContext;
 import com.jep.gateway.core.request.GatewayRequest;
 import io.netty.channel.ChannelHandlerContext;
@@ -16,6 +17,8 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author enping.jep
@@ -24,29 +27,59 @@ import java.util.List;
 public class RequestHelper {
 
     /**
-     * 封装网关上下文
+     * 封装网关上下文，截止时间从调用时开始计算
      */
     public static GatewayContext doContext(FullHttpRequest request, ChannelHandlerContext context) {
+        return doContext(request, context, 0);
+    }
+
+    /**
+     * 封装网关上下文
+     *
+     * @param receiveTime 网关收到请求的时间(纳秒)，为0时使用当前时间
+     */
+    public static GatewayContext doContext(FullHttpRequest request, ChannelHandlerContext context, long receiveTime) {
         // 封装网关内部请求对象
         GatewayRequest gatewayRequest = doRequest(request, context);
 
         // 根据请求id获取请求服务定义信息
         ServiceDefinition definition = DynamicConfigManager.getInstance().getServiceDefinition(gatewayRequest.getUniqueId());
 
-        // 服务调用对象初始化
-        ServiceInvoker serviceInvoker = new HttpServiceInvoker();
-        serviceInvoker.setInvokerPath(gatewayRequest.getPath());
-        serviceInvoker.setTimeout(500);
-
         // 获取具体服务对象访问规则
         Rule rule = getRule(gatewayRequest, definition.getServiceId());
 
-        return GatewayContext.newBuilder()
+        GatewayContext gatewayContext = GatewayContext.newBuilder()
                 .setProtocol(definition.getProtocol())
                 .setKeepAlive(HttpUtil.isKeepAlive(request))
                 .setNettyCtx(context)
                 .setRequest(gatewayRequest)
                 .setRule(rule).build();
+
+        // 请求截止时间覆盖排队、重试和对冲，每次下游调用只使用剩余的时间
+        long timeout = getTimeout(request, definition, rule, gatewayRequest.getPath());
+        gatewayContext.setDeadline((receiveTime == 0 ? System.nanoTime() : receiveTime) + TimeUnit.MILLISECONDS.toNanos(timeout));
+        return gatewayContext;
+    }
+
+    /**
+     * 请求超时时间：路由规则 > 服务调用(方法) > 网关全局配置，调用方传入的剩余超时时间更短时使用调用方的
+     */
+    private static long getTimeout(FullHttpRequest request, ServiceDefinition definition, Rule rule, String path) {
+        long timeout = rule.getTimeout();
+        if (timeout <= 0) {
+            Map<String, ServiceInvoker> invokerMap = definition.getInvokerMap();
+            ServiceInvoker invoker = invokerMap == null ? null : invokerMap.get(path);
+            timeout = invoker != null && invoker.getTimeout() > 0 ? invoker.getTimeout() : ConfigLoader.getConfig().getHttpRequestTimeout();
+        }
+        String callerTimeout = request.headers().get(GatewayConst.REQUEST_TIMEOUT_HEADER);
+        if (callerTimeout != null) {
+            try {
+                timeout = Math.min(timeout, Math.max(0, Long.parseLong(callerTimeout.trim())));
+            } catch (NumberFormatException e) {
+                // 忽略格式错误的超时请求头
+            }
+        }
+        return timeout;
     }
 
     /**
@@ -94,7 +127,7 @@ public class RequestHelper {
     /**
      * 解析请求 url 对应的规则匹配
      */
-    private static Rule getRule(GatewayRequest request, String serviceId) {
+    public static Rule getRule(GatewayRequest request, String serviceId) {
         // 拼接服务ID + 请求路径
         String key = serviceId + "." + request.getPath();
         Rule rule = DynamicConfigManager.getInstance().getRulePath(key);
@@ -3,8 +3,11 @@ package com.jep.gateway.core.helper;
 import com.jep.gateway.common.constant.BasicConst;
 import com.jep.gateway.common.enums.ResponseCode;
 import com.jep.gateway.core.context.ContextStatus;
+import com.jep.gateway.core.context.GatewayContext;
 import com.jep.gateway.core.context.IContext;
+import com.jep.gateway.core.jfr.GatewayEvents;
 import com.jep.gateway.core.response.GatewayResponse;
+import com.jep.gateway.core.upstream.UpstreamResponse;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
@@ -50,7 +53,13 @@ public class ResponseHelper {
 
         // 开始写回响应
         if (context.judgeContextStatus(ContextStatus.Written)) {
-            FullHttpResponse response = getHttpResponse(context, (GatewayResponse) context.getResponse());
+            GatewayResponse gatewayResponse = (GatewayResponse) context.getResponse();
+            UpstreamResponse upstreamResponse = gatewayResponse.getFutureResponse();
+            if (upstreamResponse != null && upstreamResponse.isStreaming()) {
+                writeStreamingResponse(context, gatewayResponse, upstreamResponse);
+                return;
+            }
+            FullHttpResponse response = getHttpResponse(context, gatewayResponse);
 
             // 如果不是保持连接的情况，响应后关闭通道
             if (!context.isKeepAlive()) {
@@ -63,6 +72,10 @@ public class ResponseHelper {
                 context.getNettyContext().writeAndFlush(response);
             }
 
+            if (context instanceof GatewayContext gatewayContext) {
+                GatewayEvents.responseWritten(gatewayContext, response.status().code());
+            }
+
             // 改变上下文状态为已完成
             context.setContextStatus(ContextStatus.Completed);
         } else if (context.judgeContextStatus(ContextStatus.Completed)) {
@@ -71,6 +84,30 @@ public class ResponseHelper {
         }
     }
 
+    /**
+     * 流式写回：先写响应头，响应体分片由 UpstreamBody 随到随写
+     * 下游响应既没有 Content-Length 也不是 chunked 时(读到连接关闭为止)，改为 chunked 写回客户端
+     */
+    private static void writeStreamingResponse(IContext context, GatewayResponse gatewayResponse, UpstreamResponse upstreamResponse) {
+        HttpHeaders headers = upstreamResponse.getHeaders();
+        headers.add(gatewayResponse.getExtraResponseHeaders());
+        DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.valueOf(upstreamResponse.getStatusCode()), headers);
+        if (!HttpUtil.isContentLengthSet(response) && !HttpUtil.isTransferEncodingChunked(response)) {
+            HttpUtil.setTransferEncodingChunked(response, true);
+        }
+        if (context.isKeepAlive()) {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        }
+        context.getNettyContext().write(response);
+        upstreamResponse.getBody().subscribe(context.getNettyContext(), !context.isKeepAlive());
+
+        if (context instanceof GatewayContext gatewayContext) {
+            GatewayEvents.responseWritten(gatewayContext, response.status().code());
+        }
+        context.setContextStatus(ContextStatus.Completed);
+    }
+
     /**
      * 构造 FullHttpResponse 对象   GatewayResponse -> FullHttpResponse
      */
@@ -78,7 +115,8 @@ public class ResponseHelper {
         ByteBuf content;
         // 检查 gatewayResponse 是否有 FutureResponse，如果有，使用其响应体作为 content
         if (Objects.nonNull(gatewayResponse.getFutureResponse())) {
-            content = Unpooled.wrappedBuffer(gatewayResponse.getFutureResponse().getResponseBodyAsByteBuffer());
+            // 下游响应体已经是 ByteBuf，直接作为响应体写回，不再复制
+            content = gatewayResponse.getFutureResponse().getContent();
         } else if (gatewayResponse.getContent() != null) {
             // 如果没有 FutureResponse，但是有 content，那么使用 content 作为响应体
             content = Unpooled.wrappedBuffer(gatewayResponse.getContent().getBytes(StandardCharsets.UTF_8));
@@ -100,13 +138,12 @@ public class ResponseHelper {
             return httpResponse;
         } else {
             // 如果有 FutureResponse，使用其状态码和 headers
-            gatewayResponse.getFutureResponse().getHeaders().add(gatewayResponse.getExtraResponseHeaders());
-            DefaultFullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
-                    HttpResponseStatus.valueOf(gatewayResponse.getFutureResponse().getStatusCode()),
-                    content);
-            httpResponse.headers().add(gatewayResponse.getFutureResponse().getHeaders());
-
-            return httpResponse;
+            UpstreamResponse upstreamResponse = gatewayResponse.getFutureResponse();
+            upstreamResponse.getHeaders().add(gatewayResponse.getExtraResponseHeaders());
+            // 直接使用下游响应头，不再逐个复制
+            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.valueOf(upstreamResponse.getStatusCode()),
+                    content, upstreamResponse.getHeaders(), EmptyHttpHeaders.INSTANCE);
         }
     }
 }
@@ -0,0 +1,203 @@
+package com.jep.gateway.core.helper;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.upstream.AsyncHttpUpstreamClient;
+import com.jep.gateway.core.upstream.DubboUpstreamClient;
+import com.jep.gateway.core.upstream.GrpcUpstreamClient;
+import com.jep.gateway.core.upstream.Http2UpstreamClient;
+import com.jep.gateway.core.upstream.UpstreamClient;
+import com.jep.gateway.core.upstream.UpstreamResponse;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 下游调用辅助类，持有当前使用的下游客户端
+ * dubbo 协议的服务使用泛化调用客户端，grpc 协议的服务使用 gRPC 转码客户端，服务定义中配置了 HTTP/2 的服务使用 HTTP/2 客户端，其他服务使用默认的 HTTP/1.1 客户端
+ * 注册中心推送实例变更时为新实例预热连接，为已下线实例关闭连接池
+ *
+ * @author enping.jep
+ * @date 2026/10/20 09:50
+ **/
+public class UpstreamHelper {
+
+    private static final class SingletonHolder {
+        private static final UpstreamHelper INSTANCE = new UpstreamHelper();
+    }
+
+    private UpstreamHelper() {
+
+    }
+
+    public static UpstreamHelper getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private volatile UpstreamClient upstreamClient = new AsyncHttpUpstreamClient();
+
+    private volatile Http2UpstreamClient http2Client;
+
+    private volatile DubboUpstreamClient dubboClient;
+
+    private volatile GrpcUpstreamClient grpcClient;
+
+    /**
+     * 服务唯一ID —> 已预热的实例地址
+     */
+    private final ConcurrentHashMap<String, ServiceHosts> serviceHostsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化下游客户端
+     *
+     * @param upstreamClient 下游客户端，默认使用 AsyncHttpClient
+     * @param http2Client    HTTP/2 客户端，为空时所有服务都使用 HTTP/1.1
+     */
+    public void initialized(UpstreamClient upstreamClient, Http2UpstreamClient http2Client) {
+        initialized(upstreamClient, http2Client, null, null);
+    }
+
+    /**
+     * 初始化下游客户端
+     *
+     * @param dubboClient dubbo 泛化调用客户端，为空时 dubbo 协议的服务调用失败
+     * @param grpcClient  gRPC 转码客户端，为空时 grpc 协议的服务调用失败
+     */
+    public void initialized(UpstreamClient upstreamClient, Http2UpstreamClient http2Client,
+                            DubboUpstreamClient dubboClient, GrpcUpstreamClient grpcClient) {
+        this.upstreamClient = upstreamClient;
+        this.http2Client = http2Client;
+        this.dubboClient = dubboClient;
+        this.grpcClient = grpcClient;
+    }
+
+    /**
+     * 把网关请求发送到已选定的下游实例
+     *
+     * @param ctx 网关上下文
+     * @return 下游响应
+     */
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx) {
+        return execute(ctx, ctx.getRequest().getModifyHost());
+    }
+
+    /**
+     * 把网关请求发送到指定的下游实例
+     *
+     * @param ctx  网关上下文
+     * @param host 实例地址 ip:port
+     * @return 下游响应，取消时中止请求；请求已经超过截止时间时直接超时失败
+     */
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host) {
+        if (ctx.getRemainingTimeout(Long.MAX_VALUE) <= 0) {
+            return CompletableFuture.failedFuture(new TimeoutException("request deadline exceeded before calling " + host));
+        }
+        ServiceDefinition serviceDefinition = DynamicConfigManager.getInstance().getServiceDefinition(ctx.getUniqueId());
+        if (DubboUpstreamClient.isEnabled(serviceDefinition)) {
+            DubboUpstreamClient dubbo = dubboClient;
+            return dubbo != null ? dubbo.execute(ctx, host)
+                    : CompletableFuture.failedFuture(new IOException("dubbo upstream client is not initialized"));
+        }
+        if (GrpcUpstreamClient.isEnabled(serviceDefinition)) {
+            GrpcUpstreamClient grpc = grpcClient;
+            return grpc != null ? grpc.execute(ctx, host)
+                    : CompletableFuture.failedFuture(new IOException("grpc upstream client is not initialized"));
+        }
+        Http2UpstreamClient http2 = http2Client;
+        if (http2 != null && Http2UpstreamClient.isEnabled(serviceDefinition)) {
+            return http2.execute(ctx, host, serviceDefinition.getHttp2());
+        }
+        return upstreamClient.execute(ctx, host);
+    }
+
+    /**
+     * 注册中心推送服务实例变更：在后台为新实例预热连接，关闭已下线实例的连接池
+     * 服务切换协议(HTTP/1.1、HTTP/2、dubbo、grpc)时所有实例都视为新实例，由新的客户端预热
+     */
+    public synchronized void onServiceChanged(ServiceDefinition serviceDefinition, List<ServiceInstance> serviceInstances) {
+        String uniqueId = serviceDefinition.getUniqueId();
+        UpstreamClient client = getClient(serviceDefinition);
+        Set<String> hosts = new HashSet<>();
+        if (serviceInstances != null) {
+            for (ServiceInstance instance : serviceInstances) {
+                hosts.add(instance.getIp() + ":" + instance.getPort());
+            }
+        }
+        ServiceHosts previous = hosts.isEmpty()
+                ? serviceHostsMap.remove(uniqueId)
+                : serviceHostsMap.put(uniqueId, new ServiceHosts(client, hosts));
+
+        int warmupConnections = ConfigLoader.getConfig().getUpstreamWarmupConnections();
+        if (warmupConnections > 0) {
+            for (String host : hosts) {
+                if (client != null && (previous == null || previous.client != client || !previous.hosts.contains(host))) {
+                    client.warmUp(serviceDefinition, host, warmupConnections);
+                }
+            }
+        }
+        if (previous != null) {
+            for (String host : previous.hosts) {
+                if (!hosts.contains(host) && !isReferenced(host)) {
+                    drain(host);
+                }
+            }
+        }
+    }
+
+    /**
+     * 服务使用的下游客户端
+     */
+    private UpstreamClient getClient(ServiceDefinition serviceDefinition) {
+        if (DubboUpstreamClient.isEnabled(serviceDefinition)) {
+            return dubboClient;
+        }
+        if (GrpcUpstreamClient.isEnabled(serviceDefinition)) {
+            return grpcClient;
+        }
+        return Http2UpstreamClient.isEnabled(serviceDefinition) ? http2Client : upstreamClient;
+    }
+
+    /**
+     * 是否还有其他服务使用该实例地址
+     */
+    private boolean isReferenced(String host) {
+        for (ServiceHosts serviceHosts : serviceHostsMap.values()) {
+            if (serviceHosts.hosts.contains(host)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drain(String host) {
+        upstreamClient.drain(host);
+        Http2UpstreamClient http2 = http2Client;
+        if (http2 != null) {
+            http2.drain(host);
+        }
+        DubboUpstreamClient dubbo = dubboClient;
+        if (dubbo != null) {
+            dubbo.drain(host);
+        }
+    }
+
+    private static final class ServiceHosts {
+
+        private final UpstreamClient client;
+
+        private final Set<String> hosts;
+
+        ServiceHosts(UpstreamClient client, Set<String> hosts) {
+            this.client = client;
+            this.hosts = hosts;
+        }
+    }
+}
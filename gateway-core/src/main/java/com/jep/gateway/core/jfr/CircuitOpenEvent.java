@@ -0,0 +1,20 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 熔断器处于打开状态，请求被直接降级
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:26
+ **/
+@Name("com.jep.gateway.CircuitOpen")
+@Label("Circuit Open")
+@Description("熔断打开导致请求走降级响应")
+public class CircuitOpenEvent extends GatewayEvent {
+
+    @Label("Path")
+    String path;
+}
@@ -0,0 +1,25 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 过滤器链中单个过滤器的执行
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:18
+ **/
+@Name("com.jep.gateway.FilterExecuted")
+@Label("Filter Executed")
+@Description("过滤器链中单个过滤器的执行耗时")
+public class FilterExecutedEvent extends GatewayEvent {
+
+    @Label("Filter")
+    String filter;
+
+    @Label("Filter Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long filterTime;
+}
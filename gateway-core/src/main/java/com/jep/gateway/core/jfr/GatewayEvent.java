@@ -0,0 +1,28 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * 网关JFR事件基类，统一携带请求维度的公共字段
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:12
+ **/
+@Category("Gateway")
+@StackTrace(false)
+public abstract class GatewayEvent extends jdk.jfr.Event {
+
+    @Label("Request Id")
+    String requestId;
+
+    @Label("Service Id")
+    String serviceId;
+
+    @Label("Rule Id")
+    String ruleId;
+
+    @Label("Instance")
+    String instance;
+}
@@ -0,0 +1,262 @@
+package com.jep.gateway.core.jfr;
+
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.common.util.TimeUtil;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.context.HttpRequestWrapper;
+import com.jep.gateway.core.filter.Filter;
+import com.jep.gateway.core.request.GatewayRequest;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关JFR事件的统一入口
+ * 未开启JFR录制时，所有方法只做一次静态布尔判断后直接返回，不创建事件对象也不读取时钟；
+ * 是否有录制在运行由 {@link FlightRecorderListener} 在录制状态变化时更新，录制全部停止后恢复为不采集；
+ * 开启录制后按照 Config 中的阈值过滤耗时类事件，避免短请求刷满录制文件。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:30
+ **/
+public final class GatewayEvents {
+
+    private static volatile boolean enabled = true;
+
+    /**
+     * 是否有正在运行的录制
+     */
+    private static volatile boolean recording;
+
+    private static boolean listening;
+
+    private static volatile long ringWaitThreshold;
+
+    private static volatile long filterThreshold;
+
+    private static volatile long upstreamThreshold;
+
+    private static volatile long responseThreshold;
+
+    private GatewayEvents() {
+    }
+
+    /**
+     * 根据静态配置初始化事件开关与阈值
+     */
+    public static void init(Config config) {
+        enabled = config.isJfrEnabled();
+        ringWaitThreshold = TimeUnit.MILLISECONDS.toNanos(config.getJfrRingWaitThreshold());
+        filterThreshold = TimeUnit.MILLISECONDS.toNanos(config.getJfrFilterThreshold());
+        upstreamThreshold = TimeUnit.MILLISECONDS.toNanos(config.getJfrUpstreamThreshold());
+        responseThreshold = config.getJfrResponseThreshold();
+        if (enabled) {
+            listen();
+        }
+    }
+
+    /**
+     * 当前是否需要采集事件：配置开启并且有正在运行的录制
+     */
+    public static boolean isActive() {
+        return enabled && recording;
+    }
+
+    /**
+     * 注册录制状态监听，注册时已经在运行的录制(如 -XX:StartFlightRecording)立即生效
+     */
+    private static synchronized void listen() {
+        if (listening) {
+            return;
+        }
+        listening = true;
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                updateRecording();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                updateRecording();
+            }
+        });
+        updateRecording();
+    }
+
+    /**
+     * JFR 在持有自身锁时回调监听器，这里不加锁，每次都按当前所有录制的状态重新计算
+     */
+    private static void updateRecording() {
+        boolean running = false;
+        if (FlightRecorder.isInitialized()) {
+            for (Recording candidate : FlightRecorder.getFlightRecorder().getRecordings()) {
+                if (candidate.getState() == RecordingState.RUNNING) {
+                    running = true;
+                    break;
+                }
+            }
+        }
+        recording = running;
+    }
+
+    /**
+     * 耗时类事件的起始时间，未采集时返回0，对应的提交方法会直接忽略
+     */
+    public static long startTime() {
+        return isActive() ? System.nanoTime() : 0L;
+    }
+
+    public static void requestAccepted(GatewayContext ctx) {
+        if (!isActive()) {
+            return;
+        }
+        RequestAcceptedEvent event = new RequestAcceptedEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            GatewayRequest request = ctx.getRequest();
+            event.method = request.getMethod().name();
+            event.path = request.getPath();
+            event.clientIp = request.getClientIp();
+            event.commit();
+        }
+    }
+
+    public static void ringWait(HttpRequestWrapper wrapper) {
+        long start = wrapper.getEnqueueTime();
+        if (start == 0L || !isActive()) {
+            return;
+        }
+        long waitTime = System.nanoTime() - start;
+        if (waitTime < ringWaitThreshold) {
+            return;
+        }
+        RingWaitEvent event = new RingWaitEvent();
+        if (event.shouldCommit()) {
+            event.serviceId = wrapper.getRequest().headers().get(GatewayConst.UNIQUE_ID);
+            event.uri = wrapper.getRequest().uri();
+            event.waitTime = waitTime;
+            event.commit();
+        }
+    }
+
+    public static void filterExecuted(GatewayContext ctx, Filter filter, long start) {
+        if (start == 0L) {
+            return;
+        }
+        long filterTime = System.nanoTime() - start;
+        if (filterTime < filterThreshold) {
+            return;
+        }
+        FilterExecutedEvent event = new FilterExecutedEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.filter = filter.getClass().getSimpleName();
+            event.filterTime = filterTime;
+            event.commit();
+        }
+    }
+
+    public static void loadBalance(GatewayContext ctx, String strategy, long start) {
+        if (start == 0L) {
+            return;
+        }
+        LoadBalanceEvent event = new LoadBalanceEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.strategy = strategy;
+            event.gray = ctx.isGray();
+            event.chooseTime = System.nanoTime() - start;
+            event.commit();
+        }
+    }
+
+    public static void upstreamCall(GatewayContext ctx, int statusCode, Throwable throwable) {
+        long start = ctx.getUpstreamStartTime();
+        if (start == 0L || !isActive()) {
+            return;
+        }
+        long upstreamTime = System.nanoTime() - start;
+        if (upstreamTime < upstreamThreshold) {
+            return;
+        }
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.url = ctx.getRequest().getFinalUrl();
+            event.statusCode = statusCode;
+            event.attempt = ctx.getCurrentRetryTimes();
+            event.error = throwable == null ? null : throwable.getClass().getSimpleName();
+            event.upstreamTime = upstreamTime;
+            event.commit();
+        }
+    }
+
+    public static void retry(GatewayContext ctx, Throwable cause) {
+        if (!isActive()) {
+            return;
+        }
+        RetryEvent event = new RetryEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.attempt = ctx.getCurrentRetryTimes();
+            event.cause = cause == null ? null : cause.getClass().getSimpleName();
+            event.commit();
+        }
+    }
+
+    public static void hedge(GatewayContext ctx, String hedgeInstance, long delay) {
+        if (!isActive()) {
+            return;
+        }
+        HedgeEvent event = new HedgeEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.hedgeInstance = hedgeInstance;
+            event.delay = delay;
+            event.commit();
+        }
+    }
+
+    public static void circuitOpen(GatewayContext ctx) {
+        if (!isActive()) {
+            return;
+        }
+        CircuitOpenEvent event = new CircuitOpenEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.path = ctx.getRequest().getPath();
+            event.commit();
+        }
+    }
+
+    public static void responseWritten(GatewayContext ctx, int statusCode) {
+        if (!isActive()) {
+            return;
+        }
+        long totalTime = TimeUtil.currentTimeMillis() - ctx.getRequest().getBeginTime();
+        if (totalTime < responseThreshold) {
+            return;
+        }
+        ResponseWrittenEvent event = new ResponseWrittenEvent();
+        if (event.shouldCommit()) {
+            fill(event, ctx);
+            event.statusCode = statusCode;
+            event.keepAlive = ctx.isKeepAlive();
+            event.totalTime = totalTime;
+            event.commit();
+        }
+    }
+
+    private static void fill(GatewayEvent event, GatewayContext ctx) {
+        GatewayRequest request = ctx.getRequest();
+        event.requestId = request.getId();
+        event.serviceId = request.getUniqueId();
+        event.ruleId = ctx.getRule() == null ? null : ctx.getRule().getId();
+        event.instance = request.getModifyHost();
+    }
+}
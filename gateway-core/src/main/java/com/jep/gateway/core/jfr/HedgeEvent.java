@@ -0,0 +1,25 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 下游超过对冲延迟未响应时向另一个实例发出的对冲请求
+ *
+ * @author enping.jep
+ * @date 2026/10/20 11:05
+ **/
+@Name("com.jep.gateway.Hedge")
+@Label("Hedge")
+@Description("下游响应慢时向另一个实例发出的对冲请求")
+public class HedgeEvent extends GatewayEvent {
+
+    @Label("Hedge Instance")
+    String hedgeInstance;
+
+    @Label("Delay")
+    @Timespan(Timespan.NANOSECONDS)
+    long delay;
+}
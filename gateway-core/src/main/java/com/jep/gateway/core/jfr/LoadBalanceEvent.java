@@ -0,0 +1,28 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 负载均衡选择实例的结果
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:20
+ **/
+@Name("com.jep.gateway.LoadBalance")
+@Label("Load Balance Decision")
+@Description("负载均衡策略选中的服务实例")
+public class LoadBalanceEvent extends GatewayEvent {
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Gray")
+    boolean gray;
+
+    @Label("Choose Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long chooseTime;
+}
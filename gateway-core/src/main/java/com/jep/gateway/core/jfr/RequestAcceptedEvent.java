@@ -0,0 +1,26 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 请求被网关接收，并完成上下文构建与规则匹配
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:14
+ **/
+@Name("com.jep.gateway.RequestAccepted")
+@Label("Request Accepted")
+@Description("请求进入网关并完成规则匹配")
+public class RequestAcceptedEvent extends GatewayEvent {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Client Ip")
+    String clientIp;
+}
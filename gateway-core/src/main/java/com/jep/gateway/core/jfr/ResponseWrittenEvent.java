@@ -0,0 +1,28 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 响应写回客户端，记录请求在网关内的整体耗时
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:28
+ **/
+@Name("com.jep.gateway.ResponseWritten")
+@Label("Response Written")
+@Description("响应写回客户端")
+public class ResponseWrittenEvent extends GatewayEvent {
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Keep Alive")
+    boolean keepAlive;
+
+    @Label("Total Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long totalTime;
+}
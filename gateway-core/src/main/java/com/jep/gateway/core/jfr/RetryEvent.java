@@ -0,0 +1,23 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 下游调用失败后发起的重试
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:24
+ **/
+@Name("com.jep.gateway.Retry")
+@Label("Retry")
+@Description("下游调用失败后的重试")
+public class RetryEvent extends GatewayEvent {
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Cause")
+    String cause;
+}
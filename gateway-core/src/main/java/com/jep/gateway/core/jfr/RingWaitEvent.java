@@ -0,0 +1,25 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 请求在Disruptor环形队列中的排队等待
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:16
+ **/
+@Name("com.jep.gateway.RingWait")
+@Label("Ring Wait")
+@Description("请求从发布到RingBuffer到被消费线程取出的等待时间")
+public class RingWaitEvent extends GatewayEvent {
+
+    @Label("Uri")
+    String uri;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitTime;
+}
@@ -0,0 +1,34 @@
+package com.jep.gateway.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 一次下游服务调用，从发出请求到收到响应或异常
+ *
+ * @author enping.jep
+ * @date 2026/10/19 10:22
+ **/
+@Name("com.jep.gateway.UpstreamCall")
+@Label("Upstream Call")
+@Description("一次下游服务调用的耗时与结果")
+public class UpstreamCallEvent extends GatewayEvent {
+
+    @Label("Url")
+    String url;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Error")
+    String error;
+
+    @Label("Upstream Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long upstreamTime;
+}
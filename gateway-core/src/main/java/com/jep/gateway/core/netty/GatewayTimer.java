@@ -0,0 +1,54 @@
+package com.jep.gateway.core.netty;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关共用的时间轮
+ * 下游请求超时、熔断超时和连接池空闲检测都放在同一个时间轮上，添加和取消都是 O(1)，
+ * 不再为每个请求在 EventLoop 上创建定时任务。定时任务在时间轮线程上执行，需要访问 Channel 状态的任务应切回对应的 EventLoop。
+ * 时间轮随进程存在，不随客户端关闭而停止。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 14:10
+ **/
+public class GatewayTimer {
+
+    /**
+     * 时间轮精度(毫秒)
+     */
+    private static final long TICK_DURATION = 10;
+
+    private static final int TICKS_PER_WHEEL = 1024;
+
+    private static class SingletonHolder {
+        private static final GatewayTimer INSTANCE = new GatewayTimer();
+    }
+
+    public static GatewayTimer getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private final HashedWheelTimer timer;
+
+    private GatewayTimer() {
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("gateway-timer", true),
+                TICK_DURATION, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+    }
+
+    public HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    /**
+     * 延迟 delay 毫秒执行任务
+     *
+     * @return 用于取消任务
+     */
+    public Timeout newTimeout(Runnable task, long delay) {
+        return timer.newTimeout(timeout -> task.run(), delay, TimeUnit.MILLISECONDS);
+    }
+}
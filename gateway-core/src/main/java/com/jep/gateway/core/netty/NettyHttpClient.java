@@ -3,12 +3,22 @@ package com.jep.gateway.core.netty;
 import com.jep.gateway.core.LifeCycle;
 import com.jep.gateway.core.config.Config;
 import com.jep.gateway.core.helper.AsyncHttpHelper;
+import com.jep.gateway.core.helper.UpstreamHelper;
+import com.jep.gateway.core.upstream.AsyncHttpUpstreamClient;
+import com.jep.gateway.core.upstream.DubboUpstreamClient;
+import com.jep.gateway.core.upstream.GrpcUpstreamClient;
+import com.jep.gateway.core.upstream.Http2UpstreamClient;
+import com.jep.gateway.core.upstream.NettyUpstreamClient;
+import com.jep.gateway.core.upstream.UpstreamClient;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.netty.channel.DefaultChannelPool;
 
 import java.io.IOException;
 
@@ -21,12 +31,46 @@ import java.io.IOException;
  **/
 @Slf4j
 public class NettyHttpClient implements LifeCycle {
+    //	连接池空闲连接清理周期(毫秒)
+    private static final int POOL_CLEANER_PERIOD = 1000;
+
     private final Config config;
 
     private final EventLoopGroup eventLoopGroupWoker;
 
     private AsyncHttpClient asyncHttpClient;
 
+    /**
+     * 下游客户端，配置为 netty 时使用原生 Netty 客户端，否则使用 AsyncHttpClient
+     */
+    private UpstreamClient upstreamClient;
+
+    /**
+     * HTTP/2 下游客户端，只用于服务定义中配置了 HTTP/2 的服务，连接按需建立
+     */
+    private Http2UpstreamClient http2Client;
+
+    /**
+     * dubbo 泛化调用客户端，只用于 dubbo 协议的服务，引用按需建立
+     */
+    private DubboUpstreamClient dubboClient;
+
+    /**
+     * gRPC 转码客户端，只用于 grpc 协议的服务，与 HTTP/2 客户端共用连接池
+     */
+    private GrpcUpstreamClient grpcClient;
+
+    /**
+     * 下游连接池，带按 host 统计
+     */
+    @Getter
+    private StatsChannelPool channelPool;
+
+    /**
+     * 连接池空闲检测与请求超时共用网关的时间轮
+     */
+    private HashedWheelTimer nettyTimer;
+
     public NettyHttpClient(Config config, EventLoopGroup eventLoopGroupWoker) {
         this.config = config;
         this.eventLoopGroupWoker = eventLoopGroupWoker;
@@ -35,6 +79,9 @@ public class NettyHttpClient implements LifeCycle {
 
     @Override
     public void init() {
+        this.nettyTimer = GatewayTimer.getInstance().getTimer();
+        this.channelPool = new StatsChannelPool(new DefaultChannelPool(config.getHttpPooledConnectionIdleTimeout(),
+                -1, nettyTimer, POOL_CLEANER_PERIOD));
         // 使用自定义配置构建异步HTTP客户端
         // AsyncHttpClient 是一个建立在 Netty 之上的异步 HTTP 客户端库，它提供了简单的 API 来执行 HTTP 请求并处理响应。
         DefaultAsyncHttpClientConfig.Builder builder = new DefaultAsyncHttpClientConfig.Builder()
@@ -55,18 +102,41 @@ public class NettyHttpClient implements LifeCycle {
                 // 设置每个主机的最大连接数
                 .setMaxConnectionsPerHost(config.getHttpConnectionsPerHost())
                 // 设置连接空闲超时时间
-                .setPooledConnectionIdleTimeout(config.getHttpPooledConnectionIdleTimeout());
+                .setPooledConnectionIdleTimeout(config.getHttpPooledConnectionIdleTimeout())
+                // 使用自定义的带统计的连接池与时间轮
+                .setChannelPool(channelPool)
+                .setNettyTimer(nettyTimer);
         // 创建并初始化异步HTTP客户端
         this.asyncHttpClient = new DefaultAsyncHttpClient(builder.build());
+        this.upstreamClient = UpstreamClient.NETTY.equalsIgnoreCase(config.getUpstreamClient())
+                ? new NettyUpstreamClient(config, eventLoopGroupWoker)
+                : new AsyncHttpUpstreamClient(channelPool);
+        this.http2Client = new Http2UpstreamClient(config, eventLoopGroupWoker);
+        this.dubboClient = new DubboUpstreamClient(config);
+        this.grpcClient = new GrpcUpstreamClient(config, http2Client);
     }
 
     @Override
     public void start() {
         AsyncHttpHelper.getInstance().initialized(asyncHttpClient);
+        UpstreamHelper.getInstance().initialized(upstreamClient, http2Client, dubboClient, grpcClient);
+        log.info("upstream client: {}", upstreamClient.getClass().getSimpleName());
     }
 
     @Override
     public void shutdown() {
+        if (upstreamClient != null) {
+            upstreamClient.close();
+        }
+        if (grpcClient != null) {
+            grpcClient.close();
+        }
+        if (http2Client != null) {
+            http2Client.close();
+        }
+        if (dubboClient != null) {
+            dubboClient.close();
+        }
         if (asyncHttpClient != null) {
             try {
                 this.asyncHttpClient.close();
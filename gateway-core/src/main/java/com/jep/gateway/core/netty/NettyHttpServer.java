@@ -33,6 +33,7 @@ public class NettyHttpServer implements LifeCycle {
     private final Config config;
     private final NettyProcessor nettyProcessor;
     private ServerBootstrap serverBootstrap;
+    @Getter
     private EventLoopGroup eventLoopGroupBoss;
 
     @Getter
@@ -2,6 +2,7 @@ package com.jep.gateway.core.netty;
 
 import com.jep.gateway.core.context.HttpRequestWrapper;
 import com.jep.gateway.core.netty.processor.NettyProcessor;
+import com.jep.gateway.core.upstream.UpstreamBody;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -23,10 +24,23 @@ public class NettyHttpServerHandler extends ChannelInboundHandlerAdapter {
         HttpRequestWrapper httpRequestWrapper = new HttpRequestWrapper();
         httpRequestWrapper.setCtx(ctx);
         httpRequestWrapper.setRequest(request);
+        httpRequestWrapper.setReceiveTime(System.nanoTime());
 
         nettyProcessor.process(httpRequestWrapper);
     }
 
+    /**
+     * 正在流式转发下游响应体时，客户端连接的可写状态决定是否继续读下游
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        UpstreamBody body = ctx.channel().attr(UpstreamBody.CLIENT_BODY).get();
+        if (body != null) {
+            body.onWritabilityChanged();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         super.exceptionCaught(ctx, cause);
@@ -0,0 +1,185 @@
+package com.jep.gateway.core.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import lombok.Getter;
+import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.channel.ChannelPoolPartitionSelector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计的下游连接池
+ * 包装 AsyncHttpClient 默认的 ChannelPool，按分区(下游 host)统计连接的复用情况，
+ * 供运维接口查看每个下游地址的连接池使用量。
+ * 连接第一次归还到连接池时开始被统计，连接关闭时自动扣减。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 14:05
+ **/
+public class StatsChannelPool implements ChannelPool {
+
+    private static final AttributeKey<ChannelState> CHANNEL_STATE = AttributeKey.valueOf("gatewayPoolChannelState");
+
+    private final ChannelPool delegate;
+
+    /**
+     * 分区 —> 连接池统计
+     */
+    private final Map<String, HostStats> hostStatsMap = new ConcurrentHashMap<>();
+
+    public StatsChannelPool(ChannelPool delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean offer(Channel channel, Object partitionKey) {
+        boolean offered = delegate.offer(channel, partitionKey);
+        if (offered) {
+            HostStats stats = getHostStats(partitionKey);
+            stats.offered.increment();
+            Attribute<ChannelState> attr = channel.attr(CHANNEL_STATE);
+            ChannelState state = attr.get();
+            if (state == null) {
+                state = new ChannelState(stats);
+                if (attr.setIfAbsent(state) == null) {
+                    stats.open.increment();
+                    ChannelState closing = state;
+                    channel.closeFuture().addListener(future -> closing.close());
+                } else {
+                    state = attr.get();
+                }
+            }
+            state.markIdle(true);
+        }
+        return offered;
+    }
+
+    @Override
+    public Channel poll(Object partitionKey) {
+        Channel channel = delegate.poll(partitionKey);
+        HostStats stats = getHostStats(partitionKey);
+        if (channel == null) {
+            stats.misses.increment();
+        } else {
+            stats.hits.increment();
+            ChannelState state = channel.attr(CHANNEL_STATE).get();
+            if (state != null) {
+                state.markIdle(false);
+            }
+        }
+        return channel;
+    }
+
+    @Override
+    public boolean removeAll(Channel channel) {
+        return delegate.removeAll(channel);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void destroy() {
+        delegate.destroy();
+    }
+
+    @Override
+    public void flushPartition(Object partitionKey) {
+        delegate.flushPartition(partitionKey);
+    }
+
+    @Override
+    public void flushPartitions(ChannelPoolPartitionSelector selector) {
+        delegate.flushPartitions(selector);
+    }
+
+    /**
+     * 获取所有下游地址的连接池统计
+     */
+    public Map<String, HostStats> getHostStats() {
+        return hostStatsMap;
+    }
+
+    private HostStats getHostStats(Object partitionKey) {
+        return hostStatsMap.computeIfAbsent(String.valueOf(partitionKey), key -> new HostStats());
+    }
+
+    /**
+     * 单个下游地址的连接池统计
+     */
+    @Getter
+    public static class HostStats {
+        /**
+         * 已知的打开连接数
+         */
+        private final LongAdder open = new LongAdder();
+
+        /**
+         * 空闲在池中的连接数
+         */
+        private final LongAdder idle = new LongAdder();
+
+        /**
+         * 从池中取到可复用连接的次数
+         */
+        private final LongAdder hits = new LongAdder();
+
+        /**
+         * 池中无可用连接、需要新建连接的次数
+         */
+        private final LongAdder misses = new LongAdder();
+
+        /**
+         * 连接归还到池中的次数
+         */
+        private final LongAdder offered = new LongAdder();
+
+        public long getActive() {
+            return Math.max(0, open.sum() - idle.sum());
+        }
+    }
+
+    /**
+     * 连接在池中的状态，挂在 channel 属性上
+     */
+    private static class ChannelState {
+        private final HostStats stats;
+
+        private boolean idle;
+
+        private boolean closed;
+
+        ChannelState(HostStats stats) {
+            this.stats = stats;
+        }
+
+        synchronized void markIdle(boolean idle) {
+            if (closed || this.idle == idle) {
+                return;
+            }
+            this.idle = idle;
+            if (idle) {
+                stats.idle.increment();
+            } else {
+                stats.idle.decrement();
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stats.open.decrement();
+            if (idle) {
+                stats.idle.decrement();
+            }
+        }
+    }
+}
@@ -6,12 +6,19 @@ import com.jep.gateway.core.context.HttpRequestWrapper;
 import com.jep.gateway.core.disruptor.EventListener;
 import com.jep.gateway.core.disruptor.ParallelQueueHandler;
 import com.jep.gateway.core.helper.ResponseHelper;
+import com.jep.gateway.core.jfr.GatewayEvents;
+import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.ProducerType;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Disruptor流程处理类
  * 负责将接收到的HTTP请求封装成事件，并通过Disruptor框架进行异步处理。
@@ -35,37 +42,121 @@ public class DisruptorNettyCoreProcessor implements NettyProcessor {
 
     private static final String THREAD_NAME_PREFIX = "gateway-queue-";
 
+    /**
+     * 切换等待策略后旧处理器继续消费的时间(毫秒)，切换前已经取到旧处理器的生产者在此期间完成发布
+     */
+    private static final long RETIRE_DELAY_MILLIS = 1000;
+
     private Config config;
 
     // 网关核心处理器，用于实际处理请求
     private NettyCoreProcessor nettyCoreProcessor;
 
-    // 并行队列处理器，用于异步处理请求
-    private ParallelQueueHandler<HttpRequestWrapper> parallelQueueHandler;
+    // 并行队列处理器，用于异步处理请求；运行时切换等待策略时会整体替换
+    @Getter
+    private volatile ParallelQueueHandler<HttpRequestWrapper> parallelQueueHandler;
+
+    // 过载保护拒绝的请求数
+    private final LongAdder shedCount = new LongAdder();
 
     // 构造函数，初始化Disruptor相关组件
     public DisruptorNettyCoreProcessor(Config config, NettyCoreProcessor nettyCoreProcessor) {
         this.config = config;
         this.nettyCoreProcessor = nettyCoreProcessor;
-        // 构建并行队列处理器
+        this.parallelQueueHandler = buildQueueHandler(config.getWaitStrategy());
+    }
+
+    /**
+     * 构建并行队列处理器
+     */
+    private ParallelQueueHandler<HttpRequestWrapper> buildQueueHandler(WaitStrategy waitStrategy) {
         ParallelQueueHandler.Builder<HttpRequestWrapper> builder = new ParallelQueueHandler.Builder<HttpRequestWrapper>()
                 .setBufferSize(config.getBufferSize())//缓冲区大小
                 .setThreads(config.getProcessThread())//设置处理线程数量
                 .setProducerType(ProducerType.MULTI)//设置生产者类型为多生产者
                 .setNamePrefix(THREAD_NAME_PREFIX)//设置线程名前缀
-                .setWaitStrategy(config.getWaitStrategy());//设置等待策略
+                .setWaitStrategy(waitStrategy);//设置等待策略
 
         // 创建批量事件监听处理器
         BatchEventListenerProcessor batchEventListenerProcessor = new BatchEventListenerProcessor();
         builder.setListener(batchEventListenerProcessor);
-        this.parallelQueueHandler = builder.build();
-
+        return builder.build();
     }
 
     // 处理请求的方法，将请求添加到Disruptor队列中
     @Override
     public void process(HttpRequestWrapper wrapper) {
-        this.parallelQueueHandler.add(wrapper);
+        ParallelQueueHandler<HttpRequestWrapper> queueHandler = this.parallelQueueHandler;
+        double shedThreshold = config.getShedThreshold();
+        // 队列占用超过阈值时直接拒绝，避免请求在队列中排队直到超时
+        if (shedThreshold > 0 && queueHandler.getOccupancy() >= shedThreshold * queueHandler.getBufferSize()) {
+            shedCount.increment();
+            writeErrorResponse(wrapper, ResponseCode.SERVICE_UNAVAILABLE);
+            return;
+        }
+        wrapper.setEnqueueTime(GatewayEvents.startTime());
+        queueHandler.add(wrapper);
+    }
+
+    /**
+     * 运行时切换等待策略
+     * Disruptor 的等待策略在创建 RingBuffer 时确定，这里新建一个队列处理器并启动后切换引用，入队路径不加锁。
+     * 旧处理器继续消费 {@link #RETIRE_DELAY_MILLIS} 毫秒再排空关闭，切换前取到旧处理器的生产者仍能正常发布；
+     * 关闭后仍向旧处理器发布的请求被拒绝，在 {@link BatchEventListenerProcessor#onException} 中转交给当前的处理器。
+     */
+    public synchronized void changeWaitStrategy(String waitStrategy) {
+        config.setWaitStrategy(waitStrategy);
+        ParallelQueueHandler<HttpRequestWrapper> newHandler = buildQueueHandler(config.getWaitStrategy());
+        newHandler.start();
+        ParallelQueueHandler<HttpRequestWrapper> oldHandler = this.parallelQueueHandler;
+        this.parallelQueueHandler = newHandler;
+        new DefaultThreadFactory("gateway-queue-retire", true).newThread(() -> {
+            try {
+                Thread.sleep(RETIRE_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            oldHandler.shutDown();
+        }).start();
+        log.info("disruptor wait strategy changed to {}", waitStrategy);
+    }
+
+    /**
+     * 已关闭的处理器拒绝的请求转交给当前的处理器，当前处理器也已关闭(网关停止)时返回 false
+     */
+    private boolean redispatch(HttpRequestWrapper event) {
+        ParallelQueueHandler<HttpRequestWrapper> current = this.parallelQueueHandler;
+        if (current.isShutDown()) {
+            return false;
+        }
+        current.add(event);
+        return true;
+    }
+
+    /**
+     * 过载保护拒绝的请求数
+     */
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+
+    /**
+     * 直接写回错误响应
+     */
+    private void writeErrorResponse(HttpRequestWrapper wrapper, ResponseCode responseCode) {
+        FullHttpRequest request = wrapper.getRequest();
+        ChannelHandlerContext ctx = wrapper.getCtx();
+        FullHttpResponse fullHttpResponse = ResponseHelper.getHttpResponse(responseCode);
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        ReferenceCountUtil.release(request);
+        if (!keepAlive) {
+            // 如果请求不是长连接，则在发送响应后关闭连接
+            ctx.writeAndFlush(fullHttpResponse).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            // 如果请求是长连接，则保持连接
+            fullHttpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            ctx.writeAndFlush(fullHttpResponse);
+        }
     }
 
 
@@ -73,6 +164,7 @@ public class DisruptorNettyCoreProcessor implements NettyProcessor {
         // 处理事件的方法，将事件委托给网关核心处理器处理
         @Override
         public void onEvent(HttpRequestWrapper event) {
+            GatewayEvents.ringWait(event);
             nettyCoreProcessor.process(event);
 
         }
@@ -80,6 +172,10 @@ public class DisruptorNettyCoreProcessor implements NettyProcessor {
         @Override
         // 处理异常的方法，当事件处理过程中出现异常时调用
         public void onException(Throwable ex, long sequence, HttpRequestWrapper event) {
+            // 序号为 -1 表示请求没有入队，而是被已关闭的处理器拒绝
+            if (sequence < 0 && redispatch(event)) {
+                return;
+            }
             HttpRequest request = event.getRequest();
             ChannelHandlerContext ctx = event.getCtx();
             try {
@@ -8,6 +8,7 @@ import com.jep.gateway.core.filter.FilterChainFactoryImpl;
 import com.jep.gateway.core.filter.FilterChainFactory;
 import com.jep.gateway.core.helper.RequestHelper;
 import com.jep.gateway.core.helper.ResponseHelper;
+import com.jep.gateway.core.jfr.GatewayEvents;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -36,7 +37,8 @@ public class NettyCoreProcessor implements NettyProcessor {
         ChannelHandlerContext ctx = wrapper.getCtx();
         try {
             // 创建并填充 GatewayContext 以保存有关传入请求的信息
-            GatewayContext gatewayContext = RequestHelper.doContext(request, ctx);
+            GatewayContext gatewayContext = RequestHelper.doContext(request, ctx, wrapper.getReceiveTime());
+            GatewayEvents.requestAccepted(gatewayContext);
             // 组装过滤器并执行过滤操作
             chainFactory.buildFilterChain(gatewayContext).doFilter(gatewayContext);
         } catch (BaseException e) {
@@ -214,7 +214,7 @@ public class GatewayRequest implements IGatewayRequest {
             }
             Set<Cookie> cookies = ServerCookieDecoder.STRICT.decode(cookieStr);
             for (io.netty.handler.codec.http.cookie.Cookie cookie : cookies) {
-                cookieMap.put(name, cookie);
+                cookieMap.put(cookie.name(), cookie);
             }
         }
         return cookieMap.get(name);
@@ -311,6 +311,14 @@ public class GatewayRequest implements IGatewayRequest {
         requestBuilder.setRequestTimeout(requestTimeout);
     }
 
+    /**
+     * 是否为幂等的请求方法，重复发送不会产生额外的副作用，只有幂等请求可以重试和对冲
+     */
+    public boolean isIdempotent() {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)
+                || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method) || HttpMethod.TRACE.equals(method);
+    }
+
     @Override
     public String getFinalUrl() {
         return modifyScheme + modifyHost + modifyPath;
@@ -318,8 +326,14 @@ public class GatewayRequest implements IGatewayRequest {
 
     @Override
     public Request build() {
-        requestBuilder.setUrl(getFinalUrl());
-        requestBuilder.addHeader("userId", String.valueOf(userId));
+        return build(modifyHost);
+    }
+
+    @Override
+    public Request build(String host) {
+        requestBuilder.setUrl(modifyScheme + host + modifyPath);
+        // 重试和对冲会多次构造请求，使用 setHeader 避免重复添加
+        requestBuilder.setHeader("userId", String.valueOf(userId));
         return requestBuilder.build();
     }
 
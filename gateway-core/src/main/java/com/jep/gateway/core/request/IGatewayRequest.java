@@ -89,4 +89,12 @@ public interface IGatewayRequest {
      * @return
      */
     Request build();
+
+    /**
+     * 构造发往指定实例的请求对象
+     *
+     * @param host 实例地址 ip:port
+     * @return
+     */
+    Request build(String host);
 }
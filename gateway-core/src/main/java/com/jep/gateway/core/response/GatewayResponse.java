@@ -6,7 +6,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jep.gateway.common.util.JSONUtil;
 import io.netty.handler.codec.http.*;
 import lombok.Data;
-import org.asynchttpclient.Response;
+import com.jep.gateway.core.upstream.UpstreamResponse;
 
 /**
  * @author enping.jep
@@ -32,7 +32,7 @@ public class GatewayResponse {
     /**
      * 异步返回对象
      */
-    private Response futureResponse;
+    private UpstreamResponse futureResponse;
 
     /**
      * 响应返回码
@@ -60,7 +60,7 @@ public class GatewayResponse {
      * @param futureResponse
      * @return
      */
-    public static GatewayResponse buildGatewayResponse(Response futureResponse) {
+    public static GatewayResponse buildGatewayResponse(UpstreamResponse futureResponse) {
         GatewayResponse response = new GatewayResponse();
         response.setFutureResponse(futureResponse);
         response.setHttpResponseStatus(HttpResponseStatus.valueOf(futureResponse.getStatusCode()));
@@ -0,0 +1,91 @@
+package com.jep.gateway.core.upstream;
+
+import com.jep.gateway.common.constant.BasicConst;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.helper.AsyncHttpHelper;
+import com.jep.gateway.core.request.GatewayRequest;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.channel.ChannelPool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于 AsyncHttpClient 的下游客户端
+ * AsyncHttpClient 没有单独建立连接的接口，不支持预热；实例下线时关闭连接池中该实例分区的空闲连接
+ *
+ * @author enping.jep
+ * @date 2026/10/20 09:15
+ **/
+public class AsyncHttpUpstreamClient implements UpstreamClient {
+
+    /**
+     * AsyncHttpClient 使用的连接池，按 scheme://host:port 分区
+     */
+    private final ChannelPool channelPool;
+
+    public AsyncHttpUpstreamClient() {
+        this(null);
+    }
+
+    public AsyncHttpUpstreamClient(ChannelPool channelPool) {
+        this.channelPool = channelPool;
+    }
+
+    /**
+     * 本次调用使用请求剩余的超时时间，并随请求头转发给下游
+     */
+    @Override
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host) {
+        GatewayRequest request = ctx.getRequest();
+        long timeout = ctx.getRemainingTimeout(ConfigLoader.getConfig().getHttpRequestTimeout());
+        // AsyncHttpClient 的超时为0时使用客户端的默认超时
+        request.setRequestTimeout((int) Math.max(1, timeout));
+        request.setHeader(GatewayConst.REQUEST_TIMEOUT_HEADER, String.valueOf(timeout));
+        ListenableFuture<Response> future = AsyncHttpHelper.getInstance().execute(request.build(host));
+        ResponseFuture result = new ResponseFuture(future);
+        // 不使用 thenApply，避免异常被包装为 CompletionException
+        future.toCompletableFuture().whenComplete(result);
+        return result;
+    }
+
+    @Override
+    public void drain(String host) {
+        if (channelPool != null) {
+            channelPool.flushPartition(BasicConst.HTTP_PREFIX_SEPARATOR + host);
+        }
+    }
+
+    /**
+     * 取消时中止 AsyncHttpClient 的请求，该请求的连接会被关闭
+     */
+    private static final class ResponseFuture extends CompletableFuture<UpstreamResponse> implements BiConsumer<Response, Throwable> {
+
+        private final ListenableFuture<Response> future;
+
+        ResponseFuture(ListenableFuture<Response> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void accept(Response response, Throwable throwable) {
+            if (throwable != null) {
+                completeExceptionally(throwable);
+            } else {
+                complete(UpstreamResponse.of(response));
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                future.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.jep.gateway.core.upstream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jep.gateway.common.config.DubboServiceInvoker;
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInvoker;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.common.enums.ResponseCode;
+import com.jep.gateway.common.util.JSONUtil;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.netty.GatewayTimer;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.service.GenericException;
+import org.apache.dubbo.rpc.service.GenericService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * dubbo 协议服务的下游客户端，通过泛化调用把 HTTP 请求转换为 dubbo 调用
+ * <p>
+ * 1.按请求路径找到服务定义中的 {@link DubboServiceInvoker}，请求体按接口声明的参数类型解析：
+ * 只有一个参数时请求体就是该参数，多个参数时请求体为按顺序排列的 JSON 数组；
+ * 基本类型、包装类型和 String 在网关转换，其他类型以 Map/List 传给提供者，由提供者按参数类型还原；
+ * 2.泛化引用按 接口:版本@实例地址 缓存，直连负载均衡选定的实例，不经过 dubbo 注册中心；
+ * 同一实例上的所有引用共享 dubbo 的长连接，实例上线时预先建立引用，下线时销毁；
+ * ReferenceConfig.get() 会同步建立连接，只在专用线程上执行，引用建立期间到达的请求等待引用建立完成后再调用，
+ * 建立失败时这些请求以 {@link IOException} 返回，下一个请求重新建立；
+ * 3.调用全程异步，不阻塞 EventLoop，结果在客户端连接的 EventLoop 上回调，序列化为 JSON 响应；
+ * 超时以 {@link TimeoutException}、连接失败以 {@link IOException} 返回，其他调用失败(包括提供者抛出的业务异常)返回 500 响应。
+ * <p>
+ * dubbo 2.7 使用 javassist 生成自适应扩展类、hessian 序列化反射访问 JDK 类的字段，JDK 17 上网关进程需要添加
+ * --add-opens java.base/java.lang=ALL-UNNAMED --add-opens java.base/java.math=ALL-UNNAMED。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 15:10
+ **/
+@Slf4j
+public class DubboUpstreamClient implements UpstreamClient {
+
+    private static final String APPLICATION_NAME = "gateway";
+
+    private static final String DUBBO_PREFIX = "dubbo://";
+
+    /**
+     * 泛化调用结果中 POJO 的类型字段，写回客户端时去掉
+     */
+    private static final String CLASS_KEY = "class";
+
+    /**
+     * 建立泛化引用的线程数，引用只在首次调用或实例上线时建立
+     */
+    private static final int REFER_THREADS = 2;
+
+    /**
+     * 在网关转换的参数类型，其他类型交给提供者还原
+     */
+    private static final Map<String, Class<?>> BASIC_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, short.class, char.class, int.class, long.class,
+                float.class, double.class, Boolean.class, Byte.class, Short.class, Character.class, Integer.class,
+                Long.class, Float.class, Double.class, String.class, BigDecimal.class, BigInteger.class}) {
+            BASIC_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private final int requestTimeout;
+
+    private final ApplicationConfig application;
+
+    /**
+     * 接口:版本@实例地址 —> 泛化引用
+     */
+    private final ConcurrentHashMap<String, Reference> references = new ConcurrentHashMap<>();
+
+    /**
+     * 建立泛化引用的专用线程，ReferenceConfig.get() 同步建立连接，不能在 EventLoop 上执行
+     */
+    private final ExecutorService referExecutor;
+
+    private volatile boolean closed;
+
+    public DubboUpstreamClient(Config config) {
+        this.requestTimeout = config.getHttpRequestTimeout();
+        this.application = new ApplicationConfig(APPLICATION_NAME);
+        this.application.setQosEnable(false);
+        this.referExecutor = Executors.newFixedThreadPool(REFER_THREADS, new DefaultThreadFactory("gateway-dubbo-refer", true));
+    }
+
+    /**
+     * 服务是否使用 dubbo 协议
+     */
+    public static boolean isEnabled(ServiceDefinition serviceDefinition) {
+        return serviceDefinition != null && GatewayConst.PROTOCOL_DUBBO.equalsIgnoreCase(serviceDefinition.getProtocol());
+    }
+
+    @Override
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("upstream client closed"));
+        }
+        ServiceDefinition serviceDefinition = DynamicConfigManager.getInstance().getServiceDefinition(ctx.getUniqueId());
+        DubboServiceInvoker invoker = getInvoker(serviceDefinition, ctx.getRequest().getPath());
+        if (invoker == null) {
+            return CompletableFuture.completedFuture(errorResponse(ResponseCode.SERVICE_INVOKER_NOT_FOUND, null));
+        }
+        Object[] args;
+        try {
+            args = parseArguments(invoker.getParameterTypes(), ctx.getRequest().getBody());
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(errorResponse(ResponseCode.REQUEST_ARGUMENT_ERROR, e.getMessage()));
+        }
+        EventLoop eventLoop = ctx.getNettyContext().channel().eventLoop();
+        InvokeFuture result = new InvokeFuture(eventLoop);
+        long timeoutMillis = ctx.getRemainingTimeout(requestTimeout);
+        // 超时包括等待引用建立的时间
+        result.timeout = GatewayTimer.getInstance().newTimeout(() -> eventLoop.execute(() ->
+                result.expire(new TimeoutException("dubbo invoke timeout " + host))), timeoutMillis);
+        CompletableFuture<GenericService> reference = refer(invoker, host);
+        GenericService service = reference.getNow(null);
+        if (service != null) {
+            invoke(service, invoker, args, result);
+            return result;
+        }
+        // 引用还在建立，建立完成后回到 EventLoop 上调用
+        reference.whenComplete((referred, throwable) -> eventLoop.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (throwable != null) {
+                result.accept(null, new IOException("failed to refer " + invoker.getInterfaceClass() + " at " + host, throwable));
+            } else {
+                invoke(referred, invoker, args, result);
+            }
+        }));
+        return result;
+    }
+
+    private static void invoke(GenericService service, DubboServiceInvoker invoker, Object[] args, InvokeFuture result) {
+        CompletableFuture<Object> future;
+        try {
+            // 异步引用的 $invoke 直接返回 null，结果从调用线程的 RpcContext 获取
+            service.$invoke(invoker.getMethodName(), invoker.getParameterTypes(), args);
+            future = RpcContext.getContext().getCompletableFuture();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        result.attach(future);
+        future.whenComplete(result);
+    }
+
+    /**
+     * 实例上线时为服务的每个接口预先建立泛化引用，连接在后台线程上建立
+     */
+    @Override
+    public void warmUp(ServiceDefinition serviceDefinition, String host, int count) {
+        if (closed || !isEnabled(serviceDefinition) || serviceDefinition.getInvokerMap() == null) {
+            return;
+        }
+        // 同一接口的多个方法共用一个引用
+        Map<String, DubboServiceInvoker> interfaces = new HashMap<>();
+        for (ServiceInvoker invoker : serviceDefinition.getInvokerMap().values()) {
+            if (invoker instanceof DubboServiceInvoker) {
+                interfaces.putIfAbsent(referenceKey((DubboServiceInvoker) invoker, host), (DubboServiceInvoker) invoker);
+            }
+        }
+        for (DubboServiceInvoker invoker : interfaces.values()) {
+            refer(invoker, host).whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    log.warn("warm up dubbo reference {} at {} failed", invoker.getInterfaceClass(), host, throwable);
+                }
+            });
+        }
+    }
+
+    /**
+     * 实例下线，销毁该实例上的所有泛化引用，最后一个引用销毁时 dubbo 关闭连接
+     */
+    @Override
+    public void drain(String host) {
+        String suffix = "@" + host;
+        Iterator<Map.Entry<String, Reference>> iterator = references.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Reference> entry = iterator.next();
+            if (entry.getKey().endsWith(suffix)) {
+                iterator.remove();
+                entry.getValue().destroy();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Reference reference : references.values()) {
+            reference.destroy();
+        }
+        references.clear();
+        referExecutor.shutdownNow();
+    }
+
+    private static DubboServiceInvoker getInvoker(ServiceDefinition serviceDefinition, String path) {
+        if (serviceDefinition == null || serviceDefinition.getInvokerMap() == null) {
+            return null;
+        }
+        ServiceInvoker invoker = serviceDefinition.getInvokerMap().get(path);
+        return invoker instanceof DubboServiceInvoker ? (DubboServiceInvoker) invoker : null;
+    }
+
+    /**
+     * 获取接口在实例上的泛化引用，不存在时在专用线程上创建并建立连接，不阻塞调用线程；
+     * 建立失败时移除，下次重新创建
+     */
+    private CompletableFuture<GenericService> refer(DubboServiceInvoker invoker, String host) {
+        String key = referenceKey(invoker, host);
+        Reference reference = references.get(key);
+        if (reference != null) {
+            return reference.future;
+        }
+        Reference created = new Reference(newReference(invoker, host));
+        reference = references.putIfAbsent(key, created);
+        if (reference != null) {
+            return reference.future;
+        }
+        try {
+            referExecutor.execute(() -> created.refer(() -> references.remove(key, created)));
+        } catch (RejectedExecutionException e) {
+            // 客户端已经关闭
+            references.remove(key, created);
+            created.future.completeExceptionally(new IOException("upstream client closed", e));
+        }
+        return created.future;
+    }
+
+    private static String referenceKey(DubboServiceInvoker invoker, String host) {
+        return invoker.getInterfaceClass() + ":" + invoker.getVersion() + "@" + host;
+    }
+
+    private ReferenceConfig<GenericService> newReference(DubboServiceInvoker invoker, String host) {
+        ReferenceConfig<GenericService> reference = new ReferenceConfig<>();
+        reference.setApplication(application);
+        reference.setInterface(invoker.getInterfaceClass());
+        reference.setVersion(invoker.getVersion());
+        reference.setGeneric(Boolean.TRUE.toString());
+        reference.setUrl(DUBBO_PREFIX + host);
+        reference.setAsync(true);
+        reference.setCheck(false);
+        reference.setTimeout(invoker.getTimeout() > 0 ? invoker.getTimeout() : requestTimeout);
+        // 重试由路由过滤器按重试策略和预算处理
+        reference.setRetries(0);
+        // 泛化引用使用 JDK 动态代理，不为每个接口生成 javassist 代理类
+        reference.setProxy("jdk");
+        return reference;
+    }
+
+    /**
+     * 按接口声明的参数类型解析请求体
+     */
+    static Object[] parseArguments(String[] parameterTypes, String body) {
+        int count = parameterTypes == null ? 0 : parameterTypes.length;
+        Object[] args = new Object[count];
+        if (count == 0) {
+            return args;
+        }
+        JsonNode node = StringUtils.isBlank(body) ? NullNode.getInstance() : JSONUtil.tree(body);
+        if (count == 1) {
+            args[0] = convert(node, parameterTypes[0]);
+            return args;
+        }
+        if (!node.isArray() || node.size() != count) {
+            throw new IllegalArgumentException("request body must be a json array of " + count + " arguments");
+        }
+        for (int i = 0; i < count; i++) {
+            args[i] = convert(node.get(i), parameterTypes[i]);
+        }
+        return args;
+    }
+
+    private static Object convert(JsonNode node, String parameterType) {
+        if (node.isNull()) {
+            return null;
+        }
+        Class<?> type = BASIC_TYPES.getOrDefault(parameterType, Object.class);
+        return JSONUtil.convertValue(node, type);
+    }
+
+    /**
+     * 去掉泛化结果中 POJO 的类型字段
+     */
+    private static Object removeClassKey(Object value) {
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (map.get(CLASS_KEY) instanceof String) {
+                map.remove(CLASS_KEY);
+            }
+            map.values().forEach(DubboUpstreamClient::removeClassKey);
+        } else if (value instanceof Collection) {
+            ((Collection<?>) value).forEach(DubboUpstreamClient::removeClassKey);
+        }
+        return value;
+    }
+
+    private static UpstreamResponse jsonResponse(HttpResponseStatus status, String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        HttpHeaders headers = new DefaultHttpHeaders()
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON + ";charset=utf-8")
+                .set(HttpHeaderNames.CONTENT_LENGTH, bytes.length);
+        return new UpstreamResponse(status.code(), headers, Unpooled.wrappedBuffer(bytes));
+    }
+
+    private static UpstreamResponse errorResponse(ResponseCode code, String message) {
+        ObjectNode objectNode = JSONUtil.createObjectNode();
+        objectNode.put(JSONUtil.STATUS, code.getStatus().code());
+        objectNode.put(JSONUtil.CODE, code.getCode());
+        objectNode.put(JSONUtil.MESSAGE, message == null ? code.getMessage() : message);
+        return jsonResponse(code.getStatus(), JSONUtil.toJSONString(objectNode));
+    }
+
+    /**
+     * 缓存的泛化引用，ReferenceConfig.get() 每次都会重新检查配置，只在建立引用时调用一次
+     */
+    private static final class Reference {
+
+        private final ReferenceConfig<GenericService> config;
+
+        /**
+         * 引用建立的结果，建立期间到达的请求在这里等待
+         */
+        private final CompletableFuture<GenericService> future = new CompletableFuture<>();
+
+        Reference(ReferenceConfig<GenericService> config) {
+            this.config = config;
+        }
+
+        /**
+         * 在专用线程上建立引用，失败时先从缓存移除再销毁，ReferenceConfig 初始化失败后不会再次初始化
+         */
+        void refer(Runnable evict) {
+            GenericService service = null;
+            Throwable cause = null;
+            try {
+                service = config.get();
+            } catch (RuntimeException e) {
+                cause = e;
+            }
+            if (service != null) {
+                future.complete(service);
+                return;
+            }
+            evict.run();
+            config.destroy();
+            future.completeExceptionally(cause != null ? cause : new IllegalStateException("dubbo reference is not available"));
+        }
+
+        void destroy() {
+            future.completeExceptionally(new IOException("dubbo reference destroyed"));
+            config.destroy();
+        }
+    }
+
+    /**
+     * 一次泛化调用的结果：dubbo 在自己的线程上回调，这里切换到客户端连接的 EventLoop 再完成
+     */
+    private static final class InvokeFuture extends CompletableFuture<UpstreamResponse> implements BiConsumer<Object, Throwable> {
+
+        private final EventLoop eventLoop;
+
+        private Timeout timeout;
+
+        /**
+         * dubbo 调用的结果，引用建立完成并发起调用后才有
+         */
+        private volatile CompletableFuture<Object> upstream;
+
+        InvokeFuture(EventLoop eventLoop) {
+            this.eventLoop = eventLoop;
+        }
+
+        void attach(CompletableFuture<Object> upstream) {
+            this.upstream = upstream;
+            if (isDone()) {
+                upstream.cancel(false);
+            }
+        }
+
+        /**
+         * 超时：以超时异常完成并取消 dubbo 调用
+         */
+        void expire(TimeoutException cause) {
+            if (completeExceptionally(cause)) {
+                cancelUpstream();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                timeout.cancel();
+                cancelUpstream();
+            }
+            return cancelled;
+        }
+
+        private void cancelUpstream() {
+            CompletableFuture<Object> current = upstream;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        @Override
+        public void accept(Object value, Throwable throwable) {
+            timeout.cancel();
+            if (eventLoop.inEventLoop()) {
+                finish(value, throwable);
+            } else {
+                eventLoop.execute(() -> finish(value, throwable));
+            }
+        }
+
+        private void finish(Object value, Throwable throwable) {
+            if (isDone()) {
+                return;
+            }
+            if (throwable == null) {
+                try {
+                    complete(jsonResponse(HttpResponseStatus.OK, JSONUtil.toJSONString(removeClassKey(value))));
+                } catch (RuntimeException e) {
+                    complete(errorResponse(ResponseCode.HTTP_RESPONSE_ERROR, e.getMessage()));
+                }
+                return;
+            }
+            Throwable cause = throwable;
+            while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RpcException) {
+                RpcException rpcException = (RpcException) cause;
+                if (rpcException.isTimeout()) {
+                    completeExceptionally(new TimeoutException(cause.getMessage()));
+                    return;
+                }
+                if (rpcException.isNetwork() || rpcException.isForbidded()) {
+                    completeExceptionally(new IOException(cause.getMessage(), cause));
+                    return;
+                }
+            }
+            String message = cause instanceof GenericException
+                    ? ((GenericException) cause).getExceptionClass() + ": " + ((GenericException) cause).getExceptionMessage()
+                    : cause.getClass().getName() + ": " + cause.getMessage();
+            complete(errorResponse(ResponseCode.HTTP_RESPONSE_ERROR, message));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.jep.gateway.core.upstream;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.util.JSONUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * gRPC 方法的转码器：JSON 请求体 —> 带长度前缀的 protobuf 请求帧，protobuf 响应帧 —> JSON
+ * 每个方法的转码器只在第一次调用时编译(解析方法、输入输出消息类型和字段查找表)，之后从服务的缓存中获取。
+ * 只支持一元调用，流式方法不做转码。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 15:50
+ **/
+final class GrpcTranscoder {
+
+    /**
+     * gRPC 消息帧头：1字节压缩标志 + 4字节消息长度
+     */
+    private static final int FRAME_HEADER_LENGTH = 5;
+
+    /**
+     * HTTP/2 请求路径：/package.Service/Method
+     */
+    private final String path;
+
+    private final ProtoJsonCodec requestCodec;
+
+    private final ProtoJsonCodec responseCodec;
+
+    private GrpcTranscoder(Descriptors.MethodDescriptor method, Schema schema) {
+        this.path = "/" + method.getService().getFullName() + "/" + method.getName();
+        this.requestCodec = schema.codec(method.getInputType());
+        this.responseCodec = schema.codec(method.getOutputType());
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * 请求体转为 gRPC 请求帧，请求体为空时发送空消息
+     *
+     * @throws IllegalArgumentException 请求体不是合法的 JSON 或与输入消息类型不匹配
+     */
+    ByteBuf encodeRequest(String body, ByteBufAllocator allocator) {
+        DynamicMessage message = requestCodec.parse(StringUtils.isBlank(body) ? null : JSONUtil.tree(body));
+        int length = message.getSerializedSize();
+        ByteBuf frame = allocator.buffer(FRAME_HEADER_LENGTH + length);
+        try {
+            frame.writeByte(0).writeInt(length);
+            message.writeTo(new ByteBufOutputStream(frame));
+            return frame;
+        } catch (IOException | RuntimeException e) {
+            frame.release();
+            throw new IllegalArgumentException("encode grpc request failed", e);
+        }
+    }
+
+    /**
+     * gRPC 响应帧转为 JSON，一元调用只有一个消息
+     *
+     * @throws IllegalArgumentException 响应帧不完整、被压缩或与输出消息类型不匹配
+     */
+    String decodeResponse(ByteBuf content) {
+        if (content.readableBytes() < FRAME_HEADER_LENGTH) {
+            throw new IllegalArgumentException("grpc response has no message");
+        }
+        int index = content.readerIndex();
+        if (content.getByte(index) != 0) {
+            // 请求没有声明 grpc-accept-encoding，下游不应压缩响应
+            throw new IllegalArgumentException("compressed grpc response is not supported");
+        }
+        long length = content.getUnsignedInt(index + 1);
+        if (length > content.readableBytes() - FRAME_HEADER_LENGTH) {
+            throw new IllegalArgumentException("grpc response message is truncated");
+        }
+        try {
+            CodedInputStream input = CodedInputStream.newInstance(
+                    new ByteBufInputStream(content.slice(index + FRAME_HEADER_LENGTH, (int) length)));
+            DynamicMessage message = DynamicMessage.parseFrom(responseCodec.getDescriptor(), input);
+            return JSONUtil.toJSONString(responseCodec.print(message));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("decode grpc response failed", e);
+        }
+    }
+
+    /**
+     * 一个 gRPC 服务的描述与转码器缓存，服务的 gRPC 配置变化时重建
+     */
+    static final class Schema {
+
+        private final ServiceDefinition.GrpcConfig config;
+
+        private final Descriptors.ServiceDescriptor service;
+
+        /**
+         * 消息类型 —> 转码器
+         */
+        private final ConcurrentHashMap<Descriptors.Descriptor, ProtoJsonCodec> codecs = new ConcurrentHashMap<>();
+
+        /**
+         * 方法名 —> 转码器
+         */
+        private final ConcurrentHashMap<String, GrpcTranscoder> methods = new ConcurrentHashMap<>();
+
+        /**
+         * 解析服务的 FileDescriptorSet
+         *
+         * @throws IllegalArgumentException 描述无法解析、缺少依赖的文件或找不到服务
+         */
+        Schema(ServiceDefinition.GrpcConfig config) {
+            this.config = config;
+            try {
+                DescriptorProtos.FileDescriptorSet set = DescriptorProtos.FileDescriptorSet.parseFrom(
+                        Base64.getDecoder().decode(config.getDescriptorSet()));
+                Map<String, DescriptorProtos.FileDescriptorProto> protos = new HashMap<>();
+                for (DescriptorProtos.FileDescriptorProto proto : set.getFileList()) {
+                    protos.put(proto.getName(), proto);
+                }
+                Map<String, Descriptors.FileDescriptor> files = new HashMap<>();
+                Descriptors.ServiceDescriptor found = null;
+                for (String name : protos.keySet()) {
+                    for (Descriptors.ServiceDescriptor candidate : build(name, protos, files).getServices()) {
+                        if (candidate.getFullName().equals(config.getService())) {
+                            found = candidate;
+                        }
+                    }
+                }
+                if (found == null) {
+                    throw new IllegalArgumentException("grpc service " + config.getService() + " is not in the descriptor set");
+                }
+                this.service = found;
+            } catch (InvalidProtocolBufferException | Descriptors.DescriptorValidationException e) {
+                throw new IllegalArgumentException("invalid descriptor set of grpc service " + config.getService(), e);
+            }
+        }
+
+        ServiceDefinition.GrpcConfig getConfig() {
+            return config;
+        }
+
+        /**
+         * 获取方法的转码器，方法不存在或不是一元调用时返回 null
+         */
+        GrpcTranscoder method(String name) {
+            GrpcTranscoder transcoder = methods.get(name);
+            if (transcoder != null) {
+                return transcoder;
+            }
+            Descriptors.MethodDescriptor method = service.findMethodByName(name);
+            if (method == null || method.toProto().getClientStreaming() || method.toProto().getServerStreaming()) {
+                return null;
+            }
+            return methods.computeIfAbsent(name, key -> new GrpcTranscoder(method, this));
+        }
+
+        ProtoJsonCodec codec(Descriptors.Descriptor descriptor) {
+            ProtoJsonCodec codec = codecs.get(descriptor);
+            return codec != null ? codec : codecs.computeIfAbsent(descriptor, key -> new ProtoJsonCodec(key, this::codec));
+        }
+
+        private static Descriptors.FileDescriptor build(String name, Map<String, DescriptorProtos.FileDescriptorProto> protos,
+                                                        Map<String, Descriptors.FileDescriptor> files) throws Descriptors.DescriptorValidationException {
+            Descriptors.FileDescriptor file = files.get(name);
+            if (file != null) {
+                return file;
+            }
+            DescriptorProtos.FileDescriptorProto proto = protos.get(name);
+            if (proto == null) {
+                throw new IllegalArgumentException("descriptor set does not include " + name);
+            }
+            Descriptors.FileDescriptor[] dependencies = new Descriptors.FileDescriptor[proto.getDependencyCount()];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = build(proto.getDependency(i), protos, files);
+            }
+            file = Descriptors.FileDescriptor.buildFrom(proto, dependencies);
+            files.put(name, file);
+            return file;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.jep.gateway.core.upstream;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.common.enums.ResponseCode;
+import com.jep.gateway.common.util.JSONUtil;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.AsciiString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * grpc 协议服务的下游客户端，把 JSON 请求转码为 gRPC 一元调用
+ * <p>
+ * 1.请求路径的最后一段是方法名，请求体是输入消息的 JSON，按服务定义中 FileDescriptorSet 描述的消息类型编码；
+ * 2.转码后的请求通过 {@link Http2UpstreamClient} 的连接池发送，与 HTTP/2 服务共享多路复用的 h2c 连接；
+ * 3.grpc-status 为 0 时输出消息转为 JSON 返回 200，其他状态映射为对应的 HTTP 状态码，
+ * DEADLINE_EXCEEDED 以 {@link TimeoutException}、UNAVAILABLE 以 {@link IOException} 返回，交给路由过滤器重试。
+ * <p>
+ * 服务描述在首次调用或实例上线时解析，每个方法的转码器首次调用时编译并缓存，gRPC 配置变化后重建。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 16:00
+ **/
+@Slf4j
+public class GrpcUpstreamClient implements UpstreamClient {
+
+    private static final AsciiString GRPC_CONTENT_TYPE = AsciiString.cached("application/grpc");
+
+    private static final AsciiString GRPC_TIMEOUT = AsciiString.cached("grpc-timeout");
+
+    private static final AsciiString GRPC_STATUS = AsciiString.cached("grpc-status");
+
+    private static final AsciiString GRPC_MESSAGE = AsciiString.cached("grpc-message");
+
+    private static final String SCHEME = HttpConversionUtil.ExtensionHeaderNames.SCHEME.text().toString();
+
+    private static final String SCHEME_HTTP = "http";
+
+    private static final int DEADLINE_EXCEEDED = 4;
+
+    private static final int UNAVAILABLE = 14;
+
+    /**
+     * gRPC 状态码 —> HTTP 状态码，按 gRPC 官方的 HTTP 映射
+     */
+    private static final int[] HTTP_STATUS = {200, 499, 500, 400, 504, 404, 409, 403, 429, 400, 409, 400, 501, 500, 503, 500, 401};
+
+    private final Http2UpstreamClient http2Client;
+
+    private final int requestTimeout;
+
+    /**
+     * 服务唯一ID —> 服务描述
+     */
+    private final ConcurrentHashMap<String, GrpcTranscoder.Schema> schemas = new ConcurrentHashMap<>();
+
+    public GrpcUpstreamClient(Config config, Http2UpstreamClient http2Client) {
+        this.http2Client = http2Client;
+        this.requestTimeout = config.getHttpRequestTimeout();
+    }
+
+    /**
+     * 服务是否使用 grpc 协议
+     */
+    public static boolean isEnabled(ServiceDefinition serviceDefinition) {
+        return serviceDefinition != null && serviceDefinition.getGrpc() != null
+                && GatewayConst.PROTOCOL_GRPC.equalsIgnoreCase(serviceDefinition.getProtocol());
+    }
+
+    @Override
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host) {
+        ServiceDefinition serviceDefinition = DynamicConfigManager.getInstance().getServiceDefinition(ctx.getUniqueId());
+        if (!isEnabled(serviceDefinition)) {
+            return CompletableFuture.completedFuture(errorResponse(ResponseCode.SERVICE_DEFINITION_NOT_FOUND, null));
+        }
+        GatewayRequest request = ctx.getRequest();
+        String path = request.getModifyPath();
+        GrpcTranscoder transcoder;
+        try {
+            transcoder = getSchema(serviceDefinition).method(path.substring(path.lastIndexOf('/') + 1));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(errorResponse(ResponseCode.HTTP_RESPONSE_ERROR, e.getMessage()));
+        }
+        if (transcoder == null) {
+            return CompletableFuture.completedFuture(errorResponse(ResponseCode.SERVICE_INVOKER_NOT_FOUND,
+                    "grpc unary method not found: " + path));
+        }
+        ByteBuf content;
+        try {
+            content = transcoder.encodeRequest(request.getBody(), ctx.getNettyContext().alloc());
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(errorResponse(ResponseCode.REQUEST_ARGUMENT_ERROR, e.getMessage()));
+        }
+        long timeoutMillis = ctx.getRemainingTimeout(requestTimeout);
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> iterator = request.getHeaders().iteratorCharSequence(); iterator.hasNext(); ) {
+            Map.Entry<CharSequence, CharSequence> header = iterator.next();
+            CharSequence name = header.getKey();
+            if (!NettyUpstreamClient.isSkipped(name) && !HttpHeaderNames.CONTENT_TYPE.contentEqualsIgnoreCase(name)
+                    && !HttpHeaderNames.HOST.contentEqualsIgnoreCase(name) && !GRPC_TIMEOUT.contentEqualsIgnoreCase(name)) {
+                headers.add(name, header.getValue());
+            }
+        }
+        headers.set(HttpHeaderNames.HOST, host);
+        headers.set(SCHEME, SCHEME_HTTP);
+        headers.set(HttpHeaderNames.CONTENT_TYPE, GRPC_CONTENT_TYPE);
+        headers.set(HttpHeaderNames.TE, HttpHeaderValues.TRAILERS);
+        headers.set(GRPC_TIMEOUT, timeoutMillis + "m");
+        headers.set(NettyUpstreamClient.USER_ID, String.valueOf(request.getUserId()));
+        headers.setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        DefaultFullHttpRequest grpcRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                transcoder.getPath(), content, headers, new DefaultHttpHeaders(false));
+
+        ServiceDefinition.Http2Config http2 = serviceDefinition.getHttp2() != null
+                ? serviceDefinition.getHttp2() : new ServiceDefinition.Http2Config();
+        CompletableFuture<UpstreamResponse> upstream = http2Client.execute(host, http2, grpcRequest, timeoutMillis);
+        TranscodeFuture result = new TranscodeFuture(transcoder, upstream);
+        upstream.whenComplete(result);
+        return result;
+    }
+
+    /**
+     * 实例上线时解析服务描述并预热 h2c 连接
+     */
+    @Override
+    public void warmUp(ServiceDefinition serviceDefinition, String host, int count) {
+        if (!isEnabled(serviceDefinition)) {
+            return;
+        }
+        try {
+            getSchema(serviceDefinition);
+        } catch (RuntimeException e) {
+            log.warn("invalid grpc descriptor of service {}", serviceDefinition.getUniqueId(), e);
+        }
+        http2Client.warmUp(serviceDefinition.getHttp2() != null
+                ? serviceDefinition.getHttp2() : new ServiceDefinition.Http2Config(), host, count);
+    }
+
+    @Override
+    public void close() {
+        schemas.clear();
+    }
+
+    /**
+     * 获取服务描述，gRPC 配置变化时重新解析
+     */
+    private GrpcTranscoder.Schema getSchema(ServiceDefinition serviceDefinition) {
+        ServiceDefinition.GrpcConfig config = serviceDefinition.getGrpc();
+        GrpcTranscoder.Schema schema = schemas.get(serviceDefinition.getUniqueId());
+        if (schema != null && (schema.getConfig() == config || schema.getConfig().equals(config))) {
+            return schema;
+        }
+        return schemas.compute(serviceDefinition.getUniqueId(), (id, current) ->
+                current != null && current.getConfig().equals(config) ? current : new GrpcTranscoder.Schema(config));
+    }
+
+    private static UpstreamResponse jsonResponse(HttpResponseStatus status, String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        HttpHeaders headers = new DefaultHttpHeaders()
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON + ";charset=utf-8")
+                .set(HttpHeaderNames.CONTENT_LENGTH, bytes.length);
+        return new UpstreamResponse(status.code(), headers, Unpooled.wrappedBuffer(bytes));
+    }
+
+    private static UpstreamResponse errorResponse(ResponseCode code, String message) {
+        ObjectNode objectNode = JSONUtil.createObjectNode();
+        objectNode.put(JSONUtil.STATUS, code.getStatus().code());
+        objectNode.put(JSONUtil.CODE, code.getCode());
+        objectNode.put(JSONUtil.MESSAGE, message == null ? code.getMessage() : message);
+        return jsonResponse(code.getStatus(), JSONUtil.toJSONString(objectNode));
+    }
+
+    /**
+     * gRPC 调用失败时的响应，code 为 gRPC 状态码
+     */
+    private static UpstreamResponse grpcErrorResponse(int grpcStatus, String message) {
+        HttpResponseStatus status = HttpResponseStatus.valueOf(grpcStatus > 0 && grpcStatus < HTTP_STATUS.length
+                ? HTTP_STATUS[grpcStatus] : HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
+        ObjectNode objectNode = JSONUtil.createObjectNode();
+        objectNode.put(JSONUtil.STATUS, status.code());
+        objectNode.put(JSONUtil.CODE, grpcStatus);
+        objectNode.put(JSONUtil.MESSAGE, message);
+        return jsonResponse(status, JSONUtil.toJSONString(objectNode));
+    }
+
+    /**
+     * grpc-message 使用百分号编码，'+' 不表示空格
+     */
+    private static String decodeMessage(String message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            return QueryStringDecoder.decodeComponent(message.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return message;
+        }
+    }
+
+    /**
+     * 一次转码调用的结果，在 HTTP/2 连接池所属的 EventLoop 上把 gRPC 响应转为 JSON；取消时同时取消下游请求
+     */
+    private static final class TranscodeFuture extends CompletableFuture<UpstreamResponse> implements BiConsumer<UpstreamResponse, Throwable> {
+
+        private final GrpcTranscoder transcoder;
+
+        private final CompletableFuture<UpstreamResponse> upstream;
+
+        TranscodeFuture(GrpcTranscoder transcoder, CompletableFuture<UpstreamResponse> upstream) {
+            this.transcoder = transcoder;
+            this.upstream = upstream;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            upstream.cancel(mayInterruptIfRunning);
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public void accept(UpstreamResponse response, Throwable throwable) {
+            if (throwable != null) {
+                completeExceptionally(throwable);
+                return;
+            }
+            try {
+                UpstreamResponse transcoded = transcode(response);
+                if (transcoded != null) {
+                    complete(transcoded);
+                }
+            } catch (RuntimeException e) {
+                complete(errorResponse(ResponseCode.HTTP_RESPONSE_ERROR, e.getMessage()));
+            } finally {
+                response.release();
+            }
+        }
+
+        /**
+         * gRPC 响应转为 JSON 响应，需要重试的状态直接以异常完成并返回 null
+         */
+        private UpstreamResponse transcode(UpstreamResponse response) {
+            if (response.getStatusCode() != HttpResponseStatus.OK.code()) {
+                return errorResponse(ResponseCode.HTTP_RESPONSE_ERROR,
+                        "grpc upstream responded with http status " + response.getStatusCode());
+            }
+            String grpcStatus = response.getHeaders().get(GRPC_STATUS);
+            if (grpcStatus == null) {
+                return errorResponse(ResponseCode.HTTP_RESPONSE_ERROR, "grpc upstream responded without grpc-status");
+            }
+            int status;
+            try {
+                status = Integer.parseInt(grpcStatus.trim());
+            } catch (NumberFormatException e) {
+                return errorResponse(ResponseCode.HTTP_RESPONSE_ERROR, "invalid grpc-status " + grpcStatus);
+            }
+            if (status == 0) {
+                return jsonResponse(HttpResponseStatus.OK, transcoder.decodeResponse(response.getContent()));
+            }
+            String message = decodeMessage(response.getHeaders().get(GRPC_MESSAGE));
+            if (status == DEADLINE_EXCEEDED) {
+                completeExceptionally(new TimeoutException("grpc deadline exceeded: " + message));
+                return null;
+            }
+            if (status == UNAVAILABLE) {
+                completeExceptionally(new IOException("grpc unavailable: " + message));
+                return null;
+            }
+            return grpcErrorResponse(status, message);
+        }
+    }
+}
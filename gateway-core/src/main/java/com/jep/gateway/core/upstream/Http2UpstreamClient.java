@@ -0,0 +1,722 @@
+package com.jep.gateway.core.upstream;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.netty.GatewayTimer;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于 h2c(prior knowledge) 的下游 HTTP/2 客户端
+ * <p>
+ * 每个下游实例只建立少量长连接，请求以流的形式在连接上多路复用：
+ * 1.优先选择并发流最少且未达上限的连接，所有连接的并发流都用满时才建立新连接，连接数达到上限后请求排队等待可用流；
+ * 2.单个连接的并发流上限取服务配置与下游 SETTINGS_MAX_CONCURRENT_STREAMS 的较小值；
+ * 3.流级别超时，超时后只重置该流(RST_STREAM)，不影响同一连接上的其他请求；
+ * 4.收到 GOAWAY 的连接不再分配新流，已有流结束后关闭。
+ * <p>
+ * 每个实例的连接池固定归属于一个 EventLoop，连接池状态只在该线程上修改。下游需要支持不经协商直接使用 h2c。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 10:40
+ **/
+@Slf4j
+public class Http2UpstreamClient implements UpstreamClient {
+
+    /**
+     * 空闲连接清理周期(毫秒)
+     */
+    private static final long IDLE_CHECK_PERIOD = 1000;
+
+    private static final String SCHEME = HttpConversionUtil.ExtensionHeaderNames.SCHEME.text().toString();
+
+    private static final String STREAM_ID = HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text().toString();
+
+    private static final String SCHEME_HTTP = "http";
+
+    private static final AttributeKey<Connection> CONNECTION = AttributeKey.valueOf("gatewayHttp2Connection");
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final Bootstrap bootstrap;
+
+    private final int connectTimeout;
+
+    private final int requestTimeout;
+
+    private final int maxContentLength;
+
+    private final long idleTimeout;
+
+    /**
+     * 下游地址 —> 连接池
+     */
+    private final ConcurrentHashMap<String, HostPool> hostPools = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    public Http2UpstreamClient(Config config, EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+        this.connectTimeout = config.getHttpConnectTimeout();
+        this.requestTimeout = config.getHttpRequestTimeout();
+        this.maxContentLength = config.getMaxContentLength();
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getHttpPooledConnectionIdleTimeout());
+        this.bootstrap = new Bootstrap()
+                .channel(eventLoopGroup instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build());
+                        ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                        ch.pipeline().addLast(new ConnectionHandler());
+                    }
+                });
+    }
+
+    /**
+     * 服务是否配置了 HTTP/2
+     */
+    public static boolean isEnabled(ServiceDefinition serviceDefinition) {
+        return serviceDefinition != null && serviceDefinition.getHttp2() != null;
+    }
+
+    @Override
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host) {
+        ServiceDefinition serviceDefinition = DynamicConfigManager.getInstance().getServiceDefinition(ctx.getUniqueId());
+        return execute(ctx, host, isEnabled(serviceDefinition) ? serviceDefinition.getHttp2() : new ServiceDefinition.Http2Config());
+    }
+
+    /**
+     * 按服务的 HTTP/2 配置发送请求
+     */
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host, ServiceDefinition.Http2Config http2) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("upstream client closed"));
+        }
+        long timeoutMillis = ctx.getRemainingTimeout(requestTimeout);
+        return execute(host, http2, buildRequest(ctx.getRequest(), host, timeoutMillis), timeoutMillis);
+    }
+
+    /**
+     * 发送已经构造好的请求，gRPC 转码后的请求通过这里复用连接池
+     *
+     * @param request       转发的请求，所有权转移给客户端
+     * @param timeoutMillis 请求超时时间(毫秒)
+     */
+    public CompletableFuture<UpstreamResponse> execute(String host, ServiceDefinition.Http2Config http2, FullHttpRequest request, long timeoutMillis) {
+        if (closed) {
+            request.release();
+            return CompletableFuture.failedFuture(new IOException("upstream client closed"));
+        }
+        HostPool pool = hostPools.computeIfAbsent(host, key -> new HostPool(key, eventLoopGroup.next()));
+        Exchange exchange = new Exchange(pool, http2, request, timeoutMillis);
+        if (pool.loop.inEventLoop()) {
+            pool.execute(exchange);
+        } else {
+            pool.loop.execute(() -> pool.execute(exchange));
+        }
+        return exchange.future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (HostPool pool : hostPools.values()) {
+            if (!pool.loop.isShuttingDown()) {
+                pool.loop.execute(pool::close);
+            }
+        }
+        hostPools.clear();
+    }
+
+    /**
+     * 预热的连接数不超过服务配置的每个实例最大连接数
+     */
+    @Override
+    public void warmUp(ServiceDefinition serviceDefinition, String host, int count) {
+        if (isEnabled(serviceDefinition)) {
+            warmUp(serviceDefinition.getHttp2(), host, count);
+        }
+    }
+
+    /**
+     * 按指定的 HTTP/2 配置预热连接
+     */
+    public void warmUp(ServiceDefinition.Http2Config http2, String host, int count) {
+        if (closed) {
+            return;
+        }
+        int target = Math.min(count, http2.getMaxConnections());
+        HostPool pool = hostPools.computeIfAbsent(host, key -> new HostPool(key, eventLoopGroup.next()));
+        pool.loop.execute(() -> pool.warmUp(target));
+    }
+
+    @Override
+    public void drain(String host) {
+        HostPool pool = hostPools.remove(host);
+        if (pool != null) {
+            pool.loop.execute(pool::drain);
+        }
+    }
+
+    /**
+     * 当前打开的下游连接数
+     */
+    public int getConnectionCount() {
+        int count = 0;
+        for (HostPool pool : hostPools.values()) {
+            count += pool.connections.size();
+        }
+        return count;
+    }
+
+    /**
+     * 构造转发给下游的请求，请求体使用客户端请求 ByteBuf 的引用；Host 头会被转换为 :authority
+     */
+    private static FullHttpRequest buildRequest(GatewayRequest request, String host, long timeoutMillis) {
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> iterator = request.getHeaders().iteratorCharSequence(); iterator.hasNext(); ) {
+            Map.Entry<CharSequence, CharSequence> header = iterator.next();
+            if (!NettyUpstreamClient.isSkipped(header.getKey())) {
+                headers.add(header.getKey(), header.getValue());
+            }
+        }
+        if (!headers.contains(HttpHeaderNames.HOST)) {
+            headers.set(HttpHeaderNames.HOST, host);
+        }
+        headers.set(NettyUpstreamClient.USER_ID, String.valueOf(request.getUserId()));
+        headers.set(NettyUpstreamClient.REQUEST_TIMEOUT, String.valueOf(timeoutMillis));
+        headers.set(SCHEME, SCHEME_HTTP);
+        String uri = request.getUri();
+        int query = uri.indexOf('?');
+        String path = query < 0 ? request.getModifyPath() : request.getModifyPath() + uri.substring(query);
+        ByteBuf content = request.getFullHttpRequest().content();
+        content = content.isReadable() ? content.retainedDuplicate() : Unpooled.EMPTY_BUFFER;
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, request.getMethod(), path, content, headers, new DefaultHttpHeaders(false));
+    }
+
+    /**
+     * 单个下游实例的连接池，只在所属的 EventLoop 上访问
+     */
+    private final class HostPool {
+
+        private final String host;
+
+        private final InetSocketAddress address;
+
+        private final EventLoop loop;
+
+        private final List<Connection> connections = new ArrayList<>();
+
+        /**
+         * 等待可用流的请求
+         */
+        private final ArrayDeque<Exchange> pending = new ArrayDeque<>();
+
+        private final ScheduledFuture<?> idleCheck;
+
+        HostPool(String host, EventLoop loop) {
+            int separator = host.lastIndexOf(':');
+            this.host = host;
+            this.address = separator < 0
+                    ? InetSocketAddress.createUnresolved(host, 80)
+                    : InetSocketAddress.createUnresolved(host.substring(0, separator), Integer.parseInt(host.substring(separator + 1)));
+            this.loop = loop;
+            this.idleCheck = loop.scheduleWithFixedDelay(this::closeIdle, IDLE_CHECK_PERIOD, IDLE_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+        }
+
+        void execute(Exchange exchange) {
+            if (exchange.isDone()) {
+                // 进入连接池前已被取消
+                return;
+            }
+            exchange.scheduleTimeout();
+            if (pending.isEmpty() && tryOpenStream(exchange)) {
+                return;
+            }
+            pending.offerLast(exchange);
+            if (!hasConnecting() && usableConnections() < exchange.http2.getMaxConnections()) {
+                connect();
+            }
+        }
+
+        /**
+         * 在并发流最少且未达上限的连接上打开流
+         */
+        private boolean tryOpenStream(Exchange exchange) {
+            Connection best = null;
+            for (Connection connection : connections) {
+                if (connection.isAvailable(exchange.http2.getMaxConcurrentStreams())
+                        && (best == null || connection.activeStreams < best.activeStreams)) {
+                    best = connection;
+                }
+            }
+            if (best == null) {
+                return false;
+            }
+            best.openStream(exchange);
+            return true;
+        }
+
+        private void connect() {
+            Connection connection = new Connection(this);
+            connections.add(connection);
+            ChannelFuture connectFuture = bootstrap.clone(loop).connect(address);
+            connection.channel = connectFuture.channel();
+            connection.channel.attr(CONNECTION).set(connection);
+            connection.channel.closeFuture().addListener(future -> onClosed(connection));
+            connectFuture.addListener(future -> {
+                if (future.isSuccess()) {
+                    // 收到下游的 SETTINGS 后连接才就绪，下游不支持 h2c 时在连接超时后关闭
+                    loop.schedule(() -> {
+                        if (!connection.ready) {
+                            connection.channel.close();
+                        }
+                    }, connectTimeout, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                Throwable cause = future.cause();
+                failPending(cause instanceof IOException ? (IOException) cause : new IOException(cause));
+            });
+        }
+
+        /**
+         * 连接建立失败时等待中的请求全部失败，由上层的重试和离群检测处理
+         */
+        private void failPending(IOException exception) {
+            Exchange exchange;
+            while ((exchange = pending.pollFirst()) != null) {
+                exchange.fail(exception);
+            }
+        }
+
+        void onReady(Connection connection) {
+            if (!connection.ready) {
+                connection.ready = true;
+                dispatch();
+            }
+        }
+
+        /**
+         * 有流结束或连接就绪时，把等待中的请求分配到可用流
+         */
+        void dispatch() {
+            Exchange exchange;
+            while ((exchange = pending.peekFirst()) != null) {
+                if (exchange.isDone()) {
+                    pending.pollFirst();
+                } else if (tryOpenStream(exchange)) {
+                    pending.pollFirst();
+                } else {
+                    break;
+                }
+            }
+            if (exchange != null && !hasConnecting() && usableConnections() < exchange.http2.getMaxConnections()) {
+                connect();
+            }
+        }
+
+        private void onClosed(Connection connection) {
+            connections.remove(connection);
+            if (!connection.ready) {
+                failPending(new IOException("h2c connection to " + host + " closed before SETTINGS received"));
+            } else if (!pending.isEmpty()) {
+                dispatch();
+            }
+        }
+
+        private boolean hasConnecting() {
+            for (Connection connection : connections) {
+                if (!connection.ready) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int usableConnections() {
+            int count = 0;
+            for (Connection connection : connections) {
+                if (!connection.draining) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void closeIdle() {
+            long now = System.nanoTime();
+            for (Connection connection : connections) {
+                if (connection.ready && connection.activeStreams == 0 && now - connection.idleSince >= idleTimeout) {
+                    connection.channel.close();
+                }
+            }
+            if (connections.isEmpty() && pending.isEmpty()) {
+                idleCheck.cancel(false);
+                hostPools.remove(host, this);
+            }
+        }
+
+        void warmUp(int target) {
+            while (usableConnections() < target) {
+                connect();
+            }
+        }
+
+        /**
+         * 实例下线：等待中的请求立即失败，空闲连接关闭，有流的连接在流结束后关闭
+         */
+        void drain() {
+            idleCheck.cancel(false);
+            failPending(new IOException("upstream instance " + host + " removed"));
+            for (Connection connection : new ArrayList<>(connections)) {
+                connection.draining = true;
+                if (connection.activeStreams == 0) {
+                    connection.channel.close();
+                }
+            }
+        }
+
+        void close() {
+            idleCheck.cancel(false);
+            for (Connection connection : new ArrayList<>(connections)) {
+                connection.channel.close();
+            }
+        }
+    }
+
+    /**
+     * 一个 HTTP/2 连接
+     */
+    private final class Connection {
+
+        private final HostPool pool;
+
+        private Channel channel;
+
+        private boolean ready;
+
+        /**
+         * 收到 GOAWAY 后不再分配新流
+         */
+        private boolean draining;
+
+        private int activeStreams;
+
+        private long idleSince = System.nanoTime();
+
+        Connection(HostPool pool) {
+            this.pool = pool;
+        }
+
+        boolean isAvailable(int maxConcurrentStreams) {
+            if (!ready || draining || !channel.isActive()) {
+                return false;
+            }
+            Http2FrameCodec codec = channel.pipeline().get(Http2FrameCodec.class);
+            int limit = Math.min(maxConcurrentStreams, codec.connection().local().maxActiveStreams());
+            return activeStreams < limit;
+        }
+
+        void openStream(Exchange exchange) {
+            activeStreams++;
+            exchange.connection = this;
+            new Http2StreamChannelBootstrap(channel)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false));
+                            ch.pipeline().addLast(new HttpObjectAggregator(maxContentLength));
+                            ch.pipeline().addLast(new StreamHandler(exchange));
+                        }
+                    })
+                    .open()
+                    .addListener((Future<Http2StreamChannel> future) -> {
+                        if (!future.isSuccess()) {
+                            streamClosed();
+                            exchange.fail(new IOException(future.cause()));
+                            return;
+                        }
+                        Http2StreamChannel stream = future.getNow();
+                        stream.closeFuture().addListener(closed -> streamClosed());
+                        if (!exchange.attach(stream)) {
+                            stream.close();
+                            return;
+                        }
+                        stream.writeAndFlush(exchange.takeRequest()).addListener(write -> {
+                            if (!write.isSuccess()) {
+                                exchange.fail(new IOException(write.cause()));
+                                stream.close();
+                            }
+                        });
+                    });
+        }
+
+        private void streamClosed() {
+            if (--activeStreams == 0) {
+                idleSince = System.nanoTime();
+                if (draining) {
+                    channel.close();
+                }
+            }
+            pool.dispatch();
+        }
+    }
+
+    /**
+     * 一次请求响应交换，状态只在连接池所属的 EventLoop 上修改
+     */
+    private final class Exchange {
+
+        private final HostPool pool;
+
+        private final ServiceDefinition.Http2Config http2;
+
+        private FullHttpRequest request;
+
+        private final ExchangeFuture future;
+
+        private Connection connection;
+
+        private Http2StreamChannel stream;
+
+        /**
+         * 请求剩余的超时时间(毫秒)
+         */
+        private final long timeoutMillis;
+
+        private Timeout timeout;
+
+        Exchange(HostPool pool, ServiceDefinition.Http2Config http2, FullHttpRequest request, long timeoutMillis) {
+            this.pool = pool;
+            this.http2 = http2;
+            this.request = request;
+            this.timeoutMillis = timeoutMillis;
+            this.future = new ExchangeFuture(this);
+        }
+
+        /**
+         * 超时从进入连接池开始计算，包括等待可用流的时间，流超时不超过请求剩余的超时时间
+         */
+        void scheduleTimeout() {
+            long streamTimeout = http2.getStreamTimeout() > 0 ? Math.min(http2.getStreamTimeout(), timeoutMillis) : timeoutMillis;
+            timeout = GatewayTimer.getInstance().newTimeout(() -> pool.loop.execute(() -> {
+                if (fail(new TimeoutException("upstream stream timeout after " + streamTimeout + "ms: " + pool.host))
+                        && stream != null) {
+                    // 只重置该流，连接上的其他流不受影响
+                    stream.close();
+                }
+            }), streamTimeout);
+        }
+
+        boolean attach(Http2StreamChannel stream) {
+            if (isDone()) {
+                return false;
+            }
+            this.stream = stream;
+            return true;
+        }
+
+        FullHttpRequest takeRequest() {
+            FullHttpRequest taken = request;
+            request = null;
+            return taken;
+        }
+
+        boolean isDone() {
+            return future.isDone();
+        }
+
+        /**
+         * 聚合后的响应不再有尾部，尾部(如 grpc-status)合并到响应头
+         */
+        void complete(FullHttpResponse response) {
+            cancelTimeout();
+            response.headers().remove(STREAM_ID);
+            if (!response.trailingHeaders().isEmpty()) {
+                response.headers().add(response.trailingHeaders());
+            }
+            if (!future.complete(UpstreamResponse.of(response))) {
+                response.release();
+            }
+        }
+
+        boolean fail(Throwable cause) {
+            releaseRequest();
+            return future.completeExceptionally(cause);
+        }
+
+        /**
+         * 请求被取消：只重置该流，等待中的请求在分配流时跳过
+         */
+        void abort() {
+            releaseRequest();
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+        private void releaseRequest() {
+            cancelTimeout();
+            if (request != null) {
+                ReferenceCountUtil.safeRelease(request);
+                request = null;
+            }
+        }
+
+        private void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+
+    /**
+     * 交换对应的 future，取消时在连接池所属的 EventLoop 上中止请求
+     */
+    private static final class ExchangeFuture extends CompletableFuture<UpstreamResponse> {
+
+        private final Exchange exchange;
+
+        ExchangeFuture(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                EventLoop loop = exchange.pool.loop;
+                if (loop.inEventLoop()) {
+                    exchange.abort();
+                } else {
+                    loop.execute(exchange::abort);
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * 处理流上的响应和异常
+     */
+    private static final class StreamHandler extends ChannelInboundHandlerAdapter {
+
+        private final Exchange exchange;
+
+        StreamHandler(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof FullHttpResponse response) {
+                exchange.complete(response);
+                ctx.close();
+            } else {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            exchange.fail(new IOException("upstream stream closed: " + ctx.channel().parent().remoteAddress()));
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            exchange.fail(cause instanceof IOException ? cause : new IOException(cause));
+            ctx.close();
+        }
+    }
+
+    /**
+     * 连接级别的 GOAWAY 和异常处理
+     */
+    private static final class ConnectionHandler extends ChannelInboundHandlerAdapter {
+
+        /**
+         * Http2FrameCodec 在连接建立时只写出了连接前言和 SETTINGS，这里刷出，下游收到后才会回复 SETTINGS
+         */
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            super.channelActive(ctx);
+            ctx.flush();
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Connection connection = ctx.channel().attr(CONNECTION).get();
+            if (msg instanceof Http2SettingsFrame && connection != null) {
+                connection.pool.onReady(connection);
+            } else if (msg instanceof Http2GoAwayFrame && connection != null) {
+                connection.draining = true;
+                if (connection.activeStreams == 0) {
+                    ctx.close();
+                }
+            }
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("http2 upstream connection {} error", ctx.channel().remoteAddress(), cause);
+            ctx.close();
+        }
+    }
+}
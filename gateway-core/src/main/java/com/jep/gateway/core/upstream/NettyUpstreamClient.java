@@ -0,0 +1,795 @@
+package com.jep.gateway.core.upstream;
+
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.core.config.Config;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.netty.GatewayTimer;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.FullHttpMessage;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AsciiString;
+import io.netty.util.CharsetUtil;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于原生 Netty 的下游 HTTP/1.1 客户端
+ * <p>
+ * 1.连接池按 EventLoop 和下游地址两级划分：下游连接注册在客户端连接所在的 EventLoop 上，
+ * 同一个请求的读客户端、写下游、读下游、写客户端都在同一个线程完成，连接池只被所属线程访问，不需要加锁；
+ * 2.请求行和请求头直接编码到一个池化 ByteBuf，请求体使用客户端请求 ByteBuf 的引用，不做复制；
+ * 3.响应由 HttpObjectAggregator 聚合为池化 ByteBuf，原样作为写回客户端的响应体；
+ * 响应体超过 upstreamStreamingThreshold 或长度未知时不聚合，响应头到达即完成请求，响应体由 {@link UpstreamBody} 流式转发。
+ * <p>
+ * 每个 EventLoop 到每个下游地址的连接数上限为 httpConnectionsPerHost / EventLoop 数，空闲连接按
+ * httpPooledConnectionIdleTimeout 定期关闭。过滤器通过 addFormParam、addOrReplaceCookie、addQueryParam
+ * 对 AsyncHttpClient 请求构建器所做的修改不会被本客户端转发，请求头的修改会转发。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 09:30
+ **/
+@Slf4j
+public class NettyUpstreamClient implements UpstreamClient {
+
+    /**
+     * 空闲连接清理周期(毫秒)
+     */
+    private static final long IDLE_CHECK_PERIOD = 1000;
+
+    private static final byte[] HTTP_1_1 = " HTTP/1.1\r\n".getBytes(CharsetUtil.US_ASCII);
+
+    private static final byte[] HEADER_SEPARATOR = {':', ' '};
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    static final AsciiString USER_ID = AsciiString.cached("userId");
+
+    static final AsciiString REQUEST_TIMEOUT = AsciiString.cached(GatewayConst.REQUEST_TIMEOUT_HEADER);
+
+    /**
+     * Netty 中对应的常量已废弃(HTTP/2 禁止这两个逐跳头)，HTTP/1.1 转发时仍需去掉
+     */
+    private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+
+    private static final AsciiString PROXY_CONNECTION = AsciiString.cached("proxy-connection");
+
+    /**
+     * 逐跳头以及由客户端重新生成的头，不转发给下游
+     */
+    private static final AsciiString[] SKIPPED_HEADERS = {
+            HttpHeaderNames.CONNECTION, KEEP_ALIVE, PROXY_CONNECTION,
+            HttpHeaderNames.TE, HttpHeaderNames.TRAILER, HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderNames.UPGRADE,
+            HttpHeaderNames.CONTENT_LENGTH, HttpHeaderNames.EXPECT, USER_ID, REQUEST_TIMEOUT};
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final Class<? extends Channel> channelClass;
+
+    private final int connectTimeout;
+
+    private final int requestTimeout;
+
+    private final int maxContentLength;
+
+    private final int streamingThreshold;
+
+    private final int streamingReadTimeout;
+
+    private final long idleTimeout;
+
+    /**
+     * 每个 EventLoop 到每个下游地址的最大连接数
+     */
+    private final int maxConnectionsPerLoop;
+
+    private final int maxConnections;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final ConcurrentHashMap<EventLoop, LoopPool> loopPools = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    public NettyUpstreamClient(Config config, EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+        this.channelClass = eventLoopGroup instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class;
+        this.connectTimeout = config.getHttpConnectTimeout();
+        this.requestTimeout = config.getHttpRequestTimeout();
+        this.maxContentLength = config.getMaxContentLength();
+        this.streamingThreshold = config.getUpstreamStreamingThreshold();
+        this.streamingReadTimeout = config.getUpstreamStreamingReadTimeout();
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getHttpPooledConnectionIdleTimeout());
+        int loops = 0;
+        for (Iterator<?> iterator = eventLoopGroup.iterator(); iterator.hasNext(); iterator.next()) {
+            loops++;
+        }
+        this.maxConnectionsPerLoop = Math.max(1, config.getHttpConnectionsPerHost() / Math.max(1, loops));
+        this.maxConnections = config.getHttpMaxConnections();
+    }
+
+    @Override
+    public CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("upstream client closed"));
+        }
+        GatewayRequest request = ctx.getRequest();
+        // 请求体在回调中会随网关请求一起释放，这里先增加引用计数，由写下游时释放
+        ByteBuf body = request.getFullHttpRequest().content();
+        body = body.isReadable() ? body.retainedDuplicate() : null;
+        EventLoop loop = selectLoop(ctx);
+        Exchange exchange = new Exchange(request, host, loop, body, ctx.getRemainingTimeout(requestTimeout));
+        if (loop.inEventLoop()) {
+            getLoopPool(loop).execute(exchange);
+        } else {
+            loop.execute(() -> getLoopPool(loop).execute(exchange));
+        }
+        return exchange.future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (LoopPool pool : loopPools.values()) {
+            if (!pool.loop.isShuttingDown()) {
+                pool.loop.execute(pool::close);
+            }
+        }
+        loopPools.clear();
+    }
+
+    /**
+     * 预热的连接轮询分布到各个 EventLoop
+     */
+    @Override
+    public void warmUp(ServiceDefinition serviceDefinition, String host, int count) {
+        if (closed) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            EventLoop loop = eventLoopGroup.next();
+            loop.execute(() -> getLoopPool(loop).warmUp(host));
+        }
+    }
+
+    @Override
+    public void drain(String host) {
+        for (LoopPool pool : loopPools.values()) {
+            pool.loop.execute(() -> pool.drain(host));
+        }
+    }
+
+    /**
+     * 当前打开的下游连接数
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * 优先使用客户端连接所在的 EventLoop，不属于本客户端的 EventLoopGroup 时(如测试中的 EmbeddedChannel)轮询选择
+     */
+    private EventLoop selectLoop(GatewayContext ctx) {
+        if (ctx.getNettyContext() != null) {
+            EventLoop loop = ctx.getNettyContext().channel().eventLoop();
+            if (loop.parent() == eventLoopGroup) {
+                return loop;
+            }
+        }
+        return eventLoopGroup.next();
+    }
+
+    private LoopPool getLoopPool(EventLoop loop) {
+        LoopPool pool = loopPools.get(loop);
+        if (pool == null) {
+            pool = loopPools.computeIfAbsent(loop, LoopPool::new);
+        }
+        return pool;
+    }
+
+    /**
+     * 单个 EventLoop 的连接池，只在该 EventLoop 上访问
+     */
+    private final class LoopPool {
+
+        private final EventLoop loop;
+
+        private final Bootstrap bootstrap;
+
+        private final Map<String, HostPool> hostPools = new HashMap<>();
+
+        private final ScheduledFuture<?> idleCheck;
+
+        LoopPool(EventLoop loop) {
+            this.loop = loop;
+            this.bootstrap = new Bootstrap()
+                    .group(loop)
+                    .channel(channelClass)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new ResponseDecoder());
+                            ch.pipeline().addLast(new StreamingHandler());
+                            ch.pipeline().addLast(new HttpObjectAggregator(maxContentLength));
+                            ch.pipeline().addLast(new ExchangeHandler());
+                        }
+                    });
+            this.idleCheck = loop.scheduleWithFixedDelay(this::closeIdle, IDLE_CHECK_PERIOD, IDLE_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+        }
+
+        private HostPool getHostPool(String host) {
+            HostPool hostPool = hostPools.get(host);
+            if (hostPool == null) {
+                hostPool = new HostPool(host);
+                hostPools.put(host, hostPool);
+            }
+            return hostPool;
+        }
+
+        void execute(Exchange exchange) {
+            if (exchange.future.isDone()) {
+                // 进入连接池前已被取消
+                exchange.fail(null);
+                return;
+            }
+            String host = exchange.host;
+            HostPool hostPool;
+            try {
+                hostPool = getHostPool(host);
+            } catch (RuntimeException e) {
+                exchange.fail(new IOException("invalid upstream address " + host, e));
+                return;
+            }
+            exchange.hostPool = hostPool;
+            Channel channel = hostPool.pollIdle();
+            if (channel != null) {
+                exchange.send(channel);
+                return;
+            }
+            if (hostPool.open >= maxConnectionsPerLoop || connections.get() >= maxConnections) {
+                exchange.fail(new IOException("too many connections to " + host));
+                return;
+            }
+            connect(hostPool, exchange);
+        }
+
+        /**
+         * 预先建立一个空闲连接，连接数已达上限时不再建立
+         */
+        void warmUp(String host) {
+            HostPool hostPool;
+            try {
+                hostPool = getHostPool(host);
+            } catch (RuntimeException e) {
+                log.warn("invalid upstream address {}", host, e);
+                return;
+            }
+            if (hostPool.open < maxConnectionsPerLoop && connections.get() < maxConnections) {
+                connect(hostPool, null);
+            }
+        }
+
+        /**
+         * 实例下线：关闭空闲连接，正在使用的连接在响应返回后关闭，不再归还连接池
+         */
+        void drain(String host) {
+            HostPool hostPool = hostPools.remove(host);
+            if (hostPool == null) {
+                return;
+            }
+            hostPool.drained = true;
+            Channel channel;
+            while ((channel = hostPool.idle.pollFirst()) != null) {
+                channel.close();
+            }
+        }
+
+        /**
+         * 建立连接后发送请求，exchange 为空时是预热连接，建立后直接放入空闲连接
+         */
+        private void connect(HostPool hostPool, Exchange exchange) {
+            hostPool.open++;
+            connections.incrementAndGet();
+            ChannelFuture connectFuture = bootstrap.connect(hostPool.address);
+            Channel channel = connectFuture.channel();
+            channel.closeFuture().addListener(future -> {
+                hostPool.open--;
+                connections.decrementAndGet();
+                hostPool.idle.remove(channel);
+            });
+            connectFuture.addListener(future -> {
+                if (exchange == null) {
+                    if (future.isSuccess()) {
+                        channel.pipeline().get(ExchangeHandler.class).release(channel, hostPool);
+                    } else {
+                        log.debug("warm up connection to {} failed", hostPool.address, future.cause());
+                    }
+                } else if (future.isSuccess()) {
+                    if (exchange.future.isDone()) {
+                        // 连接建立前已被取消，连接直接放入空闲连接
+                        exchange.fail(null);
+                        channel.pipeline().get(ExchangeHandler.class).release(channel, hostPool);
+                    } else {
+                        exchange.send(channel);
+                    }
+                } else {
+                    Throwable cause = future.cause();
+                    exchange.fail(cause instanceof IOException ? cause : new IOException(cause));
+                }
+            });
+        }
+
+        private void closeIdle() {
+            long now = System.nanoTime();
+            for (HostPool hostPool : hostPools.values()) {
+                Channel channel;
+                while ((channel = hostPool.idle.peekFirst()) != null
+                        && now - channel.pipeline().get(ExchangeHandler.class).idleSince >= idleTimeout) {
+                    hostPool.idle.pollFirst();
+                    channel.close();
+                }
+            }
+            hostPools.values().removeIf(hostPool -> hostPool.open == 0);
+        }
+
+        void close() {
+            idleCheck.cancel(false);
+            for (HostPool hostPool : hostPools.values()) {
+                Channel channel;
+                while ((channel = hostPool.idle.pollFirst()) != null) {
+                    channel.close();
+                }
+            }
+            hostPools.clear();
+        }
+    }
+
+    /**
+     * 单个 EventLoop 到单个下游地址的连接池
+     */
+    private static final class HostPool {
+
+        private final InetSocketAddress address;
+
+        /**
+         * 空闲连接，尾部是最近归还的连接，优先复用；头部是最久未使用的连接，优先清理
+         */
+        private final ArrayDeque<Channel> idle = new ArrayDeque<>();
+
+        private int open;
+
+        /**
+         * 实例已下线，连接用完后直接关闭
+         */
+        private boolean drained;
+
+        HostPool(String host) {
+            int separator = host.lastIndexOf(':');
+            this.address = separator < 0
+                    ? new InetSocketAddress(host, 80)
+                    : new InetSocketAddress(host.substring(0, separator), Integer.parseInt(host.substring(separator + 1)));
+        }
+
+        Channel pollIdle() {
+            Channel channel;
+            while ((channel = idle.pollLast()) != null) {
+                if (channel.isActive()) {
+                    return channel;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 一次请求响应交换
+     */
+    private final class Exchange {
+
+        private final GatewayRequest request;
+
+        /**
+         * 目标实例地址 ip:port
+         */
+        private final String host;
+
+        private final EventLoop loop;
+
+        private HostPool hostPool;
+
+        private ByteBuf body;
+
+        private final ExchangeFuture future;
+
+        private Channel channel;
+
+        /**
+         * 本次调用的超时时间(毫秒)，取请求剩余的超时时间，从进入连接池开始计算，包括建立连接的时间
+         */
+        private final long timeoutMillis;
+
+        /**
+         * 本次调用的截止时间(纳秒)，剩余时间随请求头转发给下游
+         */
+        private final long deadline;
+
+        private Timeout timeout;
+
+        Exchange(GatewayRequest request, String host, EventLoop loop, ByteBuf body, long timeoutMillis) {
+            this.request = request;
+            this.host = host;
+            this.loop = loop;
+            this.body = body;
+            this.timeoutMillis = timeoutMillis;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            this.future = new ExchangeFuture(this);
+            // 在交给 EventLoop 之前设置，EventLoop 上读到的一定是已设置的定时任务
+            this.timeout = GatewayTimer.getInstance().newTimeout(() -> loop.execute(this::timeout), timeoutMillis);
+        }
+
+        /**
+         * 超时：还在等待连接时直接失败，连接建立后放入空闲连接；已发出的请求只能关闭连接
+         */
+        private void timeout() {
+            if (future.isDone()) {
+                return;
+            }
+            TimeoutException cause = new TimeoutException("upstream request timeout after " + timeoutMillis + "ms: " + host);
+            if (channel == null) {
+                fail(cause);
+                return;
+            }
+            ExchangeHandler handler = channel.pipeline().get(ExchangeHandler.class);
+            if (handler != null && handler.exchange == this) {
+                handler.exchange = null;
+                fail(cause);
+                channel.close();
+            }
+        }
+
+        void send(Channel channel) {
+            this.channel = channel;
+            ExchangeHandler handler = channel.pipeline().get(ExchangeHandler.class);
+            handler.hostPool = hostPool;
+            handler.exchange = this;
+            channel.pipeline().get(ResponseDecoder.class).head = HttpMethod.HEAD.equals(request.getMethod());
+
+            ByteBuf content = body;
+            body = null;
+            channel.write(encodeHead(channel, content == null ? 0 : content.readableBytes()));
+            if (content != null) {
+                channel.write(content);
+            }
+            channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(write -> {
+                if (!write.isSuccess() && handler.exchange == this) {
+                    handler.exchange = null;
+                    Throwable cause = write.cause();
+                    fail(cause instanceof IOException ? cause : new IOException(cause));
+                    channel.close();
+                }
+            });
+        }
+
+        /**
+         * 请求行和请求头编码到一个 ByteBuf，字符按 ISO-8859-1 原样写出，与解码客户端请求时一致
+         */
+        private ByteBuf encodeHead(Channel channel, int contentLength) {
+            ByteBuf buf = channel.alloc().buffer(256);
+            buf.writeCharSequence(request.getMethod().asciiName(), CharsetUtil.US_ASCII);
+            buf.writeByte(' ');
+            buf.writeCharSequence(request.getModifyPath(), CharsetUtil.ISO_8859_1);
+            String uri = request.getUri();
+            int query = uri.indexOf('?');
+            if (query >= 0) {
+                for (int i = query; i < uri.length(); i++) {
+                    buf.writeByte(uri.charAt(i));
+                }
+            }
+            buf.writeBytes(HTTP_1_1);
+            HttpHeaders headers = request.getHeaders();
+            boolean hasHost = false;
+            for (Iterator<Map.Entry<CharSequence, CharSequence>> iterator = headers.iteratorCharSequence(); iterator.hasNext(); ) {
+                Map.Entry<CharSequence, CharSequence> header = iterator.next();
+                CharSequence name = header.getKey();
+                if (isSkipped(name)) {
+                    continue;
+                }
+                hasHost |= HttpHeaderNames.HOST.contentEqualsIgnoreCase(name);
+                writeHeader(buf, name, header.getValue());
+            }
+            if (!hasHost) {
+                writeHeader(buf, HttpHeaderNames.HOST, host);
+            }
+            writeHeader(buf, USER_ID, String.valueOf(request.getUserId()));
+            writeHeader(buf, REQUEST_TIMEOUT, String.valueOf(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+            if (contentLength > 0 || HttpUtil.isContentLengthSet(request.getFullHttpRequest())) {
+                writeHeader(buf, HttpHeaderNames.CONTENT_LENGTH, String.valueOf(contentLength));
+            }
+            buf.writeBytes(CRLF);
+            return buf;
+        }
+
+        void complete(UpstreamResponse response) {
+            cancelTimeout();
+            if (!future.complete(response)) {
+                response.release();
+            }
+        }
+
+        /**
+         * 请求失败，cause 为空时只释放资源，用于已取消的请求
+         */
+        void fail(Throwable cause) {
+            cancelTimeout();
+            if (body != null) {
+                body.release();
+                body = null;
+            }
+            if (cause != null) {
+                future.completeExceptionally(cause);
+            }
+        }
+
+        /**
+         * 请求被取消：已发出的请求无法在 HTTP/1.1 连接上撤回，只能关闭连接
+         */
+        void abort() {
+            if (channel == null) {
+                return;
+            }
+            ExchangeHandler handler = channel.pipeline().get(ExchangeHandler.class);
+            if (handler != null && handler.exchange == this) {
+                handler.exchange = null;
+                fail(null);
+                channel.close();
+            }
+        }
+
+        private void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+
+    static boolean isSkipped(CharSequence name) {
+        for (AsciiString skipped : SKIPPED_HEADERS) {
+            if (skipped.contentEqualsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeHeader(ByteBuf buf, CharSequence name, CharSequence value) {
+        buf.writeCharSequence(name, CharsetUtil.ISO_8859_1);
+        buf.writeBytes(HEADER_SEPARATOR);
+        buf.writeCharSequence(value, CharsetUtil.ISO_8859_1);
+        buf.writeBytes(CRLF);
+    }
+
+    /**
+     * 交换对应的 future，取消时在交换所在的 EventLoop 上中止请求
+     */
+    private static final class ExchangeFuture extends CompletableFuture<UpstreamResponse> {
+
+        private final Exchange exchange;
+
+        ExchangeFuture(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                if (exchange.loop.inEventLoop()) {
+                    exchange.abort();
+                } else {
+                    exchange.loop.execute(exchange::abort);
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * 响应解码器，HEAD 请求的响应没有响应体
+     */
+    private static final class ResponseDecoder extends HttpResponseDecoder {
+
+        private boolean head;
+
+        @Override
+        protected boolean isContentAlwaysEmpty(HttpMessage msg) {
+            return head || super.isContentAlwaysEmpty(msg);
+        }
+    }
+
+    /**
+     * 流式转发大响应和长度未知的响应：响应头到达时完成当前交换，之后的分片交给 {@link UpstreamBody}，
+     * 最后一个分片到达后才归还连接；其他响应交给 HttpObjectAggregator 聚合
+     */
+    private final class StreamingHandler extends ChannelInboundHandlerAdapter {
+
+        private UpstreamBody body;
+
+        private boolean keepAlive;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (body != null && msg instanceof HttpContent content) {
+                body.onContent(content);
+                if (content instanceof LastHttpContent) {
+                    body = null;
+                    ExchangeHandler handler = ctx.pipeline().get(ExchangeHandler.class);
+                    ctx.channel().config().setAutoRead(true);
+                    if (keepAlive) {
+                        handler.release(ctx.channel(), handler.hostPool);
+                    } else {
+                        ctx.close();
+                    }
+                }
+                return;
+            }
+            if (msg instanceof HttpResponse head && !(msg instanceof FullHttpMessage) && isStreaming(ctx, head)) {
+                ExchangeHandler handler = ctx.pipeline().get(ExchangeHandler.class);
+                Exchange current = handler.exchange;
+                handler.exchange = null;
+                if (current == null) {
+                    // 已超时的请求的迟到响应
+                    ctx.close();
+                    return;
+                }
+                keepAlive = HttpUtil.isKeepAlive(head);
+                head.headers().remove(HttpHeaderNames.CONNECTION).remove(KEEP_ALIVE);
+                body = new UpstreamBody(ctx.channel(), streamingReadTimeout);
+                current.complete(UpstreamResponse.streaming(head, body));
+                return;
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        private boolean isStreaming(ChannelHandlerContext ctx, HttpResponse head) {
+            if (streamingThreshold <= 0 || ctx.pipeline().get(ResponseDecoder.class).head) {
+                return false;
+            }
+            long contentLength = HttpUtil.getContentLength(head, -1L);
+            return contentLength < 0 ? HttpUtil.isTransferEncodingChunked(head) || !HttpUtil.isKeepAlive(head)
+                    : contentLength > streamingThreshold;
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            failBody();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (body != null) {
+                failBody();
+                ctx.close();
+                return;
+            }
+            super.exceptionCaught(ctx, cause);
+        }
+
+        private void failBody() {
+            if (body != null) {
+                body.fail();
+                body = null;
+            }
+        }
+    }
+
+    /**
+     * 处理下游连接上的响应和异常，完成当前交换后把连接归还连接池
+     */
+    private final class ExchangeHandler extends ChannelInboundHandlerAdapter {
+
+        private HostPool hostPool;
+
+        private Exchange exchange;
+
+        private long idleSince;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (!(msg instanceof FullHttpResponse response)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            Exchange current = exchange;
+            exchange = null;
+            if (current == null) {
+                // 已超时的请求的迟到响应
+                response.release();
+                ctx.close();
+                return;
+            }
+            boolean keepAlive = HttpUtil.isKeepAlive(response);
+            response.headers().remove(HttpHeaderNames.CONNECTION).remove(KEEP_ALIVE);
+            if (keepAlive) {
+                release(ctx.channel(), hostPool);
+            } else {
+                ctx.close();
+            }
+            current.complete(UpstreamResponse.of(response));
+        }
+
+        /**
+         * 连接归还连接池，客户端已关闭或实例已下线时直接关闭
+         */
+        void release(Channel channel, HostPool pool) {
+            hostPool = pool;
+            if (closed || pool.drained) {
+                channel.close();
+                return;
+            }
+            idleSince = System.nanoTime();
+            pool.idle.offerLast(channel);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            failExchange(new IOException("upstream connection closed: " + ctx.channel().remoteAddress()));
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            failExchange(cause instanceof IOException ? cause : new IOException(cause));
+            ctx.close();
+        }
+
+        private void failExchange(Throwable cause) {
+            Exchange current = exchange;
+            if (current != null) {
+                exchange = null;
+                current.fail(cause);
+            }
+        }
+    }
+}
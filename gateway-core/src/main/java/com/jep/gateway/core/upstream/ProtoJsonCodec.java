@@ -0,0 +1,309 @@
+package com.jep.gateway.core.upstream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 单个 protobuf 消息类型与 JSON 之间的转码器
+ * 按 proto3 JSON 映射转换：字段名使用 lowerCamel(也接受原始字段名)，64位整数输出为字符串，
+ * 枚举输出为名称，bytes 使用 Base64，map 字段对应 JSON 对象；输出时省略未设置的字段。
+ * 字段查找表在创建时建立，嵌套消息的转码器通过同一服务的转码器表查找，支持递归类型。
+ * Any、Struct、Timestamp 等知名类型按普通消息处理。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 15:40
+ **/
+final class ProtoJsonCodec {
+
+    private static final BigInteger UINT64_MAX = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    private final Descriptors.Descriptor descriptor;
+
+    /**
+     * JSON 字段名与原始字段名 —> 字段
+     */
+    private final Map<String, Descriptors.FieldDescriptor> fields = new HashMap<>();
+
+    /**
+     * 查找嵌套消息类型的转码器，同一服务的所有消息类型共用一张转码器表
+     */
+    private final Function<Descriptors.Descriptor, ProtoJsonCodec> codecs;
+
+    ProtoJsonCodec(Descriptors.Descriptor descriptor, Function<Descriptors.Descriptor, ProtoJsonCodec> codecs) {
+        this.descriptor = descriptor;
+        this.codecs = codecs;
+        for (Descriptors.FieldDescriptor field : descriptor.getFields()) {
+            fields.put(field.getJsonName(), field);
+            fields.put(field.getName(), field);
+        }
+    }
+
+    Descriptors.Descriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * JSON 转为消息，未知字段忽略
+     *
+     * @throws IllegalArgumentException JSON 与消息类型不匹配
+     */
+    DynamicMessage parse(JsonNode node) {
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(descriptor);
+        if (node == null || node.isNull()) {
+            return builder.build();
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException(descriptor.getFullName() + " expects a json object");
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> iterator = node.fields(); iterator.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = iterator.next();
+            Descriptors.FieldDescriptor field = fields.get(entry.getKey());
+            JsonNode value = entry.getValue();
+            if (field == null || value.isNull()) {
+                continue;
+            }
+            if (field.isMapField()) {
+                parseMap(builder, field, value);
+            } else if (field.isRepeated()) {
+                if (!value.isArray()) {
+                    throw new IllegalArgumentException(field.getFullName() + " expects a json array");
+                }
+                for (JsonNode element : value) {
+                    builder.addRepeatedField(field, parseValue(field, element));
+                }
+            } else {
+                builder.setField(field, parseValue(field, value));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 消息转为 JSON
+     */
+    ObjectNode print(Message message) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        for (Map.Entry<Descriptors.FieldDescriptor, Object> entry : message.getAllFields().entrySet()) {
+            Descriptors.FieldDescriptor field = entry.getKey();
+            if (field.isMapField()) {
+                ObjectNode map = node.putObject(field.getJsonName());
+                Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByNumber(1);
+                Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByNumber(2);
+                for (Object element : (List<?>) entry.getValue()) {
+                    Message mapEntry = (Message) element;
+                    map.set(printValue(keyField, mapEntry.getField(keyField)).asText(),
+                            printValue(valueField, mapEntry.getField(valueField)));
+                }
+            } else if (field.isRepeated()) {
+                ArrayNode array = node.putArray(field.getJsonName());
+                for (Object element : (List<?>) entry.getValue()) {
+                    array.add(printValue(field, element));
+                }
+            } else {
+                node.set(field.getJsonName(), printValue(field, entry.getValue()));
+            }
+        }
+        return node;
+    }
+
+    private void parseMap(DynamicMessage.Builder builder, Descriptors.FieldDescriptor field, JsonNode value) {
+        if (!value.isObject()) {
+            throw new IllegalArgumentException(field.getFullName() + " expects a json object");
+        }
+        Descriptors.Descriptor entryType = field.getMessageType();
+        Descriptors.FieldDescriptor keyField = entryType.findFieldByNumber(1);
+        Descriptors.FieldDescriptor valueField = entryType.findFieldByNumber(2);
+        for (Iterator<Map.Entry<String, JsonNode>> iterator = value.fields(); iterator.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = iterator.next();
+            builder.addRepeatedField(field, DynamicMessage.newBuilder(entryType)
+                    .setField(keyField, parseValue(keyField, JsonNodeFactory.instance.textNode(entry.getKey())))
+                    .setField(valueField, parseValue(valueField, entry.getValue()))
+                    .build());
+        }
+    }
+
+    private Object parseValue(Descriptors.FieldDescriptor field, JsonNode value) {
+        try {
+            switch (field.getType()) {
+                case INT32:
+                case SINT32:
+                case SFIXED32:
+                    return Math.toIntExact(parseLong(value));
+                case UINT32:
+                case FIXED32:
+                    long unsigned = parseLong(value);
+                    if (unsigned < 0 || unsigned > 0xFFFFFFFFL) {
+                        throw new IllegalArgumentException("out of range");
+                    }
+                    return (int) unsigned;
+                case INT64:
+                case SINT64:
+                case SFIXED64:
+                    return parseLong(value);
+                case UINT64:
+                case FIXED64:
+                    BigInteger big = parseBigInteger(value);
+                    if (big.signum() < 0 || big.compareTo(UINT64_MAX) > 0) {
+                        throw new IllegalArgumentException("out of range");
+                    }
+                    return big.longValue();
+                case FLOAT:
+                    return (float) parseDouble(value);
+                case DOUBLE:
+                    return parseDouble(value);
+                case BOOL:
+                    if (value.isTextual()) {
+                        // 与 protobuf JsonFormat 一致，字符串只接受 "true" 和 "false"
+                        if ("true".equals(value.asText())) {
+                            return true;
+                        }
+                        if ("false".equals(value.asText())) {
+                            return false;
+                        }
+                        throw new IllegalArgumentException("expects a boolean");
+                    }
+                    if (!value.isBoolean()) {
+                        throw new IllegalArgumentException("expects a boolean");
+                    }
+                    return value.booleanValue();
+                case STRING:
+                    return requireText(value);
+                case BYTES:
+                    String text = requireText(value);
+                    return ByteString.copyFrom(text.indexOf('-') >= 0 || text.indexOf('_') >= 0
+                            ? Base64.getUrlDecoder().decode(text) : Base64.getDecoder().decode(text));
+                case ENUM:
+                    Descriptors.EnumDescriptor enumType = field.getEnumType();
+                    Descriptors.EnumValueDescriptor enumValue = value.isTextual()
+                            ? enumType.findValueByName(value.asText())
+                            : enumType.findValueByNumberCreatingIfUnknown(Math.toIntExact(parseLong(value)));
+                    if (enumValue == null) {
+                        throw new IllegalArgumentException("unknown enum value " + value.asText());
+                    }
+                    return enumValue;
+                case MESSAGE:
+                case GROUP:
+                    return codecs.apply(field.getMessageType()).parse(value);
+                default:
+                    throw new IllegalArgumentException("unsupported field type " + field.getType());
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException("invalid value for " + field.getFullName() + ": " + value + ", " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 字符串和字节字段只接受 JSON 字符串，数字、布尔、对象和数组都拒绝
+     */
+    private static String requireText(JsonNode value) {
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException("expects a string");
+        }
+        return value.asText();
+    }
+
+    /**
+     * 整数字段接受 JSON 数字和数字字符串，带小数部分的数字、对象、数组等直接拒绝，不按 0 处理
+     */
+    private static long parseLong(JsonNode value) {
+        if (value.isTextual()) {
+            return Long.parseLong(value.asText());
+        }
+        return parseBigInteger(value).longValueExact();
+    }
+
+    private static BigInteger parseBigInteger(JsonNode value) {
+        if (value.isTextual()) {
+            return new BigInteger(value.asText());
+        }
+        if (value.isIntegralNumber()) {
+            return value.bigIntegerValue();
+        }
+        if (!value.isNumber()) {
+            throw new IllegalArgumentException("expects a number");
+        }
+        // 1.0、1e3 这类没有小数部分的数字按整数处理
+        try {
+            return value.decimalValue().toBigIntegerExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("expects an integer");
+        }
+    }
+
+    private static double parseDouble(JsonNode value) {
+        if (value.isNumber()) {
+            return value.doubleValue();
+        }
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException("expects a number");
+        }
+        switch (value.asText()) {
+            case "NaN":
+                return Double.NaN;
+            case "Infinity":
+                return Double.POSITIVE_INFINITY;
+            case "-Infinity":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return Double.parseDouble(value.asText());
+        }
+    }
+
+    private JsonNode printValue(Descriptors.FieldDescriptor field, Object value) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        switch (field.getType()) {
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                return factory.numberNode((Integer) value);
+            case UINT32:
+            case FIXED32:
+                return factory.numberNode(Integer.toUnsignedLong((Integer) value));
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+                return factory.textNode(Long.toString((Long) value));
+            case UINT64:
+            case FIXED64:
+                return factory.textNode(Long.toUnsignedString((Long) value));
+            case FLOAT:
+            case DOUBLE:
+                double number = ((Number) value).doubleValue();
+                if (Double.isNaN(number)) {
+                    return factory.textNode("NaN");
+                }
+                if (Double.isInfinite(number)) {
+                    return factory.textNode(number > 0 ? "Infinity" : "-Infinity");
+                }
+                return field.getType() == Descriptors.FieldDescriptor.Type.FLOAT
+                        ? factory.numberNode((Float) value) : factory.numberNode((Double) value);
+            case BOOL:
+                return factory.booleanNode((Boolean) value);
+            case STRING:
+                return factory.textNode((String) value);
+            case BYTES:
+                return factory.textNode(Base64.getEncoder().encodeToString(((ByteString) value).toByteArray()));
+            case ENUM:
+                Descriptors.EnumValueDescriptor enumValue = (Descriptors.EnumValueDescriptor) value;
+                // 未知的枚举值没有名称，输出数值
+                return field.getEnumType().findValueByNumber(enumValue.getNumber()) == null
+                        ? factory.numberNode(enumValue.getNumber()) : factory.textNode(enumValue.getName());
+            default:
+                return codecs.apply(field.getMessageType()).print((Message) value);
+        }
+    }
+}
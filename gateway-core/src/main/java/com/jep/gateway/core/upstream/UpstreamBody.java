@@ -0,0 +1,248 @@
+package com.jep.gateway.core.upstream;
+
+import com.jep.gateway.core.netty.GatewayTimer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式转发的下游响应体
+ * 响应头到达后立即写回客户端，响应体分片随到随转发，不在网关聚合。
+ * 背压跟随客户端连接的可写状态：客户端写缓冲超过高水位时停止读下游连接，恢复可写后继续读。
+ * <p>
+ * 状态只在下游连接所属的 EventLoop 上修改，其他线程的调用会切换到该 EventLoop。
+ * 客户端订阅前到达的分片先缓存，缓存期间不读下游连接，缓存量不超过一次读取的数据。
+ * 转发中途下游失败时响应头已经写出，只能关闭客户端连接；客户端断开时关闭下游连接。
+ * 下游在响应体中途停止发送时，超过分片读超时没有新分片到达就关闭两端连接，暂停读取(背压或等待订阅)的时间不计入。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 14:40
+ **/
+public final class UpstreamBody {
+
+    /**
+     * 客户端连接上正在转发的响应体，可写状态变化时通知
+     */
+    public static final AttributeKey<UpstreamBody> CLIENT_BODY = AttributeKey.valueOf("gatewayUpstreamBody");
+
+    private final Channel upstream;
+
+    private final EventLoop loop;
+
+    /**
+     * 客户端订阅前到达的分片
+     */
+    private final ArrayDeque<HttpContent> pending = new ArrayDeque<>();
+
+    private ChannelHandlerContext client;
+
+    /**
+     * 客户端断开时放弃响应体，转发完成后移除，避免长连接上累积监听器
+     */
+    private final ChannelFutureListener clientClosed = future -> abort();
+
+    /**
+     * 转发完成后是否关闭客户端连接
+     */
+    private boolean closeClient;
+
+    /**
+     * 最后一个分片已经到达，下游连接已归还连接池，不能再修改其读状态
+     */
+    private boolean finished;
+
+    /**
+     * 下游失败或客户端已放弃
+     */
+    private boolean aborted;
+
+    /**
+     * 分片读超时(纳秒)，0 表示不限制
+     */
+    private final long readTimeout;
+
+    /**
+     * 最近一次收到分片或处于暂停读取状态的时间(纳秒)
+     */
+    private long lastRead;
+
+    /**
+     * 读超时检查定时器，每次到期时按最近一次读取时间重新安排，不为每个分片创建定时器
+     */
+    private Timeout readTimer;
+
+    UpstreamBody(Channel upstream, long readTimeoutMillis) {
+        this.upstream = upstream;
+        this.loop = upstream.eventLoop();
+        this.readTimeout = TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+        // 订阅前不继续读下游
+        upstream.config().setAutoRead(false);
+        if (readTimeoutMillis > 0) {
+            this.lastRead = System.nanoTime();
+            scheduleReadTimeout(readTimeoutMillis);
+        }
+    }
+
+    /**
+     * 客户端订阅响应体，之后到达的分片直接写入客户端连接
+     *
+     * @param client      客户端连接
+     * @param closeClient 转发完成后是否关闭客户端连接
+     */
+    public void subscribe(ChannelHandlerContext client, boolean closeClient) {
+        if (!loop.inEventLoop()) {
+            loop.execute(() -> subscribe(client, closeClient));
+            return;
+        }
+        this.client = client;
+        this.closeClient = closeClient;
+        if (aborted) {
+            client.close();
+            return;
+        }
+        client.channel().attr(CLIENT_BODY).set(this);
+        client.channel().closeFuture().addListener(clientClosed);
+        HttpContent content;
+        while ((content = pending.pollFirst()) != null) {
+            forward(content);
+        }
+        // 响应头写入时没有刷新，没有缓存的分片时在这里刷新
+        client.flush();
+        if (!finished) {
+            upstream.config().setAutoRead(client.channel().isWritable());
+        }
+    }
+
+    /**
+     * 客户端连接可写状态变化
+     */
+    public void onWritabilityChanged() {
+        if (!loop.inEventLoop()) {
+            loop.execute(this::onWritabilityChanged);
+            return;
+        }
+        if (client != null && !finished && !aborted) {
+            upstream.config().setAutoRead(client.channel().isWritable());
+        }
+    }
+
+    /**
+     * 放弃响应体：释放缓存的分片，响应体未读完时关闭下游连接
+     */
+    public void abort() {
+        if (!loop.inEventLoop()) {
+            loop.execute(this::abort);
+            return;
+        }
+        releasePending();
+        if (aborted) {
+            return;
+        }
+        aborted = true;
+        cancelReadTimeout();
+        if (!finished) {
+            upstream.close();
+        }
+    }
+
+    /**
+     * 下游连接上收到一个分片
+     */
+    void onContent(HttpContent content) {
+        boolean last = content instanceof LastHttpContent;
+        if (aborted) {
+            content.release();
+            return;
+        }
+        if (last) {
+            finished = true;
+            cancelReadTimeout();
+        } else {
+            lastRead = System.nanoTime();
+        }
+        if (client == null) {
+            pending.offerLast(content);
+            return;
+        }
+        forward(content);
+        if (!last && !client.channel().isWritable()) {
+            upstream.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * 下游连接在响应体读完前失败
+     */
+    void fail() {
+        if (finished || aborted) {
+            return;
+        }
+        aborted = true;
+        cancelReadTimeout();
+        releasePending();
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private void scheduleReadTimeout(long delayMillis) {
+        readTimer = GatewayTimer.getInstance().newTimeout(() -> loop.execute(this::checkReadTimeout), delayMillis);
+    }
+
+    /**
+     * 读超时检查：暂停读取时只刷新读取时间；超过读超时没有新分片时关闭客户端和下游连接
+     */
+    private void checkReadTimeout() {
+        if (finished || aborted) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!upstream.config().isAutoRead()) {
+            lastRead = now;
+        }
+        long remaining = lastRead + readTimeout - now;
+        if (remaining > 0) {
+            scheduleReadTimeout(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            return;
+        }
+        fail();
+        upstream.close();
+    }
+
+    private void cancelReadTimeout() {
+        if (readTimer != null) {
+            readTimer.cancel();
+            readTimer = null;
+        }
+    }
+
+    private void forward(HttpContent content) {
+        if (content instanceof LastHttpContent) {
+            client.channel().attr(CLIENT_BODY).set(null);
+            client.channel().closeFuture().removeListener(clientClosed);
+            if (closeClient) {
+                client.writeAndFlush(content).addListener(ChannelFutureListener.CLOSE);
+            } else {
+                client.writeAndFlush(content);
+            }
+        } else {
+            client.writeAndFlush(content);
+        }
+    }
+
+    private void releasePending() {
+        HttpContent content;
+        while ((content = pending.pollFirst()) != null) {
+            ReferenceCountUtil.safeRelease(content);
+        }
+    }
+}
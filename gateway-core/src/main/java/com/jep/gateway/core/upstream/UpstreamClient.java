@@ -0,0 +1,71 @@
+package com.jep.gateway.core.upstream;
+
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.core.context.GatewayContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 下游 HTTP 客户端
+ * 把负载均衡选定实例后的网关请求发送到下游，返回的 future 以 {@link java.util.concurrent.TimeoutException}
+ * 表示请求超时、以 {@link java.io.IOException} 表示连接或读写失败，供路由过滤器决定是否重试。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 09:05
+ **/
+public interface UpstreamClient {
+
+    /**
+     * 基于 AsyncHttpClient 的实现
+     */
+    String ASYNC_HTTP_CLIENT = "asynchttpclient";
+
+    /**
+     * 基于原生 Netty 的实现
+     */
+    String NETTY = "netty";
+
+    /**
+     * 发送请求到负载均衡选定的实例
+     *
+     * @param ctx 网关上下文，请求地址为 {@link com.jep.gateway.core.request.GatewayRequest#getModifyHost()}
+     * @return 下游响应
+     */
+    default CompletableFuture<UpstreamResponse> execute(GatewayContext ctx) {
+        return execute(ctx, ctx.getRequest().getModifyHost());
+    }
+
+    /**
+     * 发送请求到指定实例，对冲请求使用与负载均衡结果不同的实例
+     * 取消返回的 future 会中止请求：HTTP/1.1 关闭连接，HTTP/2 只重置该流
+     *
+     * @param ctx  网关上下文
+     * @param host 实例地址 ip:port
+     * @return 下游响应
+     */
+    CompletableFuture<UpstreamResponse> execute(GatewayContext ctx, String host);
+
+    /**
+     * 为新发现的实例在后台预先建立空闲连接，不支持预热的实现忽略
+     *
+     * @param serviceDefinition 实例所属的服务定义
+     * @param host              实例地址 ip:port
+     * @param count             预热的连接数
+     */
+    default void warmUp(ServiceDefinition serviceDefinition, String host, int count) {
+    }
+
+    /**
+     * 实例下线，关闭到该实例的空闲连接，正在使用的连接用完后关闭
+     *
+     * @param host 实例地址 ip:port
+     */
+    default void drain(String host) {
+    }
+
+    /**
+     * 关闭客户端，释放连接
+     */
+    default void close() {
+    }
+}
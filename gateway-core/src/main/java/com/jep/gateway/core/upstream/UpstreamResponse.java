@@ -0,0 +1,90 @@
+package com.jep.gateway.core.upstream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.util.ReferenceCountUtil;
+import lombok.Getter;
+import org.asynchttpclient.Response;
+
+/**
+ * 下游响应
+ * 统一 AsyncHttpClient 与原生 Netty 客户端的响应：状态码、响应头和响应体。
+ * 响应体的所有权随响应写回客户端一起转移，写回后由 Netty 释放；没有写回时需要调用 {@link #release()}。
+ * 流式响应只有响应头，响应体由 {@link UpstreamBody} 在写回响应头之后逐个分片转发。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 09:10
+ **/
+@Getter
+public final class UpstreamResponse {
+
+    private final int statusCode;
+
+    private final HttpHeaders headers;
+
+    private final ByteBuf content;
+
+    /**
+     * 响应体长度，响应体写回后读索引会移动，这里预先记录；流式响应取 Content-Length，未知时为 -1
+     */
+    private final int contentLength;
+
+    /**
+     * 流式转发的响应体，为空时响应体已经聚合在 content 中
+     */
+    private final UpstreamBody body;
+
+    public UpstreamResponse(int statusCode, HttpHeaders headers, ByteBuf content) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.content = content;
+        this.contentLength = content.readableBytes();
+        this.body = null;
+    }
+
+    private UpstreamResponse(HttpResponse head, UpstreamBody body) {
+        this.statusCode = head.status().code();
+        this.headers = head.headers();
+        this.content = Unpooled.EMPTY_BUFFER;
+        this.contentLength = (int) Math.min(Integer.MAX_VALUE, HttpUtil.getContentLength(head, -1L));
+        this.body = body;
+    }
+
+    /**
+     * AsyncHttpClient 的响应，响应体已经聚合在堆内存中
+     */
+    public static UpstreamResponse of(Response response) {
+        return new UpstreamResponse(response.getStatusCode(), response.getHeaders(),
+                Unpooled.wrappedBuffer(response.getResponseBodyAsByteBuffer()));
+    }
+
+    /**
+     * Netty 聚合后的完整响应，直接使用其响应头和响应体，不做复制
+     */
+    public static UpstreamResponse of(FullHttpResponse response) {
+        return new UpstreamResponse(response.status().code(), response.headers(), response.content());
+    }
+
+    /**
+     * 流式响应，响应体随后到达
+     */
+    static UpstreamResponse streaming(HttpResponse head, UpstreamBody body) {
+        return new UpstreamResponse(head, body);
+    }
+
+    public boolean isStreaming() {
+        return body != null;
+    }
+
+    public void release() {
+        if (body != null) {
+            body.abort();
+            return;
+        }
+        ReferenceCountUtil.safeRelease(content);
+    }
+}
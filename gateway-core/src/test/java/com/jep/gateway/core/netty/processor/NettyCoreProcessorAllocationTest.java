@@ -0,0 +1,250 @@
+package com.jep.gateway.core.netty.processor;
+
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.constant.BasicConst;
+import com.jep.gateway.common.constant.FilterConst;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.HttpRequestWrapper;
+import com.jep.gateway.core.helper.AsyncHttpHelper;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import junit.framework.TestCase;
+import lombok.extern.slf4j.Slf4j;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.netty.EagerResponseBodyPart;
+import org.asynchttpclient.netty.NettyResponseStatus;
+import org.asynchttpclient.uri.Uri;
+
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * NettyCoreProcessor 单请求分配量回归测试
+ * <p>
+ * 使用 EmbeddedChannel 接收响应，下游替换为同步返回固定响应的桩，整个代理链路都在当前线程执行，
+ * 因此可以用当前线程的分配字节数准确统计每个请求的分配量。预算保存在 allocation-budget.properties。
+ *
+ * @author enping.jep
+ * @date 2026/10/19 18:00
+ **/
+@Slf4j
+public class NettyCoreProcessorAllocationTest extends TestCase {
+
+    private static final String SERVICE_ID = "alloc-server";
+
+    private static final String UNIQUE_ID = SERVICE_ID + ":1.0.0";
+
+    private static final int WARMUP_ROUNDS = 20000;
+
+    private static final int MEASURE_ROUNDS = 5000;
+
+    private final NettyCoreProcessor processor = new NettyCoreProcessor();
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    private Properties budget;
+
+    @Override
+    protected void setUp() throws Exception {
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        budget = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("allocation-budget.properties")) {
+            budget.load(in);
+        }
+        ConfigLoader.getInstance().load(new String[0]);
+        registerService();
+        AsyncHttpHelper.getInstance().initialized(stubClient(upstreamResponse()));
+    }
+
+    public void testProxyAllocationWithinBudget() {
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        // 固定请求组合：精确路径 GET、带查询参数的前缀路径 GET、带 JSON 请求体的 POST
+        List<RequestTemplate> mix = List.of(
+                new RequestTemplate(HttpMethod.GET, "/alloc/ping", null),
+                new RequestTemplate(HttpMethod.GET, "/alloc/users/1?fields=name,age", null),
+                new RequestTemplate(HttpMethod.POST, "/alloc/ping", "{\"name\":\"gateway\",\"age\":3}"));
+        assertWithinBudget("proxy", mix, HttpResponseStatus.OK);
+    }
+
+    public void testErrorAllocationWithinBudget() {
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        // 未匹配路由，走 Jackson 构造错误响应
+        List<RequestTemplate> mix = List.of(new RequestTemplate(HttpMethod.GET, "/unknown/path", null));
+        assertWithinBudget("error", mix, HttpResponseStatus.NOT_FOUND);
+    }
+
+    private void assertWithinBudget(String name, List<RequestTemplate> mix, HttpResponseStatus expectedStatus) {
+        run(mix, WARMUP_ROUNDS, expectedStatus);
+        long gcBefore = gcCount();
+        long allocated = run(mix, MEASURE_ROUNDS, expectedStatus);
+        long gcEvents = gcCount() - gcBefore;
+
+        long requests = (long) MEASURE_ROUNDS * mix.size();
+        long bytesPerRequest = allocated / requests;
+        long limit = Long.parseLong(budget.getProperty(name + ".bytesPerRequest"));
+        String summary = String.format("%s: %d bytes/request, %d GC events over %d requests, budget %d",
+                name, bytesPerRequest, gcEvents, requests, limit);
+        log.info(summary);
+        assertTrue(summary, bytesPerRequest <= limit);
+    }
+
+    /**
+     * 执行请求并返回 process 调用期间当前线程的分配字节数，不包含构造请求与 channel 的开销
+     */
+    private long run(List<RequestTemplate> mix, int rounds, HttpResponseStatus expectedStatus) {
+        long allocated = 0;
+        for (int i = 0; i < rounds; i++) {
+            for (RequestTemplate template : mix) {
+                EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+                HttpRequestWrapper wrapper = new HttpRequestWrapper();
+                wrapper.setRequest(template.newRequest());
+                wrapper.setCtx(channel.pipeline().firstContext());
+
+                long before = threadMXBean.getCurrentThreadAllocatedBytes();
+                processor.process(wrapper);
+                allocated += threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+                FullHttpResponse response = channel.readOutbound();
+                assertNotNull("no response written", response);
+                assertEquals(expectedStatus, response.status());
+                response.release();
+                channel.finishAndReleaseAll();
+            }
+        }
+        return allocated;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static void registerService() {
+        DynamicConfigManager manager = DynamicConfigManager.getInstance();
+        ServiceDefinition definition = ServiceDefinition.builder()
+                .uniqueId(UNIQUE_ID)
+                .serviceId(SERVICE_ID)
+                .version("1.0.0")
+                .protocol("http")
+                .envType("dev")
+                .enable(true)
+                .invokerMap(new HashMap<>())
+                .build();
+        manager.putServiceDefinition(UNIQUE_ID, definition);
+
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            ServiceInstance instance = new ServiceInstance();
+            instance.setIp("127.0.0." + i);
+            instance.setPort(8080);
+            instance.setServiceInstanceId(instance.getIp() + ":8080");
+            instance.setUniqueId(UNIQUE_ID);
+            instance.setWeight(GatewayConst.DEFAULT_WEIGHT);
+            instance.setVersion("1.0.0");
+            instances.add(instance);
+        }
+        manager.addServiceInstance(UNIQUE_ID, instances);
+
+        Rule rule = new Rule();
+        rule.setId("alloc-rule");
+        rule.setName("alloc-rule");
+        rule.setProtocol("http");
+        rule.setServiceId(SERVICE_ID);
+        rule.setPrefix("/alloc");
+        rule.setPaths(List.of("/alloc/ping"));
+        rule.setOrder(0);
+        Rule.FilterConfig loadBalance = new Rule.FilterConfig();
+        loadBalance.setId(FilterConst.LOAD_BALANCE_FILTER_ID);
+        loadBalance.setConfig("{\"" + FilterConst.LOAD_BALANCE_KEY + "\": \"" + FilterConst.LOAD_BALANCE_STRATEGY_ROUND_ROBIN + "\"}");
+        rule.setFilterConfigs(new HashSet<>(List.of(loadBalance)));
+        manager.putAllRule(List.of(rule));
+    }
+
+    private static Response upstreamResponse() {
+        byte[] body = "{\"code\":0,\"data\":{\"name\":\"gateway\",\"age\":3}}".getBytes(StandardCharsets.UTF_8);
+        HttpHeaders headers = new DefaultHttpHeaders()
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .set(HttpHeaderNames.CONTENT_LENGTH, body.length);
+        DefaultHttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, headers);
+        return new Response.ResponseBuilder()
+                .accumulate(new NettyResponseStatus(Uri.create("http://127.0.0.1:8080/alloc/ping"),
+                        new DefaultAsyncHttpClientConfig.Builder().build(), httpResponse, null))
+                .accumulate(new HttpResponseHeaders(headers))
+                .accumulate(new EagerResponseBodyPart(Unpooled.wrappedBuffer(body), true))
+                .build();
+    }
+
+    /**
+     * 同步返回固定响应的下游客户端，只实现 executeRequest
+     */
+    private static AsyncHttpClient stubClient(Response response) {
+        ListenableFuture<?> future = (ListenableFuture<?>) Proxy.newProxyInstance(
+                ListenableFuture.class.getClassLoader(), new Class<?>[]{ListenableFuture.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toCompletableFuture" -> CompletableFuture.completedFuture(response);
+                    case "get" -> response;
+                    case "isDone" -> true;
+                    case "isCancelled", "cancel" -> false;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (AsyncHttpClient) Proxy.newProxyInstance(
+                AsyncHttpClient.class.getClassLoader(), new Class<?>[]{AsyncHttpClient.class},
+                (proxy, method, args) -> {
+                    if ("executeRequest".equals(method.getName())) {
+                        return future;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static class RequestTemplate {
+        private final HttpMethod method;
+
+        private final String uri;
+
+        private final byte[] body;
+
+        RequestTemplate(HttpMethod method, String uri, String body) {
+            this.method = method;
+            this.uri = uri;
+            this.body = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        FullHttpRequest newRequest() {
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri,
+                    Unpooled.wrappedBuffer(body));
+            request.headers()
+                    .set(HttpHeaderNames.HOST, "localhost:8888")
+                    .set(GatewayConst.UNIQUE_ID, UNIQUE_ID)
+                    .set(BasicConst.HTTP_FORWARD_SEPARATOR, "10.0.0.1")
+                    .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE)
+                    .setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+            if (body.length > 0) {
+                request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+            }
+            return request;
+        }
+    }
+}
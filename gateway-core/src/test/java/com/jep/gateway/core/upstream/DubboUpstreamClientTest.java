@@ -0,0 +1,278 @@
+package com.jep.gateway.core.upstream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jep.gateway.common.config.DubboServiceInvoker;
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.config.ServiceInvoker;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.common.util.JSONUtil;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import junit.framework.TestCase;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * DubboUpstreamClient 泛化调用测试
+ * <p>
+ * 在进程内以 dubbo 协议导出 {@link GreeterService}，网关直连该提供者，
+ * 覆盖基本类型参数、POJO 参数与返回值、提供者抛出异常和调用超时。
+ * JDK 17 上需要 surefire 的 --add-opens 参数，见 gateway-core 的 pom.xml。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 18:40
+ **/
+public class DubboUpstreamClientTest extends TestCase {
+
+    private static final String SERVICE_ID = "dubbo-greeter";
+
+    private static final String UNIQUE_ID = SERVICE_ID + ":1.0.0";
+
+    private static final String VERSION = "1.0.0";
+
+    private ServiceConfig<GreeterService> provider;
+
+    private DubboUpstreamClient client;
+
+    private String host;
+
+    private EventLoopGroup group;
+
+    /**
+     * 客户端连接，调用结果在它的 EventLoop 上完成
+     */
+    private Channel channel;
+
+    @Override
+    protected void setUp() throws Exception {
+        ConfigLoader.getInstance().load(new String[0]);
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ApplicationConfig application = new ApplicationConfig("gateway");
+        application.setQosEnable(false);
+        provider = new ServiceConfig<>();
+        provider.setApplication(application);
+        provider.setRegistry(new RegistryConfig(RegistryConfig.NO_AVAILABLE));
+        provider.setProtocol(new ProtocolConfig("dubbo", port));
+        provider.setInterface(GreeterService.class);
+        provider.setVersion(VERSION);
+        provider.setRef(new GreeterServiceImpl());
+        provider.export();
+        host = "127.0.0.1:" + port;
+
+        registerService();
+        group = new NioEventLoopGroup(1);
+        channel = new NioSocketChannel();
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter());
+        group.register(channel).sync();
+        client = new DubboUpstreamClient(ConfigLoader.getConfig());
+    }
+
+    @Override
+    protected void tearDown() {
+        client.close();
+        provider.unexport();
+        DynamicConfigManager.getInstance().removeServiceDefinition(UNIQUE_ID);
+        channel.close();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    public void testBasicArguments() throws Exception {
+        UpstreamResponse response = call("/greeter/hello", "[\"gateway\",3]", 3000);
+        try {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("\"hello gateway x3\"", response.getContent().toString(StandardCharsets.UTF_8));
+        } finally {
+            response.release();
+        }
+    }
+
+    public void testPojoArgumentAndResult() throws Exception {
+        UpstreamResponse response = call("/greeter/grow", "{\"name\":\"gateway\",\"age\":3}", 3000);
+        try {
+            assertEquals(200, response.getStatusCode());
+            JsonNode body = JSONUtil.tree(response.getContent().toString(StandardCharsets.UTF_8));
+            assertEquals("gateway", body.get("name").asText());
+            assertEquals(4, body.get("age").asInt());
+            // 泛化结果中的类型字段不返回给客户端
+            assertNull(body.get("class"));
+        } finally {
+            response.release();
+        }
+    }
+
+    public void testProviderExceptionIsServerError() throws Exception {
+        UpstreamResponse response = call("/greeter/fail", "\"boom\"", 3000);
+        try {
+            assertEquals(500, response.getStatusCode());
+            String message = JSONUtil.tree(response.getContent().toString(StandardCharsets.UTF_8)).get(JSONUtil.MESSAGE).asText();
+            assertTrue(message, message.contains(IllegalStateException.class.getName()) && message.contains("boom"));
+        } finally {
+            response.release();
+        }
+    }
+
+    public void testSlowProviderCompletesWithTimeout() {
+        long start = System.nanoTime();
+        try {
+            UpstreamResponse response = call("/greeter/sleep", "2000", 300);
+            response.release();
+            fail("expected timeout but got status " + response.getStatusCode());
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof TimeoutException);
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+    }
+
+    public void testDeadHostFailsWithIOException() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        host = "127.0.0.1:" + port;
+        for (int i = 0; i < 2; i++) {
+            try {
+                call("/greeter/hello", "[\"gateway\",3]", 3000).release();
+                fail("expected connect failure");
+            } catch (ExecutionException e) {
+                assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IOException);
+            }
+        }
+    }
+
+    private UpstreamResponse call(String path, String body, long timeoutMillis) throws Exception {
+        FullHttpRequest fullRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, path,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        fullRequest.headers()
+                .set(HttpHeaderNames.HOST, "localhost:8888")
+                .set(GatewayConst.UNIQUE_ID, UNIQUE_ID)
+                .set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+        GatewayRequest request = new GatewayRequest(UNIQUE_ID, StandardCharsets.UTF_8, "127.0.0.1", "localhost:8888",
+                path, HttpMethod.POST, "application/json", fullRequest.headers(), fullRequest);
+        GatewayContext ctx = GatewayContext.newBuilder()
+                .setProtocol(GatewayConst.PROTOCOL_DUBBO)
+                .setNettyCtx(channel.pipeline().firstContext())
+                .setRequest(request)
+                .setRule(new Rule())
+                .build();
+        ctx.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        try {
+            return client.execute(ctx, host).get(5, TimeUnit.SECONDS);
+        } finally {
+            fullRequest.release();
+        }
+    }
+
+    private static void registerService() {
+        Map<String, ServiceInvoker> invokers = new HashMap<>();
+        invokers.put("/greeter/hello", invoker("/greeter/hello", "hello", String.class.getName(), int.class.getName()));
+        invokers.put("/greeter/grow", invoker("/greeter/grow", "grow", Person.class.getName()));
+        invokers.put("/greeter/fail", invoker("/greeter/fail", "fail", String.class.getName()));
+        invokers.put("/greeter/sleep", invoker("/greeter/sleep", "sleep", long.class.getName()));
+        ServiceDefinition definition = ServiceDefinition.builder()
+                .uniqueId(UNIQUE_ID)
+                .serviceId(SERVICE_ID)
+                .version(VERSION)
+                .protocol(GatewayConst.PROTOCOL_DUBBO)
+                .envType("dev")
+                .enable(true)
+                .invokerMap(invokers)
+                .build();
+        DynamicConfigManager.getInstance().putServiceDefinition(UNIQUE_ID, definition);
+    }
+
+    private static DubboServiceInvoker invoker(String path, String method, String... parameterTypes) {
+        DubboServiceInvoker invoker = new DubboServiceInvoker();
+        invoker.setInvokerPath(path);
+        invoker.setInterfaceClass(GreeterService.class.getName());
+        invoker.setMethodName(method);
+        invoker.setParameterTypes(parameterTypes);
+        invoker.setVersion(VERSION);
+        return invoker;
+    }
+
+    public interface GreeterService {
+
+        String hello(String name, int times);
+
+        Person grow(Person person);
+
+        String fail(String message);
+
+        String sleep(long millis);
+    }
+
+    public static class GreeterServiceImpl implements GreeterService {
+
+        @Override
+        public String hello(String name, int times) {
+            return "hello " + name + " x" + times;
+        }
+
+        @Override
+        public Person grow(Person person) {
+            Person older = new Person();
+            older.setName(person.getName());
+            older.setAge(person.getAge() + 1);
+            return older;
+        }
+
+        @Override
+        public String fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        @Override
+        public String sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "awake";
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Person implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+
+        private int age;
+    }
+}
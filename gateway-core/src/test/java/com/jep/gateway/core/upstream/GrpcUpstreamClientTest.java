@@ -0,0 +1,357 @@
+package com.jep.gateway.core.upstream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.jep.gateway.common.config.DynamicConfigManager;
+import com.jep.gateway.common.config.Rule;
+import com.jep.gateway.common.config.ServiceDefinition;
+import com.jep.gateway.common.constant.GatewayConst;
+import com.jep.gateway.common.util.JSONUtil;
+import com.jep.gateway.core.config.ConfigLoader;
+import com.jep.gateway.core.context.GatewayContext;
+import com.jep.gateway.core.request.GatewayRequest;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.util.ReferenceCountUtil;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GrpcUpstreamClient 转码测试
+ * <p>
+ * 下游是进程内的 h2c 桩服务，按请求消息的 name 字段返回成功响应或指定的 grpc-status，
+ * 覆盖成功转码、请求体不合法、非 0 状态码映射、截止时间和不可用。
+ *
+ * @author enping.jep
+ * @date 2026/10/20 18:10
+ **/
+public class GrpcUpstreamClientTest extends TestCase {
+
+    private static final String SERVICE_ID = "grpc-greeter";
+
+    private static final String UNIQUE_ID = SERVICE_ID + ":1.0.0";
+
+    private static final String METHOD_PATH = "/test.Greeter/SayHello";
+
+    private Descriptors.FileDescriptor file;
+
+    private EventLoopGroup group;
+
+    private Channel server;
+
+    private Http2UpstreamClient http2Client;
+
+    private GrpcUpstreamClient client;
+
+    private String host;
+
+    /**
+     * 桩服务收到的调用次数
+     */
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws Exception {
+        ConfigLoader.getInstance().load(new String[0]);
+        DescriptorProtos.FileDescriptorProto proto = fileProto();
+        file = Descriptors.FileDescriptor.buildFrom(proto, new Descriptors.FileDescriptor[0]);
+        registerService(proto);
+
+        group = new NioEventLoopGroup(2);
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(Http2FrameCodecBuilder.forServer().build());
+                        ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+                            @Override
+                            protected void initChannel(Http2StreamChannel stream) {
+                                stream.pipeline().addLast(new GreeterHandler());
+                            }
+                        }));
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        host = "127.0.0.1:" + ((InetSocketAddress) server.localAddress()).getPort();
+        http2Client = new Http2UpstreamClient(ConfigLoader.getConfig(), group);
+        client = new GrpcUpstreamClient(ConfigLoader.getConfig(), http2Client);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        client.close();
+        http2Client.close();
+        server.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        DynamicConfigManager.getInstance().removeServiceDefinition(UNIQUE_ID);
+    }
+
+    public void testSuccessTranscodesBothWays() throws Exception {
+        UpstreamResponse response = call("{\"name\":\"gateway\",\"count\":21}", 3000);
+        try {
+            assertEquals(200, response.getStatusCode());
+            JsonNode body = JSONUtil.tree(response.getContent().toString(StandardCharsets.UTF_8));
+            assertEquals("hello gateway", body.get("message").asText());
+            // int64 按 proto3 JSON 映射输出为字符串
+            assertTrue(body.get("total").isTextual());
+            assertEquals("42", body.get("total").asText());
+        } finally {
+            response.release();
+        }
+    }
+
+    public void testMalformedJsonIsRejectedBeforeCall() throws Exception {
+        assertBadRequest("{\"name\":");
+        assertBadRequest("[1,2]");
+        // 数值字段不接受对象和数组，也不接受带小数部分的数字
+        assertBadRequest("{\"count\":{}}");
+        assertBadRequest("{\"count\":[1]}");
+        assertBadRequest("{\"count\":1.5}");
+        // 字符串和字节字段只接受 JSON 字符串，布尔字段的字符串只接受 "true" 和 "false"
+        assertBadRequest("{\"name\":{}}");
+        assertBadRequest("{\"name\":[1]}");
+        assertBadRequest("{\"name\":5}");
+        assertBadRequest("{\"avatar\":true}");
+        assertBadRequest("{\"polite\":\"yes\"}");
+        assertBadRequest("{\"polite\":1}");
+        assertEquals(0, calls.get());
+    }
+
+    public void testNonOkStatusIsMappedToHttpStatus() throws Exception {
+        UpstreamResponse response = call("{\"name\":\"missing\"}", 3000);
+        try {
+            assertEquals(404, response.getStatusCode());
+            JsonNode body = JSONUtil.tree(response.getContent().toString(StandardCharsets.UTF_8));
+            assertEquals(5, body.get(JSONUtil.CODE).asInt());
+            // grpc-message 百分号解码，'+' 保持原样
+            assertEquals("user missing+1", body.get(JSONUtil.MESSAGE).asText());
+        } finally {
+            response.release();
+        }
+    }
+
+    public void testDeadlineExceededCompletesWithTimeout() {
+        assertFailure(TimeoutException.class, "{\"name\":\"slow\"}", 3000);
+    }
+
+    public void testUpstreamSilentPastDeadlineCompletesWithTimeout() {
+        long start = System.nanoTime();
+        assertFailure(TimeoutException.class, "{\"name\":\"hang\"}", 300);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    public void testUnavailableCompletesWithIOException() {
+        assertFailure(IOException.class, "{\"name\":\"down\"}", 3000);
+    }
+
+    private void assertBadRequest(String body) throws Exception {
+        UpstreamResponse response = call(body, 3000);
+        try {
+            assertEquals(body, 400, response.getStatusCode());
+        } finally {
+            response.release();
+        }
+    }
+
+    private void assertFailure(Class<? extends Throwable> expected, String body, long timeoutMillis) {
+        try {
+            UpstreamResponse response = call(body, timeoutMillis);
+            response.release();
+            fail("expected " + expected.getSimpleName() + " but got status " + response.getStatusCode());
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), expected.isInstance(e.getCause()));
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+
+    private UpstreamResponse call(String body, long timeoutMillis) throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        FullHttpRequest fullRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, METHOD_PATH,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        fullRequest.headers()
+                .set(HttpHeaderNames.HOST, "localhost:8888")
+                .set(GatewayConst.UNIQUE_ID, UNIQUE_ID)
+                .set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+        GatewayRequest request = new GatewayRequest(UNIQUE_ID, StandardCharsets.UTF_8, "127.0.0.1", "localhost:8888",
+                METHOD_PATH, HttpMethod.POST, "application/json", fullRequest.headers(), fullRequest);
+        GatewayContext ctx = GatewayContext.newBuilder()
+                .setProtocol(GatewayConst.PROTOCOL_GRPC)
+                .setNettyCtx(channel.pipeline().firstContext())
+                .setRequest(request)
+                .setRule(new Rule())
+                .build();
+        ctx.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        try {
+            return client.execute(ctx, host).get(5, TimeUnit.SECONDS);
+        } finally {
+            fullRequest.release();
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private void registerService(DescriptorProtos.FileDescriptorProto proto) {
+        ServiceDefinition.GrpcConfig grpc = new ServiceDefinition.GrpcConfig();
+        grpc.setService("test.Greeter");
+        grpc.setDescriptorSet(Base64.getEncoder().encodeToString(
+                DescriptorProtos.FileDescriptorSet.newBuilder().addFile(proto).build().toByteArray()));
+        ServiceDefinition definition = ServiceDefinition.builder()
+                .uniqueId(UNIQUE_ID)
+                .serviceId(SERVICE_ID)
+                .version("1.0.0")
+                .protocol(GatewayConst.PROTOCOL_GRPC)
+                .envType("dev")
+                .enable(true)
+                .invokerMap(new HashMap<>())
+                .grpc(grpc)
+                .build();
+        DynamicConfigManager.getInstance().putServiceDefinition(UNIQUE_ID, definition);
+    }
+
+    /**
+     * test.Greeter/SayHello(HelloRequest{name, count}) returns HelloReply{message, total}
+     */
+    private static DescriptorProtos.FileDescriptorProto fileProto() {
+        return DescriptorProtos.FileDescriptorProto.newBuilder()
+                .setName("greeter.proto")
+                .setPackage("test")
+                .setSyntax("proto3")
+                .addMessageType(DescriptorProtos.DescriptorProto.newBuilder()
+                        .setName("HelloRequest")
+                        .addField(field("name", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(field("count", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT32))
+                        .addField(field("polite", 3, DescriptorProtos.FieldDescriptorProto.Type.TYPE_BOOL))
+                        .addField(field("avatar", 4, DescriptorProtos.FieldDescriptorProto.Type.TYPE_BYTES)))
+                .addMessageType(DescriptorProtos.DescriptorProto.newBuilder()
+                        .setName("HelloReply")
+                        .addField(field("message", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(field("total", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64)))
+                .addService(DescriptorProtos.ServiceDescriptorProto.newBuilder()
+                        .setName("Greeter")
+                        .addMethod(DescriptorProtos.MethodDescriptorProto.newBuilder()
+                                .setName("SayHello")
+                                .setInputType(".test.HelloRequest")
+                                .setOutputType(".test.HelloReply")))
+                .build();
+    }
+
+    private static DescriptorProtos.FieldDescriptorProto.Builder field(String name, int number,
+                                                                       DescriptorProtos.FieldDescriptorProto.Type type) {
+        return DescriptorProtos.FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL)
+                .setType(type);
+    }
+
+    /**
+     * 桩服务的流处理：聚合请求帧，按 name 字段决定响应
+     */
+    private final class GreeterHandler extends ChannelInboundHandlerAdapter {
+
+        private final ByteBuf request = Unpooled.buffer();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            try {
+                boolean endStream = false;
+                if (msg instanceof Http2HeadersFrame headers) {
+                    endStream = headers.isEndStream();
+                } else if (msg instanceof Http2DataFrame data) {
+                    request.writeBytes(data.content());
+                    endStream = data.isEndStream();
+                }
+                if (endStream) {
+                    calls.incrementAndGet();
+                    respond(ctx);
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            request.release();
+            super.channelInactive(ctx);
+        }
+
+        private void respond(ChannelHandlerContext ctx) throws IOException {
+            Descriptors.Descriptor input = file.findMessageTypeByName("HelloRequest");
+            Descriptors.Descriptor output = file.findMessageTypeByName("HelloReply");
+            request.skipBytes(5);
+            DynamicMessage hello = DynamicMessage.parseFrom(input, new ByteBufInputStream(request));
+            String name = (String) hello.getField(input.findFieldByName("name"));
+            int count = (Integer) hello.getField(input.findFieldByName("count"));
+            switch (name) {
+                case "hang":
+                    return;
+                case "missing":
+                    ctx.writeAndFlush(new DefaultHttp2HeadersFrame(status(5).add("grpc-message", "user%20missing+1"), true));
+                    return;
+                case "slow":
+                    ctx.writeAndFlush(new DefaultHttp2HeadersFrame(status(4), true));
+                    return;
+                case "down":
+                    ctx.writeAndFlush(new DefaultHttp2HeadersFrame(status(14).add("grpc-message", "draining"), true));
+                    return;
+                default:
+                    byte[] reply = DynamicMessage.newBuilder(output)
+                            .setField(output.findFieldByName("message"), "hello " + name)
+                            .setField(output.findFieldByName("total"), count * 2L)
+                            .build().toByteArray();
+                    ByteBuf frame = ctx.alloc().buffer(5 + reply.length).writeByte(0).writeInt(reply.length).writeBytes(reply);
+                    ctx.write(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().status("200")
+                            .set(HttpHeaderNames.CONTENT_TYPE, "application/grpc")));
+                    ctx.write(new DefaultHttp2DataFrame(frame));
+                    ctx.writeAndFlush(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().set("grpc-status", "0"), true));
+            }
+        }
+
+        /**
+         * 只有头部的错误响应(Trailers-Only)
+         */
+        private Http2Headers status(int grpcStatus) {
+            return new DefaultHttp2Headers().status("200")
+                    .set(HttpHeaderNames.CONTENT_TYPE, "application/grpc")
+                    .set("grpc-status", String.valueOf(grpcStatus));
+        }
+    }
+}
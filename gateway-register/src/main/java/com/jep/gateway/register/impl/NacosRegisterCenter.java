@@ -1,13 +1,17 @@
 package com.jep.gateway.register.impl;
 
 import com.alibaba.nacos.api.naming.NamingService;
+import com.jep.gateway.common.config.DubboServiceInvoker;
+import com.jep.gateway.common.config.HttpServiceInvoker;
 import com.jep.gateway.common.config.ServiceDefinition;
 import com.jep.gateway.common.config.ServiceInstance;
+import com.jep.gateway.common.config.ServiceInvoker;
 import com.jep.gateway.common.constant.GatewayConst;
 import com.jep.gateway.register.RegisterCenter;
 import com.jep.gateway.register.RegisterCenterListener;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
 import com.alibaba.nacos.api.exception.NacosException;
 import com.alibaba.nacos.api.naming.NamingFactory;
 import com.alibaba.nacos.api.naming.NamingMaintainFactory;
@@ -37,6 +41,9 @@ import java.util.stream.Collectors;
  **/
 @Slf4j
 public class NacosRegisterCenter implements RegisterCenter {
+    //服务定义中调用模型的字段名
+    private static final String INVOKER_MAP_KEY = "invokerMap";
+
     //注册地址
     private String registerAddress;
 
@@ -188,6 +195,25 @@ public class NacosRegisterCenter implements RegisterCenter {
         }
     }
 
+    /**
+     * 解析服务定义
+     * 调用模型的字段类型是接口，fastjson 只能解析为动态代理，这里按服务协议解析为具体的调用模型
+     */
+    private static ServiceDefinition parseServiceDefinition(String json) {
+        JSONObject object = JSON.parseObject(json);
+        JSONObject invokers = (JSONObject) object.remove(INVOKER_MAP_KEY);
+        ServiceDefinition serviceDefinition = object.toJavaObject(ServiceDefinition.class);
+        if (invokers != null) {
+            Class<? extends ServiceInvoker> type = GatewayConst.PROTOCOL_DUBBO.equalsIgnoreCase(serviceDefinition.getProtocol())
+                    ? DubboServiceInvoker.class : HttpServiceInvoker.class;
+            Map<String, ServiceInvoker> invokerMap = new HashMap<>();
+            for (String path : invokers.keySet()) {
+                invokerMap.put(path, invokers.getObject(path, type));
+            }
+            serviceDefinition.setInvokerMap(invokerMap);
+        }
+        return serviceDefinition;
+    }
 
     /**
      * 实现对 nacos 事件的监听器 这个事件监听器会在 nacos 发生事件变化的时候进行回调
@@ -207,7 +233,7 @@ public class NacosRegisterCenter implements RegisterCenter {
                     // 通过服务名称获取服务定义信息
                     Service service = namingMaintainService.queryService(serviceName, env);
                     // 解析服务元数据中的服务定义
-                    ServiceDefinition serviceDefinition = JSON.parseObject(service.getMetadata().get(GatewayConst.META_DATA_KEY), ServiceDefinition.class);
+                    ServiceDefinition serviceDefinition = parseServiceDefinition(service.getMetadata().get(GatewayConst.META_DATA_KEY));
                     // 获取所有服务实例
                     List<Instance> allInstances = namingService.getAllInstances(service.getName(), env);
                     // 创建一个集合存储服务实例